@@ -71,6 +71,15 @@ public abstract class AbstractWorldObject implements WorldObject {
      */
     protected abstract void doReset();
 
+    /**
+     * Resets this object right away, instead of at its next step. Only the
+     * engine calls this, while it holds the lock of its world objects.
+     */
+    final void resetNow() {
+        doReset();
+        doReset.set(false);
+    }
+
     /**
      * Returns whether this object is currently being reset.
      *
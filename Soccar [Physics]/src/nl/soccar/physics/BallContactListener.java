@@ -4,25 +4,41 @@ import nl.soccar.library.Ball;
 import nl.soccar.library.Car;
 import nl.soccar.library.Player;
 import nl.soccar.library.Session;
-import org.jbox2d.callbacks.ContactImpulse;
-import org.jbox2d.callbacks.ContactListener;
-import org.jbox2d.collision.Manifold;
-import org.jbox2d.dynamics.Fixture;
-import org.jbox2d.dynamics.contacts.Contact;
+import nl.soccar.physics.backend.ContactHandler;
+import nl.soccar.physics.backend.PhysicsBackend;
+import nl.soccar.physics.listener.CollisionBatch;
+import nl.soccar.physics.listener.CollisionType;
 
 /**
- * This class listens for collisions between a player and the ball in the Box2D world. When a collision happens, the beginContact method is called.
+ * This class listens for collisions between a player and the ball in the physics backend. When a collision happens, the beginContact method is called.
  * When the collision is between a player and a car, the lastTouched field is updated in the Game object.
+ * After solving, significant impulses between cars, the ball and walls are recorded in the collision batch of the engine.
  */
-public class BallContactListener implements ContactListener {
+public class BallContactListener implements ContactHandler {
+
+    private final GameEngine engine;
+    private final PhysicsBackend backend;
+
+    /**
+     * Initiates a new BallContactListener for the given engine.
+     *
+     * @param engine  The engine whose world this listener listens to.
+     * @param backend The backend that simulates the world of the engine.
+     */
+    public BallContactListener(GameEngine engine, PhysicsBackend backend) {
+        this.engine = engine;
+        this.backend = backend;
+    }
 
     @Override
-    public void beginContact(Contact contact) {
-        Car car = getCarFromFixtures(contact.getFixtureA(), contact.getFixtureB());
+    public void beginContact(int bodyA, int bodyB) {
+        Car car = getCarFromBodies(bodyA, bodyB);
         if (car == null) {
             return;
         }
 
+        engine.onBallTouched(car);
+
         Player player = car.getPlayer();
 
         Session session = player.getCurrentSession();
@@ -34,42 +50,65 @@ public class BallContactListener implements ContactListener {
     }
 
     /**
-     * Gets a car from two fixtures, by determining which one is a Ball and which one is a Car.
+     * Gets a car from two bodies, by determining which one is a Ball and which one is a Car.
      *
-     * @param fixtureA The first Fixture connected to a Contact.
-     * @param fixtureB The second Fixture connected to a Contact.
+     * @param bodyA The first body of a contact.
+     * @param bodyB The second body of a contact.
      * @return The Car, if found at all, of the Player that touched the Ball.
      */
-    private Car getCarFromFixtures(Fixture fixtureA, Fixture fixtureB) {
-        Object userDataA = fixtureA.getUserData();
-        Object userDataB = fixtureB.getUserData();
+    private Car getCarFromBodies(int bodyA, int bodyB) {
+        Object userDataA = backend.getUserData(bodyA);
+        Object userDataB = backend.getUserData(bodyB);
 
         if (userDataA == null || userDataB == null) {
             return null;
         }
 
         if (userDataA instanceof Car && userDataB instanceof Ball) {
-            return (Car) userDataA; // FixtureA is a car, fixtureB is a ball.
+            return (Car) userDataA; // BodyA is a car, bodyB is a ball.
         } else if (userDataA instanceof Ball && userDataB instanceof Car) {
-            return (Car) userDataB; // FixtureA is a ball, fixtureB is a car.
+            return (Car) userDataB; // BodyA is a ball, bodyB is a car.
         }
 
         return null;
     }
 
     @Override
-    public void endContact(Contact contact) {
-        // Not implemented
-    }
+    public void postSolve(int bodyA, int bodyB, float impulse, float x, float y) {
+        int other = bodyB;
+        Object userDataA = backend.getUserData(bodyA);
+        Object userDataB = backend.getUserData(bodyB);
 
-    @Override
-    public void preSolve(Contact contact, Manifold manifold) {
-        // Not implemented
-    }
+        // Make sure A is a car, if any of the two is.
+        if (!(userDataA instanceof Car)) {
+            other = bodyA;
 
-    @Override
-    public void postSolve(Contact contact, ContactImpulse contactImpulse) {
-        // Not implemented
+            Object userData = userDataA;
+            userDataA = userDataB;
+            userDataB = userData;
+        }
+
+        if (!(userDataA instanceof Car)) {
+            return;
+        }
+
+        CollisionType type;
+        if (userDataB instanceof Ball) {
+            type = CollisionType.CAR_BALL;
+        } else if (userDataB instanceof Car) {
+            type = CollisionType.CAR_CAR;
+        } else if (userDataB == null && backend.isStatic(other)) {
+            type = CollisionType.CAR_WALL;
+        } else {
+            return;
+        }
+
+        if (impulse < PhysicsConstants.COLLISION_IMPULSE_THRESHOLD) {
+            return;
+        }
+
+        CollisionBatch batch = engine.getCollisionBatch();
+        batch.add(type, impulse, x, y, (Car) userDataA, userDataB);
     }
 
 }
@@ -0,0 +1,31 @@
+package nl.soccar.physics;
+
+/**
+ * An EngineClock tells the engine what time it is. The system clock follows
+ * the wall clock; the virtual clock derives the time from the tick number, so
+ * two runs with the same inputs see exactly the same times.
+ *
+ * @author PTS34A
+ */
+@FunctionalInterface
+public interface EngineClock {
+
+    /**
+     * The clock that follows the wall clock.
+     */
+    EngineClock SYSTEM = tick -> System.currentTimeMillis();
+
+    /**
+     * The clock that derives the time from the tick number, starting at zero.
+     */
+    EngineClock VIRTUAL = tick -> tick * 1000 / PhysicsConstants.ENGINE_FPS;
+
+    /**
+     * Returns the current time.
+     *
+     * @param tick The current tick number.
+     * @return The current time in milliseconds.
+     */
+    long currentTimeMillis(long tick);
+
+}
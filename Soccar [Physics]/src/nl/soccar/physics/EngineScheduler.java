@@ -0,0 +1,67 @@
+package nl.soccar.physics;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The EngineScheduler spreads game engines over a fixed amount of workers,
+ * one per core, instead of giving every engine its own timer thread. By
+ * default, the worlds on a worker share Box2D pools, which the engines use
+ * one at a time; engines that are driven headless are best stepped on one
+ * thread per worker, so they don't wait for each other, see
+ * GameEngine.getWorker().
+ *
+ * @author PTS34A
+ */
+public final class EngineScheduler {
+
+    private static final EngineScheduler DEFAULT = new EngineScheduler(Runtime.getRuntime().availableProcessors());
+
+    private final EngineWorker[] workers;
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * Initiates a new EngineScheduler with the given amount of workers, whose
+     * worlds share Box2D pools.
+     *
+     * @param workerCount The amount of workers.
+     */
+    public EngineScheduler(int workerCount) {
+        this(workerCount, true);
+    }
+
+    /**
+     * Initiates a new EngineScheduler using the given parameters.
+     *
+     * @param workerCount The amount of workers.
+     * @param sharedPools Whether the worlds on a worker share Box2D pools.
+     */
+    public EngineScheduler(int workerCount, boolean sharedPools) {
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("At least one worker is required.");
+        }
+
+        workers = new EngineWorker[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = new EngineWorker("engine-worker-" + i, sharedPools);
+        }
+    }
+
+    /**
+     * Returns the scheduler that is shared by all engines by default.
+     *
+     * @return The default scheduler.
+     */
+    public static EngineScheduler getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Assigns a worker to a new engine, in round-robin order.
+     *
+     * @return The assigned worker.
+     */
+    EngineWorker assign() {
+        return workers[Math.floorMod(next.getAndIncrement(), workers.length)];
+    }
+
+}
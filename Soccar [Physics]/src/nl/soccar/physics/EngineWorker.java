@@ -0,0 +1,118 @@
+package nl.soccar.physics;
+
+import nl.soccar.physics.bot.BotBudget;
+import org.jbox2d.pooling.IWorldPool;
+import org.jbox2d.pooling.normal.DefaultWorldPool;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * An EngineWorker is a single thread that steps the game engines assigned to
+ * it. Engines only hold a scheduled task on their worker while they need to
+ * tick, so parked engines cost no CPU at all.
+ * <p>
+ * The worlds of all engines on a worker can share a single set of Box2D pools
+ * instead of each building its own. The pools hold temporaries that only one
+ * thread may use at a time, so every creation, change and step of those
+ * worlds runs through run() or call(), whatever thread it comes from. Those
+ * tasks never overlap, even without shared pools, so a task that reads a
+ * world, such as a checkpoint, always sees it between two ticks. Since
+ * the engines on a worker are stepped one after another, the bots of all
+ * engines on a worker share a single CPU budget per tick.
+ *
+ * @author PTS34A
+ */
+public final class EngineWorker {
+
+    private final ScheduledExecutorService executor;
+    private final IWorldPool pool;
+    private final ReentrantLock worldLock = new ReentrantLock(); // Guards the pools and the worlds between two ticks
+    private final BotBudget botBudget = new BotBudget(PhysicsConstants.BOT_TICK_BUDGET_NS, PhysicsConstants.ENGINE_TICK_PERIOD_NS);
+
+    /**
+     * Initiates a new EngineWorker with the given thread name.
+     *
+     * @param name        The name of the worker thread.
+     * @param sharedPools Whether the worlds on this worker share Box2D pools.
+     */
+    EngineWorker(String name, boolean sharedPools) {
+        pool = sharedPools ? new DefaultWorldPool(PhysicsConstants.WORLD_POOL_SIZE, PhysicsConstants.WORLD_POOL_CONTAINER_SIZE) : null;
+
+        ScheduledThreadPoolExecutor scheduled = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduled.setRemoveOnCancelPolicy(true); // Parked engines should not linger in the queue
+
+        executor = scheduled;
+    }
+
+    /**
+     * Returns the Box2D pools shared by the worlds on this worker.
+     *
+     * @return The pools, or null if every world has its own.
+     */
+    IWorldPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Runs a task that creates, reads, changes or steps a world on this
+     * worker. The task waits until no other task of this worker runs. Must
+     * not be called while holding a lock of an engine.
+     *
+     * @param task The task.
+     */
+    public void run(Runnable task) {
+        call(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs a task that creates, reads, changes or steps a world on this
+     * worker, and returns its result. See run().
+     *
+     * @param task The task.
+     * @param <T>  The type of the result.
+     * @return The result of the task.
+     */
+    public <T> T call(Supplier<T> task) {
+        worldLock.lock();
+        try {
+            return task.get();
+        } finally {
+            worldLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the CPU budget that the bots of all engines on this worker
+     * share in every tick.
+     *
+     * @return The bot budget.
+     */
+    public BotBudget getBotBudget() {
+        return botBudget;
+    }
+
+    /**
+     * Schedules a task at a fixed rate on this worker.
+     *
+     * @param task         The task.
+     * @param initialDelay The delay before the first run, in nanoseconds.
+     * @param period       The period between two runs, in nanoseconds.
+     * @return The scheduled task, which can be cancelled.
+     */
+    ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long initialDelay, long period) {
+        return executor.scheduleAtFixedRate(task, initialDelay, period, TimeUnit.NANOSECONDS);
+    }
+
+}
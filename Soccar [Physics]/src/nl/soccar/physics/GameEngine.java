@@ -1,32 +1,98 @@
 package nl.soccar.physics;
 
-import javafx.scene.shape.Rectangle;
 import nl.soccar.library.*;
 import nl.soccar.library.Map;
 import nl.soccar.library.enumeration.EventType;
 import nl.soccar.library.enumeration.GameStatus;
+import nl.soccar.library.enumeration.HandbrakeAction;
+import nl.soccar.library.enumeration.SteerAction;
+import nl.soccar.library.enumeration.ThrottleAction;
+import nl.soccar.physics.backend.BackendLoader;
+import nl.soccar.physics.backend.BackendType;
+import nl.soccar.physics.backend.Box2DBackend;
+import nl.soccar.physics.backend.PhysicsBackend;
+import nl.soccar.physics.bot.BotController;
+import nl.soccar.physics.bot.BotScheduler;
+import nl.soccar.physics.checkpoint.WorldState;
+import nl.soccar.physics.diagnostics.FlightRecorder;
+import nl.soccar.physics.fx.FxAdapter;
+import nl.soccar.physics.history.TransformHistory;
+import nl.soccar.physics.input.InputBuffer;
+import nl.soccar.physics.listener.CollisionBatch;
+import nl.soccar.physics.listener.CollisionListener;
 import nl.soccar.physics.listener.GameEventListener;
+import nl.soccar.physics.listener.TickListener;
+import nl.soccar.physics.metrics.InputLatency;
 import nl.soccar.physics.models.BallPhysics;
 import nl.soccar.physics.models.CarPhysics;
+import nl.soccar.physics.models.StaticGeometryPhysics;
+import nl.soccar.physics.prediction.BallPrediction;
+import nl.soccar.physics.snapshot.SnapshotPublisher;
+import nl.soccar.physics.snapshot.SnapshotSubscriber;
+import nl.soccar.physics.snapshot.Subscription;
+import nl.soccar.physics.telemetry.MatchTelemetry;
+import nl.soccar.physics.timer.Timeout;
+import nl.soccar.physics.timer.TimingWheel;
 import org.jbox2d.dynamics.World;
 
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author PTS34A
  */
 public final class GameEngine {
 
+    private static final int CHECKPOINT_MAGIC = 0x53434350; // "SCCP"
+    private static final int CHECKPOINT_VERSION = 4;
+    private static final int CHECKPOINT_INITIAL_SIZE = 16 * 1024;
+
     private final Object lock = new Object();
+    private final Object scheduleLock = new Object();
     private final Session session;
     private final Game game;
     private final List<WorldObject> objects = new ArrayList<>();
-    private final java.util.Map<Player, CarPhysics> cars = new HashMap<>();
+    private final java.util.Map<Player, CarPhysics> cars = new LinkedHashMap<>(); // Guarded by itself; stable order, for determinism
+    private volatile List<CarPhysics> carList = Collections.emptyList(); // Copy of the cars, replaced on every change
+    private final java.util.Map<CarPhysics, InputBuffer> inputs = new LinkedHashMap<>();
+    private final long[] checksums = new long[PhysicsConstants.HISTORY_SIZE];
+    private final long[] checksumTicks = new long[PhysicsConstants.HISTORY_SIZE];
     private final List<GameEventListener> listeners = new ArrayList<>();
-    private World world;
+    private final List<TickListener> tickListeners = new ArrayList<>();
+    private final List<CollisionListener> collisionListeners = new ArrayList<>();
+    private final CollisionBatch collisions = new CollisionBatch(PhysicsConstants.COLLISION_BATCH_SIZE);
+    private final BotScheduler bots;
+    private final SnapshotPublisher snapshots = new SnapshotPublisher();
+    private final FlightRecorder recorder = new FlightRecorder(PhysicsConstants.FLIGHT_RECORDER_SIZE);
+    private final InputLatency inputLatency = new InputLatency();
+    private final BallPrediction prediction = new BallPrediction();
+    private final TransformHistory history = new TransformHistory(PhysicsConstants.HISTORY_SIZE, PhysicsConstants.HISTORY_CAR_SLOTS);
+    private final TimingWheel timers = new TimingWheel(0);
+    private BackendType backendType = PhysicsConstants.ENGINE_BACKEND;
+    private PhysicsBackend backend;
     private BallPhysics ballPhysics;
-    private Timer timer;
-    private long lastSecondsDecreasedMs = 0;
+    private final EngineWorker worker;
+    private ScheduledFuture<?> task;
+    private boolean scheduled = false;
+    private boolean pausePolling = false;
+    private volatile int stride = 1;
+    private volatile int modelSyncInterval = PhysicsConstants.ENGINE_MODEL_SYNC_INTERVAL;
+    private volatile boolean tireForceBatchingRequested = false;
+    private boolean tireForceBatching = false;
+    private int ticksSinceModelSync = 0;
+    private volatile MatchTelemetry telemetry;
+    private volatile GoalBounds goalBlue;
+    private volatile GoalBounds goalRed;
+    private long tick = 0;
+    private Timeout gameClock;
+    private long gameTimeDecreases = 0; // Since the game started
+    private EngineClock clock = EngineClock.SYSTEM;
+    private boolean deterministic = false;
+    private long lastChecksum = 0;
+    private long desyncTick = -1;
 
     /**
      * l
@@ -35,12 +101,58 @@ public final class GameEngine {
      * @param session The session object.
      */
     public GameEngine(Session session) {
+        this(session, EngineScheduler.getDefault());
+    }
+
+    /**
+     * Creates a new game engine object, that is stepped by one of the workers
+     * of the given scheduler.
+     *
+     * @param session   The session object.
+     * @param scheduler The scheduler that provides the worker.
+     */
+    public GameEngine(Session session, EngineScheduler scheduler) {
         this.session = session;
         game = session.getGame();
+        worker = scheduler.assign();
+        bots = new BotScheduler(PhysicsConstants.BOT_DECISION_INTERVAL, worker.getBotBudget());
+        Arrays.fill(checksumTicks, -1);
+
+        backend = worker.call(this::createBackend);
+        gameClock = scheduleGameClock(PhysicsConstants.ENGINE_FPS);
+    }
+
+    /**
+     * Schedules the game clock, which decreases the game time every
+     * ENGINE_FPS ticks. The worker runs ticks ENGINE_TICK_PERIOD_NS apart, so
+     * that is a second of wall time.
+     *
+     * @param delay The amount of ticks until the first decrease.
+     * @return The timeout of the game clock.
+     */
+    private Timeout scheduleGameClock(long delay) {
+        return timers.schedulePeriodic(delay, PhysicsConstants.ENGINE_FPS, t -> decreaseGameTime());
+    }
+
+    /**
+     * Decreases the game time, and counts the decrease, so a checkpoint can
+     * bring a restored game to the same time.
+     */
+    private void decreaseGameTime() {
+        game.decreaseGameTime();
+        gameTimeDecreases++;
+    }
 
-        // doSleep (second parameter) is true for better performance
-        world = new World(PhysicsConstants.GRAVITY_ANGLE, true);
-        world.setContactListener(new BallContactListener());
+    /**
+     * Creates a new, empty backend of the current type, which shares the
+     * Box2D pools of the worker if the worker has them.
+     *
+     * @return The new backend.
+     */
+    private PhysicsBackend createBackend() {
+        PhysicsBackend newBackend = BackendLoader.create(backendType, worker.getPool());
+        newBackend.setContactHandler(new BallContactListener(this, newBackend));
+        return newBackend;
     }
 
     /**
@@ -52,15 +164,25 @@ public final class GameEngine {
         }
 
         game.start();
+        gameTimeDecreases = 0;
 
-        timer = new Timer();
-        timer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                step();
-            }
+        synchronized (scheduleLock) {
+            scheduled = true;
+            schedule(1, 0);
+        }
+    }
+
+    /**
+     * Starts the game without scheduling any ticks. The caller is responsible
+     * for stepping the engine, using step().
+     */
+    public void startHeadless() {
+        if (game.getStatus() != GameStatus.STOPPED) {
+            return;
+        }
 
-        }, 0, PhysicsConstants.ENGINE_REFRESH_RATE);
+        game.start();
+        gameTimeDecreases = 0;
     }
 
     /**
@@ -68,10 +190,156 @@ public final class GameEngine {
      */
     public void stop() {
         game.stop();
+        flushModels();
+
+        MatchTelemetry current = telemetry;
+        if (current != null) {
+            current.flush();
+        }
+
+        synchronized (scheduleLock) {
+            scheduled = false;
+            park();
+        }
+    }
+
+    /**
+     * Wakes a parked, paused or idling engine, so it ticks at the full rate
+     * again. No caller has to wake the engine: it wakes itself on buffered
+     * inputs, bots and new cars, and while the game is paused it checks every
+     * ENGINE_PAUSE_POLL_INTERVAL milliseconds whether the game resumed.
+     * Callers that resume a paused game (through Game or Session, which the
+     * engine does not observe) can call this afterwards to resume without
+     * that delay.
+     */
+    public void wake() {
+        synchronized (scheduleLock) {
+            if (scheduled && (task == null || stride != 1 || pausePolling)) {
+                schedule(1, 0);
+            }
+        }
+    }
+
+    /**
+     * Returns whether the engine is parked, which means no ticks are scheduled
+     * until it is woken.
+     *
+     * @return Whether the engine is parked.
+     */
+    public boolean isParked() {
+        synchronized (scheduleLock) {
+            return task == null;
+        }
+    }
+
+    /**
+     * (Re)schedules the ticks of the engine on its worker. Must be called
+     * while holding the schedule lock.
+     *
+     * @param newStride    The amount of ticks per step.
+     * @param initialDelay The delay before the first step, in nanoseconds.
+     */
+    private void schedule(int newStride, long initialDelay) {
+        park();
+
+        stride = newStride;
+        task = worker.scheduleAtFixedRate(this::scheduledStep, initialDelay, PhysicsConstants.ENGINE_TICK_PERIOD_NS * newStride);
+    }
+
+    /**
+     * Cancels the scheduled ticks of the engine. Must be called while holding
+     * the schedule lock.
+     */
+    private void park() {
+        if (task != null) {
+            task.cancel(false);
+            task = null;
+        }
+        stride = 1;
+        pausePolling = false;
+    }
+
+    /**
+     * Replaces the ticks of the engine by a slow check whether the paused game
+     * resumed. Must be called while holding the schedule lock.
+     */
+    private void pollPause() {
+        park();
+
+        pausePolling = true;
+        long interval = TimeUnit.MILLISECONDS.toNanos(PhysicsConstants.ENGINE_PAUSE_POLL_INTERVAL);
+        task = worker.scheduleAtFixedRate(this::scheduledStep, interval, interval);
+    }
+
+    /**
+     * Steps the engine from its worker, and parks the engine or lowers its
+     * rate when there is nothing to simulate. While the game is paused, only
+     * checks whether it resumed.
+     */
+    private void scheduledStep() {
+        synchronized (scheduleLock) {
+            if (pausePolling) {
+                if (scheduled && game.getStatus() != GameStatus.PAUSED) {
+                    schedule(1, 0);
+                }
+                return;
+            }
+        }
+
+        step();
+
+        synchronized (scheduleLock) {
+            if (!scheduled || task == null) {
+                return;
+            }
+
+            if (game.getStatus() == GameStatus.PAUSED) {
+                pollPause();
+                return;
+            }
+
+            if (carList.isEmpty()) {
+                park(); // Woken by addCar
+                return;
+            }
+
+            if (stride == 1 && tick % PhysicsConstants.ENGINE_IDLE_CHECK_INTERVAL != 0) {
+                return;
+            }
+
+            int newStride = isIdle() ? PhysicsConstants.ENGINE_IDLE_STRIDE : 1;
+            if (newStride != stride) {
+                schedule(newStride, PhysicsConstants.ENGINE_TICK_PERIOD_NS * newStride);
+            }
+        }
+    }
+
+    /**
+     * Determines whether there is nothing to simulate: no bots, no pending or
+     * active inputs and every dynamic body asleep. A backend without sleeping
+     * never idles.
+     *
+     * @return Whether the engine is idle.
+     */
+    private boolean isIdle() {
+        // Idling skips ticks, which a deterministic run can't afford.
+        if (deterministic || bots.size() > 0) {
+            return false;
+        }
+
+        for (CarPhysics car : carList) {
+            if (car.hasInput()) {
+                return false;
+            }
+        }
+
+        if (countPendingInputs() > 0) {
+            return false;
+        }
 
-        timer.cancel();
-        timer.purge();
-        timer = null;
+        synchronized (lock) {
+            return !backend.hasAwakeBodies();
+        }
     }
 
     /**
@@ -100,45 +368,353 @@ public final class GameEngine {
         }
     }
 
+    /**
+     * Adds a tick listener.
+     *
+     * @param listener The tick listener.
+     */
+    public void addTickListener(TickListener listener) {
+        Objects.requireNonNull(listener);
+
+        synchronized (tickListeners) {
+            tickListeners.add(listener);
+        }
+    }
+
+    /**
+     * Removes a tick listener.
+     *
+     * @param listener The tick listener.
+     */
+    public void removeTickListener(TickListener listener) {
+        Objects.requireNonNull(listener);
+
+        synchronized (tickListeners) {
+            tickListeners.remove(listener);
+        }
+    }
+
+    /**
+     * Adds a collision listener.
+     *
+     * @param listener The collision listener.
+     */
+    public void addCollisionListener(CollisionListener listener) {
+        Objects.requireNonNull(listener);
+
+        synchronized (collisionListeners) {
+            collisionListeners.add(listener);
+        }
+    }
+
+    /**
+     * Removes a collision listener.
+     *
+     * @param listener The collision listener.
+     */
+    public void removeCollisionListener(CollisionListener listener) {
+        Objects.requireNonNull(listener);
+
+        synchronized (collisionListeners) {
+            collisionListeners.remove(listener);
+        }
+    }
+
+    /**
+     * Subscribes to the state of the engine. The state is encoded once per
+     * tick and shared by all subscribers; slow subscribers always get the
+     * latest state instead of a growing queue.
+     *
+     * @param subscriber The subscriber.
+     * @param rateHz     The amount of snapshots per second, at most the engine rate.
+     * @return The subscription, which can be used to read lag metrics and to unsubscribe.
+     */
+    public Subscription subscribe(SnapshotSubscriber subscriber, int rateHz) {
+        return snapshots.subscribe(subscriber, rateHz);
+    }
+
     /**
      * Steps the underlying world and applies all kinds of factors to update all
-     * physics models.
+     * physics models. This method is called by the engine itself once started,
+     * and should only be called directly when started with startHeadless().
      */
-    private void step() {
+    public void step() {
+        worker.run(this::doStep);
+    }
+
+    private void doStep() {
         if (game.getStatus() == GameStatus.PAUSED) {
             return;
         }
 
-        synchronized (lock) {
-            if (world != null) {
-                world.step(1.0F / PhysicsConstants.ENGINE_FPS, PhysicsConstants.VELOCITY_ITERATIONS, PhysicsConstants.POSITION_ITERATIONS);
-            }
+        // While idling, a single step stands in for several ticks.
+        tick += stride;
+        recorder.begin(tick);
+
+        if (game.getStatus() == GameStatus.RUNNING) {
+            applyInputs();
+            bots.tick(this, tick);
         }
+        recorder.mark(FlightRecorder.PHASE_INPUT);
 
-        if (System.currentTimeMillis() - lastSecondsDecreasedMs >= 1000) {
-            game.decreaseGameTime();
-            lastSecondsDecreasedMs = System.currentTimeMillis();
+        int bodyCount = 0;
+        int contactCount = 0;
+        synchronized (lock) {
+            tireForceBatching = tireForceBatchingRequested; // Only switch paths between ticks
+            backend.setTireForceBatching(tireForceBatching);
+            backend.step();
+            bodyCount = backend.getBodyCount();
+            contactCount = backend.getContactCount();
         }
+        recorder.mark(FlightRecorder.PHASE_WORLD);
+
+        publishCollisions();
+
+        timers.advance(tick);
+        long now = clock.currentTimeMillis(tick);
 
         if (game.getStatus() == GameStatus.RUNNING) {
             synchronized (objects) {
                 objects.forEach(WorldObject::step);
                 checkScored();
+
+                int syncInterval = modelSyncInterval;
+                ticksSinceModelSync += stride;
+                if (syncInterval > 0 && ticksSinceModelSync >= syncInterval) {
+                    objects.forEach(WorldObject::flushModel);
+                    ticksSinceModelSync = 0;
+                }
+            }
+            recorder.mark(FlightRecorder.PHASE_OBJECTS);
+
+            history.record(tick, now, ballPhysics);
+
+            if (deterministic) {
+                updateChecksum();
+            }
+            updateTelemetry();
+
+            synchronized (tickListeners) {
+                tickListeners.forEach(l -> l.onTick(this, tick));
+            }
+
+            snapshots.onTick(this, tick);
+            inputLatency.publish(tick, System.nanoTime());
+        }
+        recorder.mark(FlightRecorder.PHASE_LISTENERS);
+
+        if (recorder.isRecording()) {
+            synchronized (objects) {
+                recorder.end(bodyCount, contactCount, countPendingInputs(), objects);
+            }
+        }
+    }
+
+    /**
+     * Counts the inputs of all players that wait for their target tick.
+     *
+     * @return The amount of pending inputs.
+     */
+    private int countPendingInputs() {
+        int pending = 0;
+        synchronized (inputs) {
+            for (InputBuffer buffer : inputs.values()) {
+                pending += buffer.getPendingInputs();
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * Applies the buffered inputs of all players at the boundary of the
+     * current tick.
+     */
+    private void applyInputs() {
+        long now = System.nanoTime();
+        synchronized (inputs) {
+            inputs.forEach((car, buffer) -> {
+                long arrival = buffer.apply(tick, car.getCar());
+                if (arrival != InputBuffer.NOT_TRACED) {
+                    inputLatency.consume(arrival, tick, now);
+                }
+            });
+        }
+    }
+
+    /**
+     * Publishes the collisions of this tick to all collision listeners, as a
+     * single batch, and clears the batch.
+     */
+    private void publishCollisions() {
+        if (collisions.size() > 0) {
+            synchronized (collisionListeners) {
+                collisionListeners.forEach(l -> l.onCollisions(this, collisions));
             }
         }
+
+        collisions.clear();
+    }
+
+    /**
+     * Gets the batch the contact listener records the collisions of the
+     * current tick in.
+     *
+     * @return The collision batch.
+     */
+    CollisionBatch getCollisionBatch() {
+        return collisions;
+    }
+
+    /**
+     * Computes the checksum of the current tick and remembers it.
+     */
+    private void updateChecksum() {
+        synchronized (objects) {
+            lastChecksum = StateChecksum.of(tick, objects);
+        }
+
+        int index = (int) (tick % checksums.length);
+        checksums[index] = lastChecksum;
+        checksumTicks[index] = tick;
+    }
+
+    /**
+     * Enables or disables batched tire forces. When enabled, the lateral
+     * impulses and drive forces of all wheels are computed in one pass,
+     * instead of wheel by wheel, by backends that have both paths. Both paths
+     * give the same results; the change takes effect at the next tick.
+     *
+     * @param batching Whether tire forces are batched.
+     */
+    public void setTireForceBatching(boolean batching) {
+        tireForceBatchingRequested = batching;
+    }
+
+    /**
+     * Returns whether the tire forces of the current tick are batched.
+     *
+     * @return Whether tire forces are batched.
+     */
+    public boolean isTireForceBatching() {
+        return tireForceBatching;
+    }
+
+    /**
+     * Enables or disables deterministic mode. In deterministic mode the engine
+     * uses a virtual clock derived from the tick number, bots are not limited
+     * by the CPU budget of the worker, the engine never idles, and a checksum of the physics
+     * state is computed every running tick. Two deterministic engines that
+     * start from the same state and get the same inputs at the same ticks
+     * produce the same checksums. Should be set before the engine starts.
+     *
+     * @param deterministic Whether deterministic mode is enabled.
+     */
+    public void setDeterministic(boolean deterministic) {
+        this.deterministic = deterministic;
+
+        clock = deterministic ? EngineClock.VIRTUAL : EngineClock.SYSTEM;
+        bots.setBudgeted(!deterministic);
+    }
+
+    /**
+     * Returns whether deterministic mode is enabled.
+     *
+     * @return Whether deterministic mode is enabled.
+     */
+    public boolean isDeterministic() {
+        return deterministic;
+    }
+
+    /**
+     * Returns the checksum of the physics state of the last running tick.
+     * Only computed in deterministic mode.
+     *
+     * @return The checksum.
+     */
+    public long getLastChecksum() {
+        return lastChecksum;
+    }
+
+    /**
+     * Compares the checksum of a recent tick with the checksum another run
+     * computed for the same tick. The first tick that doesn't match is
+     * remembered as the desync tick.
+     *
+     * @param checkedTick The tick to check.
+     * @param expected    The checksum of the other run.
+     * @return Whether the checksums match, or true if the tick is no longer remembered.
+     */
+    public boolean verifyChecksum(long checkedTick, long expected) {
+        int index = (int) (checkedTick % checksums.length);
+        if (checksumTicks[index] != checkedTick) {
+            return true;
+        }
+
+        boolean match = checksums[index] == expected;
+        if (!match && desyncTick < 0) {
+            desyncTick = checkedTick;
+        }
+        return match;
+    }
+
+    /**
+     * Returns the first tick at which a checksum did not match.
+     *
+     * @return The desync tick, or -1 if every checked tick matched.
+     */
+    public long getDesyncTick() {
+        return desyncTick;
+    }
+
+    /**
+     * Updates the match telemetry, if enabled, and flushes it periodically.
+     */
+    private void updateTelemetry() {
+        MatchTelemetry current = telemetry;
+        if (current == null) {
+            return;
+        }
+
+        current.update(tick, ballPhysics);
+        if (tick % PhysicsConstants.TELEMETRY_FLUSH_INTERVAL == 0) {
+            current.flush();
+        }
+    }
+
+    /**
+     * Called by the contact listener when a car touches the ball.
+     *
+     * @param car The car that touched the ball.
+     */
+    void onBallTouched(Car car) {
+        MatchTelemetry current = telemetry;
+        if (current != null) {
+            current.onBallTouched(car);
+        }
     }
 
     /**
      * Verifies if a goal has been scored and updates the score accordingly.
      */
     private void checkScored() {
+        if (ballPhysics == null) {
+            return;
+        }
+
         Map map = game.getMap();
-        Rectangle leftGoal = map.getGoalBlue();
-        Rectangle rightGoal = map.getGoalRed();
+        if (goalBlue == null || goalRed == null) {
+            // Without explicit goals, use those of the map, which requires JavaFX.
+            goalBlue = FxAdapter.getGoalBlue(map);
+            goalRed = FxAdapter.getGoalRed(map);
+        }
+
+        GoalBounds leftGoal = goalBlue;
+        GoalBounds rightGoal = goalRed;
         Ball ball = map.getBall();
 
-        float ballX = ball.getX();
-        float ballRadius = ball.getRadius();
+        // The ball model may lag behind, see setModelSyncInterval.
+        float ballX = ballPhysics.getX();
+        float ballRadius = ballPhysics.getRadius();
 
         // Handle score event
         if (ballX > rightGoal.getX() + ballRadius) {
@@ -149,13 +725,29 @@ public final class GameEngine {
     }
 
     /**
-     * Adds a car to the world.
+     * Adds a car to the world. Cars may be added from any thread; the tick
+     * only reads a copy of the cars, which is replaced here.
      *
      * @param player The player the car belongs to.
      * @param car    The car that will be added.
      */
     public void addCar(Player player, CarPhysics car) {
-        cars.put(player, car);
+        synchronized (cars) {
+            cars.put(player, car);
+            carList = Collections.unmodifiableList(new ArrayList<>(cars.values()));
+        }
+        history.addCar(car);
+
+        synchronized (inputs) {
+            inputs.put(car, new InputBuffer(PhysicsConstants.INPUT_BUFFER_SIZE));
+        }
+
+        MatchTelemetry current = telemetry;
+        if (current != null) {
+            current.addCar(player, car);
+        }
+
+        wake();
 
         synchronized (objects) {
             objects.add(car);
@@ -168,13 +760,101 @@ public final class GameEngine {
      * @param player The car to be removed.
      */
     public void removeCar(Player player) {
-        CarPhysics car = cars.remove(player);
+        CarPhysics car;
+        synchronized (cars) {
+            car = cars.remove(player);
+            carList = Collections.unmodifiableList(new ArrayList<>(cars.values()));
+        }
+
+        if (car != null) {
+            bots.remove(car);
+            history.removeCar(car);
+
+            synchronized (inputs) {
+                inputs.remove(car);
+            }
+
+            MatchTelemetry current = telemetry;
+            if (current != null) {
+                current.removeCar(car);
+            }
+        }
 
         synchronized (objects) {
             objects.remove(car);
         }
     }
 
+    /**
+     * Submits an input of a player. The input is applied to the car of the
+     * player exactly at the boundary of its target tick.
+     *
+     * @param player          The player that sent the input.
+     * @param sequence        The sequence number of the input.
+     * @param targetTick      The tick at which the input should be applied.
+     * @param steerAction     The steer action.
+     * @param throttleAction  The throttle action.
+     * @param handbrakeAction The handbrake action.
+     * @return Whether the input will be applied at its target tick.
+     */
+    public boolean submitInput(Player player, int sequence, long targetTick, SteerAction steerAction, ThrottleAction throttleAction, HandbrakeAction handbrakeAction) {
+        InputBuffer buffer = getInputBuffer(player);
+        if (buffer == null) {
+            return false;
+        }
+
+        boolean accepted = buffer.submit(sequence, targetTick, steerAction, throttleAction, handbrakeAction);
+        wake();
+        return accepted;
+    }
+
+    /**
+     * Gets the input buffer of a player, which holds the statistics of the
+     * inputs of that player.
+     *
+     * @param player The player.
+     * @return The input buffer, or null if the player has no car.
+     */
+    public InputBuffer getInputBuffer(Player player) {
+        CarPhysics car = getCarFromPlayer(player);
+        if (car == null) {
+            return null;
+        }
+
+        synchronized (inputs) {
+            return inputs.get(car);
+        }
+    }
+
+    /**
+     * Lets a bot drive the car of a player. The bot makes its decisions inside
+     * the engine tick, at the decision rate of the bot scheduler.
+     *
+     * @param player     The player whose car the bot drives.
+     * @param controller The controller that makes the decisions.
+     */
+    public void addBot(Player player, BotController controller) {
+        CarPhysics car = getCarFromPlayer(player);
+        if (car == null) {
+            throw new IllegalArgumentException("Please use addCar(..) to add the car of the player first.");
+        }
+
+        bots.add(car, controller);
+        wake();
+    }
+
+    /**
+     * Stops the bot that drives the car of a player.
+     *
+     * @param player The player whose car the bot drives.
+     */
+    public void removeBot(Player player) {
+        CarPhysics car = getCarFromPlayer(player);
+        if (car != null) {
+            bots.remove(car);
+        }
+    }
+
     /**
      * Adds a world object to the world.
      *
@@ -194,6 +874,22 @@ public final class GameEngine {
         }
     }
 
+    /**
+     * Adds the obstacles of a map to the world as compiled static geometry:
+     * touching wall pieces are merged into one box, and all boxes become the
+     * fixtures of a single static body. The compiled geometry is shared by
+     * every engine with the same layout. Maps should add their obstacles this way, instead of one
+     * ObstaclePhysics per obstacle.
+     *
+     * @param obstacles The obstacles of the map.
+     * @return The world object of the geometry.
+     */
+    public StaticGeometryPhysics addObstacles(List<Obstacle> obstacles) {
+        StaticGeometryPhysics geometry = new StaticGeometryPhysics(this, obstacles);
+        addWorldObject(geometry);
+        return geometry;
+    }
+
     /**
      * Removes a world object from the world.
      *
@@ -217,16 +913,163 @@ public final class GameEngine {
      * Resets the position of all world objects.
      */
     public void resetWorldObjects() {
+        PhysicsBackend newBackend = worker.call(this::createBackend);
         synchronized (lock) {
-            // doSleep (second parameter) is true for better performance
-            world = null;
-            world = new World(PhysicsConstants.GRAVITY_ANGLE, true);
-            world.setContactListener(new BallContactListener());
+            backend = newBackend;
         }
 
         synchronized (objects) {
             objects.forEach(WorldObject::reset);
         }
+
+        // Everything is teleported back, so the past no longer matches the present.
+        history.clear();
+    }
+
+    /**
+     * Writes the complete state of the engine to a compact byte form: the
+     * tick, the phase of the game clock, the game status, the time that has
+     * passed in the game and the state of every world object, in the order
+     * they were added. The state can be restored into a fresh engine, in
+     * another process, that has been populated with the same world objects in
+     * the same order. The checkpoint is taken through the worker, between two
+     * ticks, and leaves the simulation of this engine untouched.
+     * <p>
+     * Contacts, and the impulses the backend warm starts them with, are not
+     * part of the checkpoint. Every engine the checkpoint is restored into
+     * rebuilds its world from it, so those engines continue with the same
+     * checksums. This engine keeps its contacts, so while bodies touch it can
+     * differ from them in the last bits.
+     *
+     * @return The checkpoint.
+     */
+    public byte[] checkpoint() {
+        return worker.call(this::takeCheckpoint);
+    }
+
+    private byte[] takeCheckpoint() {
+        synchronized (lock) {
+            synchronized (objects) {
+                int size = CHECKPOINT_INITIAL_SIZE;
+                while (true) {
+                    try {
+                        ByteBuffer out = ByteBuffer.allocate(size);
+                        writeCheckpoint(out);
+                        return Arrays.copyOf(out.array(), out.position());
+                    } catch (BufferOverflowException e) {
+                        size *= 2;
+                    }
+                }
+            }
+        }
+    }
+
+    private void writeCheckpoint(ByteBuffer out) {
+        out.putInt(CHECKPOINT_MAGIC);
+        out.putInt(CHECKPOINT_VERSION);
+        out.putLong(tick);
+        out.putLong(PhysicsConstants.ENGINE_FPS - (gameClock.getDeadline() - tick)); // Ticks since the game time last decreased
+        out.putInt(game.getStatus().ordinal());
+        out.putLong(gameTimeDecreases);
+
+        WorldState.write(objects, out);
+    }
+
+    /**
+     * Restores the state written by checkpoint() into this engine. The engine
+     * must hold the same world objects, in the same order, as the engine the
+     * checkpoint was taken from. The world is rebuilt in a new backend, so
+     * contacts of this engine don't carry over into the restored state.
+     * <p>
+     * A game that was running is started again and its game time decreased
+     * as often as in the checkpoint, and then given the status it had, so a
+     * paused game stays paused. Inputs that wait in the input buffers and
+     * bots are not part of the checkpoint.
+     *
+     * @param checkpoint The checkpoint.
+     */
+    public void restore(byte[] checkpoint) {
+        worker.run(() -> readCheckpoint(checkpoint));
+    }
+
+    private void readCheckpoint(byte[] checkpoint) {
+        ByteBuffer in = ByteBuffer.wrap(checkpoint);
+        if (in.getInt() != CHECKPOINT_MAGIC || in.getInt() != CHECKPOINT_VERSION) {
+            throw new IllegalArgumentException("Not a checkpoint of this engine version.");
+        }
+
+        long restoredTick = in.getLong();
+        long clockPhase = in.getLong();
+        GameStatus status = GameStatus.values()[in.getInt()];
+        long decreases = in.getLong();
+
+        synchronized (lock) {
+            synchronized (objects) {
+                rebuildWorld(in);
+
+                tick = restoredTick;
+                timers.rebase(tick);
+                gameClock.cancel();
+                gameClock = scheduleGameClock(PhysicsConstants.ENGINE_FPS - clockPhase);
+                history.clear();
+                inputLatency.clearPending();
+                Arrays.fill(checksumTicks, -1); // The checksums of another run
+            }
+        }
+
+        restoreGame(status, decreases);
+    }
+
+    /**
+     * Rebuilds the world in a new backend, with every world object reset and
+     * then given its state. Must be called while holding the lock and the
+     * lock of the world objects.
+     *
+     * @param in The buffer to read the state of the world objects from.
+     */
+    private void rebuildWorld(ByteBuffer in) {
+        backend = createBackend();
+        objects.forEach(GameEngine::resetNow);
+        WorldState.read(objects, in);
+    }
+
+    /**
+     * Brings the game to the given status and game time.
+     *
+     * @param status    The game status.
+     * @param decreases The amount of times the game time decreased since the game started.
+     */
+    private void restoreGame(GameStatus status, long decreases) {
+        game.stop();
+        gameTimeDecreases = 0;
+
+        if (status != GameStatus.STOPPED) {
+            game.start();
+            for (long i = 0; i < decreases; i++) {
+                decreaseGameTime();
+            }
+            game.setStatus(status);
+        }
+    }
+
+    /**
+     * Validates a ball touch a player claims to have made at the given client
+     * time, by rewinding the ball and the car of the player to that time. When
+     * the touch is valid, the player is credited as the last toucher of the
+     * ball.
+     *
+     * @param player       The player that claims the touch.
+     * @param clientTimeMs The time at which the client saw the touch, in server time milliseconds.
+     * @return Whether the touch is valid.
+     */
+    public boolean validateTouch(Player player, long clientTimeMs) {
+        CarPhysics car = getCarFromPlayer(player);
+        if (car == null || !history.isTouching(car, clientTimeMs, PhysicsConstants.HISTORY_TOUCH_MARGIN)) {
+            return false;
+        }
+
+        game.getMap().getBall().setLastTouched(player);
+        return true;
     }
 
     /**
@@ -236,7 +1079,20 @@ public final class GameEngine {
      * @return The car object that belongs to the player.
      */
     public CarPhysics getCarFromPlayer(Player player) {
-        return cars.get(player);
+        synchronized (cars) {
+            return cars.get(player);
+        }
+    }
+
+    /**
+     * Gets all car objects, in the order they were added. The collection is a
+     * copy that never changes; cars added or removed afterwards show up in
+     * the next call.
+     *
+     * @return An unmodifiable collection of all car objects.
+     */
+    public Collection<CarPhysics> getCars() {
+        return carList;
     }
 
     public List<WorldObject> getWorldObjects() {
@@ -257,14 +1113,237 @@ public final class GameEngine {
     /**
      * Gets the world object.
      *
-     * @return The world object.
+     * @return The world object, or null if the engine uses another backend than jbox2d.
+     * @deprecated The world is simulated by the backend of the engine; use
+     * {@link #getBackend()} instead.
      */
+    @Deprecated
     public World getWorld() {
         synchronized (lock) {
-            return world;
+            return backend instanceof Box2DBackend ? ((Box2DBackend) backend).getWorld() : null;
+        }
+    }
+
+    /**
+     * Gets the backend that simulates the world. The backend is replaced when
+     * the world objects are reset, or when another type of backend is chosen.
+     *
+     * @return The backend.
+     */
+    public PhysicsBackend getBackend() {
+        synchronized (lock) {
+            return backend;
+        }
+    }
+
+    /**
+     * Gets the type of backend that simulates the world.
+     *
+     * @return The type of backend.
+     */
+    public BackendType getBackendType() {
+        synchronized (lock) {
+            return backendType;
+        }
+    }
+
+    /**
+     * Chooses the type of backend that simulates the world. The world is
+     * rebuilt right away in a new backend of that type, with every world
+     * object back at its original position.
+     *
+     * @param type The type of backend.
+     */
+    public void setBackend(BackendType type) {
+        Objects.requireNonNull(type);
+
+        worker.run(() -> {
+            synchronized (lock) {
+                synchronized (objects) {
+                    backendType = type;
+                    backend = createBackend();
+                    objects.forEach(GameEngine::resetNow);
+                }
+            }
+        });
+
+        // Everything is teleported back, so the past no longer matches the present.
+        history.clear();
+    }
+
+    /**
+     * Resets a world object right away, in the current backend.
+     *
+     * @param object The world object.
+     */
+    private static void resetNow(WorldObject object) {
+        if (object instanceof AbstractWorldObject) {
+            ((AbstractWorldObject) object).resetNow();
+        } else {
+            object.reset();
+        }
+    }
+
+    /**
+     * Sets the bounds of the goals. Headless servers should set the goals
+     * before the engine starts: without them, the engine reads the goals of
+     * the map, which are JavaFX shapes and load the JavaFX runtime.
+     *
+     * @param blue The bounds of the blue goal.
+     * @param red  The bounds of the red goal.
+     */
+    public void setGoals(GoalBounds blue, GoalBounds red) {
+        goalBlue = Objects.requireNonNull(blue);
+        goalRed = Objects.requireNonNull(red);
+    }
+
+    /**
+     * Sets the amount of ticks between two flushes of the physics state into
+     * the library models (Car, Ball). Consumers that only read the models at
+     * UI or network rate can use a higher interval, or 0 to only flush on
+     * demand, using flushModels(). Physics code always reads the physics
+     * models, which are up to date every tick.
+     *
+     * @param ticks The amount of ticks between two flushes, or 0 to only flush on demand.
+     */
+    public void setModelSyncInterval(int ticks) {
+        if (ticks < 0) {
+            throw new IllegalArgumentException("The model sync interval can't be negative.");
+        }
+
+        modelSyncInterval = ticks;
+    }
+
+    /**
+     * Flushes the physics state of all world objects into the library models
+     * in one batch.
+     */
+    public void flushModels() {
+        synchronized (objects) {
+            objects.forEach(WorldObject::flushModel);
         }
     }
 
+    /**
+     * Enables match telemetry. The telemetry is updated inside every running
+     * tick, and flushed periodically and when the game stops. The previous
+     * telemetry, if any, is flushed first.
+     *
+     * @param telemetry The telemetry, or null to disable telemetry.
+     */
+    public void setTelemetry(MatchTelemetry telemetry) {
+        MatchTelemetry previous = this.telemetry;
+        if (previous != null) {
+            previous.flush();
+        }
+
+        if (telemetry != null) {
+            synchronized (cars) {
+                cars.forEach(telemetry::addCar);
+            }
+        }
+
+        this.telemetry = telemetry;
+    }
+
+    /**
+     * Gets the bot scheduler, which can be used to configure the decision rate
+     * of the bots. Its tick budget is shared by all engines on the same
+     * worker.
+     *
+     * @return The bot scheduler.
+     */
+    public BotScheduler getBotScheduler() {
+        return bots;
+    }
+
+    /**
+     * Gets the snapshot publisher of the engine.
+     *
+     * @return The snapshot publisher.
+     */
+    public SnapshotPublisher getSnapshotPublisher() {
+        return snapshots;
+    }
+
+    /**
+     * Gets the predicted path of the ball. The path is computed at most once
+     * per tick, by the first caller in that tick, and shared by all callers.
+     *
+     * @return The ball prediction.
+     */
+    public BallPrediction predictBall() {
+        synchronized (lock) {
+            prediction.update(tick, backend, ballPhysics);
+        }
+
+        return prediction;
+    }
+
+    /**
+     * Gets the flight recorder, which is enabled by default and can be
+     * disabled there, and which can be used to configure the slow tick
+     * threshold, the dump directory and the amount and size of dumps.
+     *
+     * @return The flight recorder.
+     */
+    public FlightRecorder getFlightRecorder() {
+        return recorder;
+    }
+
+    /**
+     * Gets the input latency of the engine: how long it takes from the
+     * arrival of a player input until the first state that reflects it has
+     * been published.
+     *
+     * @return The input latency.
+     */
+    public InputLatency getInputLatency() {
+        return inputLatency;
+    }
+
+    /**
+     * Gets the timing wheel of the engine, on which timed in-game events are
+     * scheduled by tick. The tasks run on the thread that steps the engine,
+     * right after the world step; the wheel does not advance while the game
+     * is paused.
+     *
+     * @return The timing wheel.
+     */
+    public TimingWheel getTimers() {
+        return timers;
+    }
+
+    /**
+     * Gets the transform history, which can be used to rewind queries to the
+     * time a client saw the world.
+     *
+     * @return The transform history.
+     */
+    public TransformHistory getHistory() {
+        return history;
+    }
+
+    /**
+     * Gets the number of the last tick that has been stepped.
+     *
+     * @return The current tick number.
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Gets the worker that steps this engine. Engines on the same worker may
+     * share Box2D pools, which the engines use one at a time through the
+     * worker.
+     *
+     * @return The worker.
+     */
+    public EngineWorker getWorker() {
+        return worker;
+    }
+
     /**
      * Gets the game object
      *
@@ -0,0 +1,68 @@
+package nl.soccar.physics;
+
+/**
+ * GoalBounds holds the position and size of a goal, in world coordinates, as
+ * plain floats. The engine detects goals against these bounds, so it doesn't
+ * depend on the JavaFX shapes of the map.
+ *
+ * @author PTS34A
+ */
+public final class GoalBounds {
+
+    private final float x;
+    private final float y;
+    private final float width;
+    private final float height;
+
+    /**
+     * Initiates a new GoalBounds object using the given parameters.
+     *
+     * @param x      The x-coordinate of the top left corner.
+     * @param y      The y-coordinate of the top left corner.
+     * @param width  The width of the goal.
+     * @param height The height of the goal.
+     */
+    public GoalBounds(float x, float y, float width, float height) {
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Returns the x-coordinate of the top left corner.
+     *
+     * @return The x-coordinate.
+     */
+    public float getX() {
+        return x;
+    }
+
+    /**
+     * Returns the y-coordinate of the top left corner.
+     *
+     * @return The y-coordinate.
+     */
+    public float getY() {
+        return y;
+    }
+
+    /**
+     * Returns the width of the goal.
+     *
+     * @return The width.
+     */
+    public float getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the height of the goal.
+     *
+     * @return The height.
+     */
+    public float getHeight() {
+        return height;
+    }
+
+}
@@ -1,5 +1,6 @@
 package nl.soccar.physics;
 
+import nl.soccar.physics.backend.BackendType;
 import org.jbox2d.common.Vec2;
 
 /**
@@ -16,6 +17,12 @@ public final class PhysicsConstants {
     public static final int UI_FPS = 60;
     public static final int ENGINE_FPS = 120;
     public static final int ENGINE_REFRESH_RATE = 1000 / ENGINE_FPS;
+    public static final long ENGINE_TICK_PERIOD_NS = 1_000_000_000L / ENGINE_FPS; // ENGINE_FPS ticks take a second of wall time
+    public static final int ENGINE_IDLE_STRIDE = 12; // Ticks per step while every body is asleep
+    public static final int ENGINE_IDLE_CHECK_INTERVAL = ENGINE_FPS / 4;
+    public static final int ENGINE_PAUSE_POLL_INTERVAL = 100; // Milliseconds between two checks whether a paused game resumed
+    public static final int ENGINE_MODEL_SYNC_INTERVAL = 1; // Ticks between two flushes into the library models
+    public static final BackendType ENGINE_BACKEND = BackendType.BOX2D; // The backend new engines simulate their world with
 
     /**
      * Car attributes
@@ -29,6 +36,7 @@ public final class PhysicsConstants {
     public static final int CAR_HANDBRAKE_SLIDE = 16;
     public static final float CAR_BOOST_FILL_SPEED = 0.25F;
     public static final float CAR_BOOST_DEPLETE_SPEED = 0.5F;
+    public static final float CAR_MAX_BOOST_AMOUNT = 100.0F;
     public static final int CAR_BOOST_TRAIL_SIZE = 100;
 
     /**
@@ -36,13 +44,79 @@ public final class PhysicsConstants {
      */
     public static final int WHEEL_MAX_STEER_ANGLE = 25;
     public static final int WHEEL_MAX_TURN_IN_MS = 1;
+    public static final float WHEEL_SPEED_TOLERANCE = 0.01F; // Box2D's linear sleep tolerance
+    public static final float WHEEL_IDLE_SPEED_TOLERANCE = 1.0F; // Idle cars roll out on damping below this speed
 
+    /**
+     * Bot attributes
+     */
+    public static final int BOT_DECISION_INTERVAL = ENGINE_FPS / 10; // Bots re-plan at 10 Hz
+    public static final long BOT_TICK_BUDGET_NS = 500_000L; // Budget of all bots on a worker together in one tick
+
+    /**
+     * Input attributes
+     */
+    public static final int INPUT_BUFFER_SIZE = 32; // Ticks an input may arrive ahead of its target tick
+
+    /**
+     * Lag compensation attributes
+     */
+    public static final int HISTORY_SIZE = ENGINE_FPS; // One second of ticks
+    public static final int HISTORY_CAR_SLOTS = 8; // Grows when a session has more cars
+    public static final float HISTORY_TOUCH_MARGIN = 0.1F;
+
+    /**
+     * Telemetry attributes
+     */
+    public static final int TELEMETRY_MAX_CARS = 8;
+    public static final int TELEMETRY_GRID_COLUMNS = 32;
+    public static final int TELEMETRY_GRID_ROWS = 20;
+    public static final int TELEMETRY_SPEED_BUCKETS = 16;
+    public static final float TELEMETRY_SPEED_BUCKET_SIZE = 5.0F;
+    public static final int TELEMETRY_FLUSH_INTERVAL = ENGINE_FPS * 30; // Flush every 30 seconds
+
+    /**
+     * Replay attributes
+     */
+    public static final int REPLAY_KEYFRAME_INTERVAL = ENGINE_FPS; // One keyframe per second
+
+    /**
+     * Collision event attributes
+     */
+    public static final float COLLISION_IMPULSE_THRESHOLD = 0.5F;
+    public static final int COLLISION_BATCH_SIZE = 64;
+
+    /**
+     * Prediction attributes
+     */
+    public static final int PREDICTION_HORIZON_TICKS = ENGINE_FPS * 2; // Two seconds ahead
+
+    /**
+     * Diagnostics attributes
+     */
+    public static final int FLIGHT_RECORDER_SIZE = ENGINE_FPS * 2; // Two seconds of ticks
+    public static final int FLIGHT_RECORDER_THRESHOLD = 50; // Milliseconds, a hitch of several ticks
+    public static final int FLIGHT_RECORDER_DUMP_INTERVAL = 1000; // Milliseconds between dumps
+    public static final int FLIGHT_RECORDER_MAX_DUMPS = 10; // The oldest dump is deleted after that
+    public static final int FLIGHT_RECORDER_MAX_DUMP_SIZE = 1024 * 1024; // Bytes
+    public static final int FLIGHT_RECORDER_GC_SAMPLE_INTERVAL = ENGINE_FPS / 10; // Ticks between garbage collector samples
+
+    /**
+     * Training attributes
+     */
+    public static final int TRAINING_MAX_EPISODE_TICKS = ENGINE_FPS * 60; // One minute per episode
 
     /**
      * World properties
      */
     public static final Vec2 GRAVITY_ANGLE = new Vec2(0.0F, 0.0F);
 
+    /**
+     * Box2D pool sizes, the same as the defaults of World
+     */
+    public static final int WORLD_POOL_SIZE = 100;
+    public static final int WORLD_POOL_CONTAINER_SIZE = 10;
+
     /**
      * World step properties
      */
@@ -0,0 +1,78 @@
+package nl.soccar.physics;
+
+import nl.soccar.physics.models.BallPhysics;
+import nl.soccar.physics.models.CarPhysics;
+import nl.soccar.physics.models.WheelPhysics;
+
+import java.util.List;
+
+/**
+ * StateChecksum computes a cheap 64-bit hash (FNV-1a over the raw float bits)
+ * of the physics state of all world objects: positions and angles of every
+ * object, and velocities of the ball and the cars. Two runs that diverge in
+ * any bit of that state get a different checksum in the tick they diverge.
+ *
+ * @author PTS34A
+ */
+public final class StateChecksum {
+
+    private static final long OFFSET_BASIS = 0xCBF29CE484222325L;
+    private static final long PRIME = 0x100000001B3L;
+
+    private StateChecksum() {
+    }
+
+    /**
+     * Computes the checksum of the given world objects, in their order.
+     *
+     * @param tick    The tick number, which is part of the checksum.
+     * @param objects The world objects.
+     * @return The checksum.
+     */
+    public static long of(long tick, List<WorldObject> objects) {
+        long hash = mix(OFFSET_BASIS, (int) tick);
+        hash = mix(hash, (int) (tick >>> 32));
+
+        for (WorldObject object : objects) {
+            hash = mixTransform(hash, object);
+
+            if (object instanceof CarPhysics) {
+                CarPhysics car = (CarPhysics) object;
+                hash = mix(hash, car.getLinearVelocityX());
+                hash = mix(hash, car.getLinearVelocityY());
+                hash = mix(hash, car.getAngularVelocity());
+
+                for (WheelPhysics wheel : car.getWheels()) {
+                    hash = mixTransform(hash, wheel);
+                }
+            } else if (object instanceof BallPhysics) {
+                BallPhysics ball = (BallPhysics) object;
+                hash = mix(hash, ball.getLinearVelocityX());
+                hash = mix(hash, ball.getLinearVelocityY());
+                hash = mix(hash, ball.getAngularVelocity());
+            }
+        }
+
+        return hash;
+    }
+
+    private static long mixTransform(long hash, WorldObject object) {
+        long result = mix(hash, object.getX());
+        result = mix(result, object.getY());
+        return mix(result, object.getDegree());
+    }
+
+    private static long mix(long hash, float value) {
+        return mix(hash, Float.floatToRawIntBits(value));
+    }
+
+    private static long mix(long hash, int value) {
+        long result = hash;
+        for (int shift = 0; shift < Integer.SIZE; shift += Byte.SIZE) {
+            result ^= (value >>> shift) & 0xFF;
+            result *= PRIME;
+        }
+        return result;
+    }
+
+}
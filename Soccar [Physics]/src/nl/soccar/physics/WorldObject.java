@@ -15,6 +15,14 @@ public interface WorldObject {
      */
     void step();
 
+    /**
+     * Writes the state of this physics-model into the library model it
+     * tracks. The engine calls this at the model sync interval, or when the
+     * models are flushed on demand.
+     */
+    default void flushModel() {
+    }
+
     /**
      * Sets the position and velocity values for a world object.
      *
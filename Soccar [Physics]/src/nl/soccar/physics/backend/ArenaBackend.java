@@ -0,0 +1,1293 @@
+package nl.soccar.physics.backend;
+
+import nl.soccar.physics.PhysicsConstants;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * The ArenaBackend is a solver for Soccar scenes only: there is no gravity,
+ * every body is a box or a circle, and the only moving bodies are cars and
+ * balls. A car and its wheels form a single rigid body; the tire forces of a
+ * wheel are applied at its position on the car, instead of through joints.
+ * All state is kept in flat primitive arrays, indexed by body, wheel and
+ * contact point.
+ * <p>
+ * Contacts are generated and solved the same way as in Box2D 2.1, with the
+ * same tolerances, so both backends behave alike: a sequential impulse solver
+ * with restitution and Coulomb friction, followed by a position correction.
+ * There are no islands, no sleeping, no warm starting and no continuous
+ * collision detection; the walls of an arena are much thicker than the
+ * distance a car travels in one tick. Without warm starting, the state of a
+ * body is all there is to restore.
+ *
+ * @author PTS34A
+ */
+public final class ArenaBackend implements PhysicsBackend {
+
+    private static final int INITIAL_CAPACITY = 32;
+
+    private static final byte BOX = 0;
+    private static final byte CIRCLE = 1;
+    private static final int VALUES_PER_BOX = 5; // x, y, angle, half width and half height of static geometry
+
+    private static final byte FACE_A = 0; // The reference face belongs to body A
+    private static final byte FACE_B = 1; // The reference face belongs to body B
+    private static final byte CIRCLES = 2;
+
+    // Box2D's tolerances
+    private static final float LINEAR_SLOP = 0.005F;
+    private static final float POLYGON_RADIUS = 2.0F * LINEAR_SLOP;
+    private static final float VELOCITY_THRESHOLD = 1.0F;
+    private static final float MAX_LINEAR_CORRECTION = 0.2F;
+    private static final float BAUMGARTE = 0.2F;
+    private static final float MAX_TRANSLATION = 2.0F;
+    private static final float MAX_ROTATION = 0.5F * (float) Math.PI;
+    private static final float EPSILON = 1.1920929E-7F;
+
+    private static final float DT = 1.0F / PhysicsConstants.ENGINE_FPS;
+
+    // Bodies
+    private int bodyCount = 0;
+    private byte[] shape = new byte[INITIAL_CAPACITY];
+    private float[] x = new float[INITIAL_CAPACITY];
+    private float[] y = new float[INITIAL_CAPACITY];
+    private float[] angle = new float[INITIAL_CAPACITY];
+    private float[] cos = new float[INITIAL_CAPACITY];
+    private float[] sin = new float[INITIAL_CAPACITY];
+    private float[] vx = new float[INITIAL_CAPACITY];
+    private float[] vy = new float[INITIAL_CAPACITY];
+    private float[] w = new float[INITIAL_CAPACITY];
+    private float[] forceX = new float[INITIAL_CAPACITY];
+    private float[] forceY = new float[INITIAL_CAPACITY];
+    private float[] torque = new float[INITIAL_CAPACITY];
+    private float[] mass = new float[INITIAL_CAPACITY];
+    private float[] inertia = new float[INITIAL_CAPACITY];
+    private float[] invMass = new float[INITIAL_CAPACITY];
+    private float[] invInertia = new float[INITIAL_CAPACITY];
+    private float[] halfWidth = new float[INITIAL_CAPACITY];
+    private float[] halfHeight = new float[INITIAL_CAPACITY];
+    private float[] radius = new float[INITIAL_CAPACITY];
+    private float[] friction = new float[INITIAL_CAPACITY];
+    private float[] restitution = new float[INITIAL_CAPACITY];
+    private float[] linearDamping = new float[INITIAL_CAPACITY];
+    private float[] angularDamping = new float[INITIAL_CAPACITY];
+    private float[] extentX = new float[INITIAL_CAPACITY]; // Half the size of the bounding box
+    private float[] extentY = new float[INITIAL_CAPACITY];
+    private int[] carOf = new int[INITIAL_CAPACITY];
+    private Object[] userData = new Object[INITIAL_CAPACITY];
+
+    // Cars
+    private int carCount = 0;
+    private float[] steerAngle = new float[INITIAL_CAPACITY];
+    private float[] desiredSpeed = new float[INITIAL_CAPACITY];
+    private int[] power = new int[INITIAL_CAPACITY];
+    private int[] slide = new int[INITIAL_CAPACITY];
+
+    // Wheels
+    private int wheelCount = 0;
+    private int[] wheelBody = new int[INITIAL_CAPACITY];
+    private float[] wheelX = new float[INITIAL_CAPACITY];
+    private float[] wheelY = new float[INITIAL_CAPACITY];
+    private float[] wheelMass = new float[INITIAL_CAPACITY];
+    private float[] wheelInertia = new float[INITIAL_CAPACITY];
+    private float[] wheelLinearDamping = new float[INITIAL_CAPACITY];
+    private float[] wheelAngularDamping = new float[INITIAL_CAPACITY];
+    private boolean[] wheelSteerable = new boolean[INITIAL_CAPACITY];
+    private boolean[] wheelPowered = new boolean[INITIAL_CAPACITY];
+
+    // Contact points, one manifold per point
+    private int pointCount = 0;
+    private int[] pointA = new int[INITIAL_CAPACITY];
+    private int[] pointB = new int[INITIAL_CAPACITY];
+    private byte[] pointType = new byte[INITIAL_CAPACITY];
+    private float[] localNormalX = new float[INITIAL_CAPACITY];
+    private float[] localNormalY = new float[INITIAL_CAPACITY];
+    private float[] localPlaneX = new float[INITIAL_CAPACITY];
+    private float[] localPlaneY = new float[INITIAL_CAPACITY];
+    private float[] localPointX = new float[INITIAL_CAPACITY];
+    private float[] localPointY = new float[INITIAL_CAPACITY];
+    private float[] normalX = new float[INITIAL_CAPACITY];
+    private float[] normalY = new float[INITIAL_CAPACITY];
+    private float[] rAx = new float[INITIAL_CAPACITY];
+    private float[] rAy = new float[INITIAL_CAPACITY];
+    private float[] rBx = new float[INITIAL_CAPACITY];
+    private float[] rBy = new float[INITIAL_CAPACITY];
+    private float[] normalMass = new float[INITIAL_CAPACITY];
+    private float[] tangentMass = new float[INITIAL_CAPACITY];
+    private float[] velocityBias = new float[INITIAL_CAPACITY];
+    private float[] normalImpulse = new float[INITIAL_CAPACITY];
+    private float[] tangentImpulse = new float[INITIAL_CAPACITY];
+    private float[] pointFriction = new float[INITIAL_CAPACITY];
+
+    // Touching pairs of bodies, keyed by their lower and higher id, in ascending order, of this and the last step
+    private int pairCount = 0;
+    private long[] pairs = new long[INITIAL_CAPACITY];
+    private int previousPairCount = 0;
+    private long[] previousPairs = new long[INITIAL_CAPACITY];
+    private ContactHandler handler;
+
+    // Collision scratch space: box vertices in world coordinates, and the clipped incident edge.
+    private final float[] verticesX = new float[8];
+    private final float[] verticesY = new float[8];
+    private final float[] clipX = new float[2];
+    private final float[] clipY = new float[2];
+    private final float[] manifold = new float[5]; // Normal, position and separation of a contact point
+    private int maxEdge;
+
+    @Override
+    public int addBall(float x, float y, float radius, Material material) {
+        int body = addBody(CIRCLE, x, y, 0, material);
+        this.radius[body] = radius;
+        extentX[body] = radius;
+        extentY[body] = radius;
+
+        mass[body] = material.getDensity() * (float) Math.PI * radius * radius;
+        inertia[body] = mass[body] * 0.5F * radius * radius;
+        updateInverseMass(body);
+        return body;
+    }
+
+    @Override
+    public int addCar(float x, float y, float angle, float halfWidth, float halfHeight, Material material) {
+        int body = addBox(x, y, angle, halfWidth, halfHeight, material);
+
+        if (carCount == steerAngle.length) {
+            int capacity = carCount * 2;
+            steerAngle = Arrays.copyOf(steerAngle, capacity);
+            desiredSpeed = Arrays.copyOf(desiredSpeed, capacity);
+            power = Arrays.copyOf(power, capacity);
+            slide = Arrays.copyOf(slide, capacity);
+        }
+
+        carOf[body] = carCount;
+        slide[carCount] = PhysicsConstants.CAR_NORMAL_SLIDE;
+        carCount++;
+
+        mass[body] = material.getDensity() * 4.0F * halfWidth * halfHeight;
+        inertia[body] = boxInertia(mass[body], halfWidth, halfHeight);
+        updateInverseMass(body);
+        return body;
+    }
+
+    @Override
+    public void addWheel(int car, float localX, float localY, float halfWidth, float halfHeight, Material material, boolean steerable, boolean powered) {
+        checkCar(car);
+
+        if (wheelCount == wheelBody.length) {
+            int capacity = wheelCount * 2;
+            wheelBody = Arrays.copyOf(wheelBody, capacity);
+            wheelX = Arrays.copyOf(wheelX, capacity);
+            wheelY = Arrays.copyOf(wheelY, capacity);
+            wheelMass = Arrays.copyOf(wheelMass, capacity);
+            wheelInertia = Arrays.copyOf(wheelInertia, capacity);
+            wheelLinearDamping = Arrays.copyOf(wheelLinearDamping, capacity);
+            wheelAngularDamping = Arrays.copyOf(wheelAngularDamping, capacity);
+            wheelSteerable = Arrays.copyOf(wheelSteerable, capacity);
+            wheelPowered = Arrays.copyOf(wheelPowered, capacity);
+        }
+
+        float m = material.getDensity() * 4.0F * halfWidth * halfHeight;
+        float i = boxInertia(m, halfWidth, halfHeight);
+
+        wheelBody[wheelCount] = car;
+        wheelX[wheelCount] = localX;
+        wheelY[wheelCount] = localY;
+        wheelMass[wheelCount] = m;
+        wheelInertia[wheelCount] = i;
+        wheelLinearDamping[wheelCount] = material.getLinearDamping();
+        wheelAngularDamping[wheelCount] = material.getAngularDamping();
+        wheelSteerable[wheelCount] = steerable;
+        wheelPowered[wheelCount] = powered;
+        wheelCount++;
+
+        // The wheel is welded to the car, so it adds to the mass and the inertia of the car.
+        mass[car] += m;
+        inertia[car] += i + m * (localX * localX + localY * localY);
+        updateInverseMass(car);
+    }
+
+    @Override
+    public int addStaticBox(float x, float y, float angle, float halfWidth, float halfHeight, Material material) {
+        return addBox(x, y, angle, halfWidth, halfHeight, material);
+    }
+
+    /**
+     * Adds every box of the geometry as a static box of its own, since this
+     * backend has no bodies of more than one shape. Static boxes are never
+     * stepped, and pairs of them are skipped before any collision test.
+     *
+     * @return The id of the first box.
+     */
+    @Override
+    public int addStaticGeometry(float[] boxes, Material material) {
+        int first = bodyCount;
+        for (int i = 0; i < boxes.length; i += VALUES_PER_BOX) {
+            addBox(boxes[i], boxes[i + 1], boxes[i + 2], boxes[i + 3], boxes[i + 4], material);
+        }
+        return first;
+    }
+
+    private int addBox(float x, float y, float angle, float halfWidth, float halfHeight, Material material) {
+        int body = addBody(BOX, x, y, angle, material);
+        this.halfWidth[body] = halfWidth;
+        this.halfHeight[body] = halfHeight;
+        updateExtent(body);
+        return body;
+    }
+
+    private int addBody(byte type, float x, float y, float angle, Material material) {
+        if (bodyCount == shape.length) {
+            growBodies();
+        }
+
+        int body = bodyCount++;
+        shape[body] = type;
+        this.x[body] = x;
+        this.y[body] = y;
+        this.angle[body] = angle;
+        cos[body] = (float) Math.cos(angle);
+        sin[body] = (float) Math.sin(angle);
+        friction[body] = material.getFriction();
+        restitution[body] = material.getRestitution();
+        linearDamping[body] = material.getLinearDamping();
+        angularDamping[body] = material.getAngularDamping();
+        carOf[body] = -1;
+        userData[body] = null;
+        return body;
+    }
+
+    private static float boxInertia(float mass, float halfWidth, float halfHeight) {
+        return mass * (4.0F * halfWidth * halfWidth + 4.0F * halfHeight * halfHeight) / 12.0F;
+    }
+
+    private void updateInverseMass(int body) {
+        invMass[body] = mass[body] > 0 ? 1.0F / mass[body] : 0;
+        invInertia[body] = inertia[body] > 0 ? 1.0F / inertia[body] : 0;
+    }
+
+    private void updateExtent(int body) {
+        if (shape[body] == BOX) {
+            float c = Math.abs(cos[body]);
+            float s = Math.abs(sin[body]);
+            extentX[body] = c * halfWidth[body] + s * halfHeight[body] + POLYGON_RADIUS;
+            extentY[body] = s * halfWidth[body] + c * halfHeight[body] + POLYGON_RADIUS;
+        }
+    }
+
+    private void checkCar(int car) {
+        if (car < 0 || car >= bodyCount || carOf[car] < 0) {
+            throw new IllegalArgumentException("Body " + car + " is not a car.");
+        }
+    }
+
+    @Override
+    public void setUserData(int body, Object data) {
+        checkBody(body);
+        userData[body] = data;
+    }
+
+    @Override
+    public Object getUserData(int body) {
+        checkBody(body);
+        return userData[body];
+    }
+
+    @Override
+    public boolean isStatic(int body) {
+        checkBody(body);
+        return invMass[body] == 0;
+    }
+
+    private void checkBody(int body) {
+        if (body < 0 || body >= bodyCount) {
+            throw new IndexOutOfBoundsException("There is no body " + body + ".");
+        }
+    }
+
+    @Override
+    public void setContactHandler(ContactHandler handler) {
+        this.handler = handler;
+    }
+
+    @Override
+    public void setCarControls(int car, float steerAngle, float desiredSpeed, int power, int slide) {
+        checkCar(car);
+
+        int index = carOf[car];
+        this.steerAngle[index] = steerAngle;
+        this.desiredSpeed[index] = desiredSpeed;
+        this.power[index] = power;
+        this.slide[index] = slide;
+    }
+
+    @Override
+    public void step() {
+        applyTireForces();
+        integrateVelocities();
+        collide();
+        initContacts();
+
+        for (int i = 0; i < PhysicsConstants.VELOCITY_ITERATIONS; i++) {
+            solveVelocities();
+        }
+
+        integratePositions();
+
+        for (int i = 0; i < PhysicsConstants.POSITION_ITERATIONS; i++) {
+            if (solvePositions()) {
+                break;
+            }
+        }
+
+        reportContacts();
+    }
+
+    /**
+     * Tells the contact handler about the touching pairs of this step. The
+     * points of a pair are consecutive, as they are generated together.
+     */
+    private void reportContacts() {
+        long[] swap = previousPairs;
+        previousPairs = pairs;
+        pairs = swap;
+        previousPairCount = pairCount;
+        pairCount = 0;
+
+        int i = 0;
+        while (i < pointCount) {
+            int a = pointA[i];
+            int b = pointB[i];
+            float impulse = 0;
+            int first = i;
+            while (i < pointCount && pointA[i] == a && pointB[i] == b) {
+                impulse += normalImpulse[i];
+                i++;
+            }
+
+            if (pairCount == pairs.length) {
+                pairs = Arrays.copyOf(pairs, pairCount * 2);
+            }
+
+            // The pairs are found in ascending order of their lower and then their higher id, so the keys are sorted.
+            long key = (long) Math.min(a, b) << 32 | Math.max(a, b);
+            pairs[pairCount++] = key;
+
+            if (handler == null) {
+                continue;
+            }
+
+            if (Arrays.binarySearch(previousPairs, 0, previousPairCount, key) < 0) {
+                handler.beginContact(a, b);
+            }
+
+            worldPoint(first, false, manifold);
+            handler.postSolve(a, b, impulse, manifold[2], manifold[3]);
+        }
+    }
+
+    /**
+     * Applies the lateral impulses, the drive forces and the damping of all
+     * wheels, at their position on the car. The arithmetic follows the scalar
+     * path of Box2DBackend, on the velocity of the car at the wheel.
+     */
+    private void applyTireForces() {
+        for (int i = 0; i < wheelCount; i++) {
+            int body = wheelBody[i];
+            int car = carOf[body];
+
+            // The offset of the wheel from the center of the car, in world coordinates.
+            float rx = cos[body] * wheelX[i] - sin[body] * wheelY[i];
+            float ry = sin[body] * wheelX[i] + cos[body] * wheelY[i];
+
+            float wheelAngle = wheelSteerable[i] ? angle[body] + steerAngle[car] : angle[body];
+            float c = (float) Math.cos(wheelAngle);
+            float s = (float) Math.sin(wheelAngle);
+
+            // Lateral impulse
+            float pointVx = vx[body] - w[body] * ry;
+            float pointVy = vy[body] + w[body] * rx;
+            float lateralSpeed = c * pointVx + s * pointVy;
+            if (Math.abs(lateralSpeed) >= PhysicsConstants.WHEEL_SPEED_TOLERANCE) {
+                float scale = -wheelMass[i] / slide[car];
+                applyImpulse(body, c * lateralSpeed * scale, s * lateralSpeed * scale, rx, ry);
+            }
+
+            // Drive force, on the velocity after the impulse
+            if (wheelPowered[i]) {
+                pointVx = vx[body] - w[body] * ry;
+                pointVy = vy[body] + w[body] * rx;
+                float forwardSpeed = -s * pointVx + c * pointVy;
+                float currentSpeed = -s * forwardSpeed * -s + c * forwardSpeed * c;
+
+                float force = power[car] * 10;
+                if (desiredSpeed[car] < currentSpeed) {
+                    force *= -1;
+                }
+
+                float tolerance = desiredSpeed[car] == 0 ? PhysicsConstants.WHEEL_IDLE_SPEED_TOLERANCE : PhysicsConstants.WHEEL_SPEED_TOLERANCE;
+                if (Math.abs(desiredSpeed[car] - currentSpeed) >= tolerance) {
+                    float fx = -s * force;
+                    float fy = c * force;
+                    forceX[body] += fx;
+                    forceY[body] += fy;
+                    torque[body] += rx * fy - ry * fx;
+                }
+            }
+        }
+    }
+
+    private void applyImpulse(int body, float impulseX, float impulseY, float rx, float ry) {
+        vx[body] += impulseX * invMass[body];
+        vy[body] += impulseY * invMass[body];
+        w[body] += invInertia[body] * (rx * impulseY - ry * impulseX);
+    }
+
+    private void integrateVelocities() {
+        for (int body = 0; body < bodyCount; body++) {
+            if (invMass[body] == 0) {
+                continue;
+            }
+
+            vx[body] += DT * invMass[body] * forceX[body];
+            vy[body] += DT * invMass[body] * forceY[body];
+            w[body] += DT * invInertia[body] * torque[body];
+            forceX[body] = 0;
+            forceY[body] = 0;
+            torque[body] = 0;
+
+            vx[body] *= clamp(1.0F - DT * linearDamping[body]);
+            vy[body] *= clamp(1.0F - DT * linearDamping[body]);
+            w[body] *= clamp(1.0F - DT * angularDamping[body]);
+        }
+
+        // The wheels are damped at their position on the car, on the velocity of the car before damping.
+        for (int i = 0; i < wheelCount; i++) {
+            int body = wheelBody[i];
+            float rx = cos[body] * wheelX[i] - sin[body] * wheelY[i];
+            float ry = sin[body] * wheelX[i] + cos[body] * wheelY[i];
+
+            float linear = wheelMass[i] * (1.0F - clamp(1.0F - DT * wheelLinearDamping[i]));
+            float pointVx = vx[body] - w[body] * ry;
+            float pointVy = vy[body] + w[body] * rx;
+            applyImpulse(body, -pointVx * linear, -pointVy * linear, rx, ry);
+
+            float angular = wheelInertia[i] * (1.0F - clamp(1.0F - DT * wheelAngularDamping[i]));
+            w[body] -= invInertia[body] * angular * w[body];
+        }
+    }
+
+    private static float clamp(float factor) {
+        return Math.min(Math.max(factor, 0.0F), 1.0F);
+    }
+
+    private void collide() {
+        pointCount = 0;
+        for (int a = 0; a < bodyCount; a++) {
+            for (int b = a + 1; b < bodyCount; b++) {
+                if (invMass[a] == 0 && invMass[b] == 0) {
+                    continue;
+                }
+
+                if (Math.abs(x[a] - x[b]) > extentX[a] + extentX[b] || Math.abs(y[a] - y[b]) > extentY[a] + extentY[b]) {
+                    continue;
+                }
+
+                if (shape[a] == BOX && shape[b] == BOX) {
+                    collideBoxes(a, b);
+                } else if (shape[a] == BOX) {
+                    collideBoxAndCircle(a, b);
+                } else if (shape[b] == BOX) {
+                    collideBoxAndCircle(b, a);
+                } else {
+                    collideCircles(a, b);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the vertices of a box, in world coordinates and counter-clockwise
+     * order, to the scratch space at the given offset.
+     */
+    private void vertices(int body, int offset) {
+        float c = cos[body];
+        float s = sin[body];
+        float hw = halfWidth[body];
+        float hh = halfHeight[body];
+
+        for (int i = 0; i < 4; i++) {
+            float lx = i == 0 || i == 3 ? -hw : hw;
+            float ly = i < 2 ? -hh : hh;
+            verticesX[offset + i] = x[body] + c * lx - s * ly;
+            verticesY[offset + i] = y[body] + s * lx + c * ly;
+        }
+    }
+
+    /**
+     * Finds the edge of box 1 along which box 2 is the most separated.
+     *
+     * @return The separation, the edge is stored in maxEdge.
+     */
+    private float findMaxSeparation(int offset1, int offset2) {
+        float maxSeparation = -Float.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            int j = offset1 + i;
+            int k = offset1 + (i + 1) % 4;
+            float ex = verticesX[k] - verticesX[j];
+            float ey = verticesY[k] - verticesY[j];
+            float length = (float) Math.sqrt(ex * ex + ey * ey);
+            float nx = ey / length;
+            float ny = -ex / length;
+
+            float separation = Float.MAX_VALUE;
+            for (int v = offset2; v < offset2 + 4; v++) {
+                separation = Math.min(separation, nx * (verticesX[v] - verticesX[j]) + ny * (verticesY[v] - verticesY[j]));
+            }
+
+            if (separation > maxSeparation) {
+                maxSeparation = separation;
+                maxEdge = i;
+            }
+        }
+
+        return maxSeparation;
+    }
+
+    private void collideBoxes(int a, int b) {
+        vertices(a, 0);
+        vertices(b, 4);
+
+        float totalRadius = 2.0F * POLYGON_RADIUS;
+        float separationA = findMaxSeparation(0, 4);
+        if (separationA > totalRadius) {
+            return;
+        }
+
+        int edgeA = maxEdge;
+        float separationB = findMaxSeparation(4, 0);
+        if (separationB > totalRadius) {
+            return;
+        }
+
+        int edgeB = maxEdge;
+
+        // Prefer the reference face of body A, like Box2D, to keep contacts stable.
+        int reference;
+        int incident;
+        int edge;
+        byte type;
+        if (separationB > 0.98F * separationA + 0.001F) {
+            reference = b;
+            incident = a;
+            edge = edgeB;
+            type = FACE_B;
+        } else {
+            reference = a;
+            incident = b;
+            edge = edgeA;
+            type = FACE_A;
+        }
+
+        int referenceOffset = reference == a ? 0 : 4;
+        int incidentOffset = reference == a ? 4 : 0;
+
+        float v1x = verticesX[referenceOffset + edge];
+        float v1y = verticesY[referenceOffset + edge];
+        float v2x = verticesX[referenceOffset + (edge + 1) % 4];
+        float v2y = verticesY[referenceOffset + (edge + 1) % 4];
+
+        float tx = v2x - v1x;
+        float ty = v2y - v1y;
+        float length = (float) Math.sqrt(tx * tx + ty * ty);
+        tx /= length;
+        ty /= length;
+        float nx = ty;
+        float ny = -tx;
+
+        // The incident edge is the edge of the other box that faces the reference edge the most.
+        int incidentEdge = 0;
+        float minDot = Float.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            int j = incidentOffset + i;
+            int k = incidentOffset + (i + 1) % 4;
+            float ex = verticesX[k] - verticesX[j];
+            float ey = verticesY[k] - verticesY[j];
+            float dot = (ey * nx - ex * ny) / (float) Math.sqrt(ex * ex + ey * ey);
+            if (dot < minDot) {
+                minDot = dot;
+                incidentEdge = i;
+            }
+        }
+
+        clipX[0] = verticesX[incidentOffset + incidentEdge];
+        clipY[0] = verticesY[incidentOffset + incidentEdge];
+        clipX[1] = verticesX[incidentOffset + (incidentEdge + 1) % 4];
+        clipY[1] = verticesY[incidentOffset + (incidentEdge + 1) % 4];
+
+        float frontOffset = nx * v1x + ny * v1y;
+        float sideOffset1 = -(tx * v1x + ty * v1y) + totalRadius;
+        float sideOffset2 = tx * v2x + ty * v2y + totalRadius;
+
+        if (!clip(-tx, -ty, sideOffset1) || !clip(tx, ty, sideOffset2)) {
+            return;
+        }
+
+        // The reference face in the frame of its body
+        float rc = cos[reference];
+        float rs = sin[reference];
+        float localNx = rc * nx + rs * ny;
+        float localNy = -rs * nx + rc * ny;
+        float midX = 0.5F * (v1x + v2x) - x[reference];
+        float midY = 0.5F * (v1y + v2y) - y[reference];
+        float planeX = rc * midX + rs * midY;
+        float planeY = -rs * midX + rc * midY;
+
+        for (int i = 0; i < 2; i++) {
+            float separation = nx * clipX[i] + ny * clipY[i] - frontOffset;
+            if (separation <= totalRadius) {
+                float px = clipX[i] - x[incident];
+                float py = clipY[i] - y[incident];
+                addPoint(a, b, type, localNx, localNy, planeX, planeY,
+                        cos[incident] * px + sin[incident] * py, -sin[incident] * px + cos[incident] * py);
+            }
+        }
+    }
+
+    /**
+     * Clips the incident edge against the half plane dot(normal, v) <= offset.
+     *
+     * @return Whether two points are left.
+     */
+    private boolean clip(float nx, float ny, float offset) {
+        float distance0 = nx * clipX[0] + ny * clipY[0] - offset;
+        float distance1 = nx * clipX[1] + ny * clipY[1] - offset;
+
+        if (distance0 > 0 && distance1 > 0) {
+            return false;
+        }
+
+        if (distance0 * distance1 < 0) {
+            float interpolation = distance0 / (distance0 - distance1);
+            float ix = clipX[0] + interpolation * (clipX[1] - clipX[0]);
+            float iy = clipY[0] + interpolation * (clipY[1] - clipY[0]);
+            if (distance0 > 0) {
+                clipX[0] = ix;
+                clipY[0] = iy;
+            } else {
+                clipX[1] = ix;
+                clipY[1] = iy;
+            }
+        }
+
+        return true;
+    }
+
+    private void collideBoxAndCircle(int box, int circle) {
+        // The center of the circle in the frame of the box
+        float dx = x[circle] - x[box];
+        float dy = y[circle] - y[box];
+        float cx = cos[box] * dx + sin[box] * dy;
+        float cy = -sin[box] * dx + cos[box] * dy;
+
+        float hw = halfWidth[box];
+        float hh = halfHeight[box];
+        float totalRadius = POLYGON_RADIUS + radius[circle];
+
+        // The face of the box the center is the furthest in front of; the normals are (0, -1), (1, 0), (0, 1) and (-1, 0).
+        float separation = -Float.MAX_VALUE;
+        int face = 0;
+        for (int i = 0; i < 4; i++) {
+            float s = i == 0 ? -cy - hh : i == 1 ? cx - hw : i == 2 ? cy - hh : -cx - hw;
+            if (s > totalRadius) {
+                return;
+            }
+
+            if (s > separation) {
+                separation = s;
+                face = i;
+            }
+        }
+
+        float v1x = face == 0 || face == 3 ? -hw : hw;
+        float v1y = face < 2 ? -hh : hh;
+        float v2x = face == 0 || face == 1 ? hw : -hw;
+        float v2y = face == 0 || face == 3 ? -hh : hh;
+        float faceNx = face == 1 ? 1 : face == 3 ? -1 : 0;
+        float faceNy = face == 0 ? -1 : face == 2 ? 1 : 0;
+
+        float nx;
+        float ny;
+        float planeX;
+        float planeY;
+        if (separation < EPSILON) {
+            // The center is inside the box.
+            nx = faceNx;
+            ny = faceNy;
+            planeX = 0.5F * (v1x + v2x);
+            planeY = 0.5F * (v1y + v2y);
+        } else {
+            float u1 = (cx - v1x) * (v2x - v1x) + (cy - v1y) * (v2y - v1y);
+            float u2 = (cx - v2x) * (v1x - v2x) + (cy - v2y) * (v1y - v2y);
+            if (u1 <= 0 || u2 <= 0) {
+                // The center is in the region of a corner.
+                float vx = u1 <= 0 ? v1x : v2x;
+                float vy = u1 <= 0 ? v1y : v2y;
+                float distanceSquared = (cx - vx) * (cx - vx) + (cy - vy) * (cy - vy);
+                if (distanceSquared > totalRadius * totalRadius) {
+                    return;
+                }
+
+                float distance = (float) Math.sqrt(distanceSquared);
+                nx = (cx - vx) / distance;
+                ny = (cy - vy) / distance;
+                planeX = vx;
+                planeY = vy;
+            } else {
+                nx = faceNx;
+                ny = faceNy;
+                planeX = 0.5F * (v1x + v2x);
+                planeY = 0.5F * (v1y + v2y);
+            }
+        }
+
+        addPoint(box, circle, FACE_A, nx, ny, planeX, planeY, 0, 0);
+    }
+
+    private void collideCircles(int a, int b) {
+        float dx = x[b] - x[a];
+        float dy = y[b] - y[a];
+        float totalRadius = radius[a] + radius[b];
+        if (dx * dx + dy * dy > totalRadius * totalRadius) {
+            return;
+        }
+
+        addPoint(a, b, CIRCLES, 0, 0, 0, 0, 0, 0);
+    }
+
+    private void addPoint(int a, int b, byte type, float nx, float ny, float planeX, float planeY, float px, float py) {
+        if (pointCount == pointA.length) {
+            growPoints();
+        }
+
+        int i = pointCount++;
+        pointA[i] = a;
+        pointB[i] = b;
+        pointType[i] = type;
+        localNormalX[i] = nx;
+        localNormalY[i] = ny;
+        localPlaneX[i] = planeX;
+        localPlaneY[i] = planeY;
+        localPointX[i] = px;
+        localPointY[i] = py;
+        pointFriction[i] = (float) Math.sqrt(friction[a] * friction[b]);
+    }
+
+    private float radiusOf(int body) {
+        return shape[body] == BOX ? POLYGON_RADIUS : radius[body];
+    }
+
+    /**
+     * Computes the world normal, pointing from body A to body B, and the world
+     * position of a contact point, for the current positions of the bodies.
+     *
+     * @param i        The contact point.
+     * @param solving  Whether the point is used by the position solver, which
+     *                 uses the clip point itself instead of the midpoint between
+     *                 the surfaces.
+     * @param result   The normal, the position and the separation.
+     */
+    private void worldPoint(int i, boolean solving, float[] result) {
+        int a = pointA[i];
+        int b = pointB[i];
+        float radiusA = radiusOf(a);
+        float radiusB = radiusOf(b);
+
+        float nx;
+        float ny;
+        float px;
+        float py;
+        float separation;
+        if (pointType[i] == CIRCLES) {
+            float dx = x[b] - x[a];
+            float dy = y[b] - y[a];
+            float distance = (float) Math.sqrt(dx * dx + dy * dy);
+            nx = distance > EPSILON ? dx / distance : 1;
+            ny = distance > EPSILON ? dy / distance : 0;
+            separation = dx * nx + dy * ny - radiusA - radiusB;
+            if (solving) {
+                px = 0.5F * (x[a] + x[b]);
+                py = 0.5F * (y[a] + y[b]);
+            } else {
+                px = 0.5F * (x[a] + radiusA * nx + x[b] - radiusB * nx);
+                py = 0.5F * (y[a] + radiusA * ny + y[b] - radiusB * ny);
+            }
+        } else {
+            int reference = pointType[i] == FACE_A ? a : b;
+            int incident = pointType[i] == FACE_A ? b : a;
+            float radiusReference = pointType[i] == FACE_A ? radiusA : radiusB;
+            float radiusIncident = pointType[i] == FACE_A ? radiusB : radiusA;
+
+            float rc = cos[reference];
+            float rs = sin[reference];
+            nx = rc * localNormalX[i] - rs * localNormalY[i];
+            ny = rs * localNormalX[i] + rc * localNormalY[i];
+            float planeX = x[reference] + rc * localPlaneX[i] - rs * localPlaneY[i];
+            float planeY = y[reference] + rs * localPlaneX[i] + rc * localPlaneY[i];
+            float pointX = x[incident] + cos[incident] * localPointX[i] - sin[incident] * localPointY[i];
+            float pointY = y[incident] + sin[incident] * localPointX[i] + cos[incident] * localPointY[i];
+
+            float distance = (pointX - planeX) * nx + (pointY - planeY) * ny;
+            separation = distance - radiusReference - radiusIncident;
+            if (solving) {
+                px = pointX;
+                py = pointY;
+            } else {
+                // Halfway between the surface of the reference body and the surface of the incident body.
+                px = pointX + 0.5F * ((radiusReference - distance) - radiusIncident) * nx;
+                py = pointY + 0.5F * ((radiusReference - distance) - radiusIncident) * ny;
+            }
+
+            if (pointType[i] == FACE_B) {
+                nx = -nx;
+                ny = -ny;
+            }
+        }
+
+        result[0] = nx;
+        result[1] = ny;
+        result[2] = px;
+        result[3] = py;
+        result[4] = separation;
+    }
+
+    private void initContacts() {
+        for (int i = 0; i < pointCount; i++) {
+            int a = pointA[i];
+            int b = pointB[i];
+            worldPoint(i, false, manifold);
+
+            float nx = manifold[0];
+            float ny = manifold[1];
+            normalX[i] = nx;
+            normalY[i] = ny;
+            rAx[i] = manifold[2] - x[a];
+            rAy[i] = manifold[3] - y[a];
+            rBx[i] = manifold[2] - x[b];
+            rBy[i] = manifold[3] - y[b];
+
+            float rnA = rAx[i] * ny - rAy[i] * nx;
+            float rnB = rBx[i] * ny - rBy[i] * nx;
+            float kNormal = invMass[a] + invMass[b] + invInertia[a] * rnA * rnA + invInertia[b] * rnB * rnB;
+            normalMass[i] = 1.0F / kNormal;
+
+            // The tangent is cross(normal, 1).
+            float tx = ny;
+            float ty = -nx;
+            float rtA = rAx[i] * ty - rAy[i] * tx;
+            float rtB = rBx[i] * ty - rBy[i] * tx;
+            float kTangent = invMass[a] + invMass[b] + invInertia[a] * rtA * rtA + invInertia[b] * rtB * rtB;
+            tangentMass[i] = 1.0F / kTangent;
+
+            float relativeVelocity = nx * relativeVelocityX(i) + ny * relativeVelocityY(i);
+            velocityBias[i] = relativeVelocity < -VELOCITY_THRESHOLD ? -Math.max(restitution[a], restitution[b]) * relativeVelocity : 0;
+
+            normalImpulse[i] = 0;
+            tangentImpulse[i] = 0;
+        }
+    }
+
+    private float relativeVelocityX(int i) {
+        return vx[pointB[i]] - w[pointB[i]] * rBy[i] - vx[pointA[i]] + w[pointA[i]] * rAy[i];
+    }
+
+    private float relativeVelocityY(int i) {
+        return vy[pointB[i]] + w[pointB[i]] * rBx[i] - vy[pointA[i]] - w[pointA[i]] * rAx[i];
+    }
+
+    private void solveVelocities() {
+        for (int i = 0; i < pointCount; i++) {
+            float nx = normalX[i];
+            float ny = normalY[i];
+            float tx = ny;
+            float ty = -nx;
+
+            // Friction, bounded by the normal impulse
+            float tangentSpeed = tx * relativeVelocityX(i) + ty * relativeVelocityY(i);
+            float maxFriction = pointFriction[i] * normalImpulse[i];
+            float newTangentImpulse = Math.max(-maxFriction, Math.min(tangentImpulse[i] - tangentMass[i] * tangentSpeed, maxFriction));
+            float lambda = newTangentImpulse - tangentImpulse[i];
+            tangentImpulse[i] = newTangentImpulse;
+            applyContactImpulse(i, lambda * tx, lambda * ty);
+
+            // Non-penetration, with restitution
+            float normalSpeed = nx * relativeVelocityX(i) + ny * relativeVelocityY(i);
+            float newNormalImpulse = Math.max(normalImpulse[i] - normalMass[i] * (normalSpeed - velocityBias[i]), 0);
+            lambda = newNormalImpulse - normalImpulse[i];
+            normalImpulse[i] = newNormalImpulse;
+            applyContactImpulse(i, lambda * nx, lambda * ny);
+        }
+    }
+
+    private void applyContactImpulse(int i, float px, float py) {
+        int a = pointA[i];
+        int b = pointB[i];
+        vx[a] -= invMass[a] * px;
+        vy[a] -= invMass[a] * py;
+        w[a] -= invInertia[a] * (rAx[i] * py - rAy[i] * px);
+        vx[b] += invMass[b] * px;
+        vy[b] += invMass[b] * py;
+        w[b] += invInertia[b] * (rBx[i] * py - rBy[i] * px);
+    }
+
+    private void integratePositions() {
+        for (int body = 0; body < bodyCount; body++) {
+            if (invMass[body] == 0) {
+                continue;
+            }
+
+            float translationX = DT * vx[body];
+            float translationY = DT * vy[body];
+            float translationSquared = translationX * translationX + translationY * translationY;
+            if (translationSquared > MAX_TRANSLATION * MAX_TRANSLATION) {
+                float ratio = MAX_TRANSLATION / (float) Math.sqrt(translationSquared);
+                vx[body] *= ratio;
+                vy[body] *= ratio;
+            }
+
+            float rotation = DT * w[body];
+            if (rotation * rotation > MAX_ROTATION * MAX_ROTATION) {
+                w[body] *= MAX_ROTATION / Math.abs(rotation);
+            }
+
+            x[body] += DT * vx[body];
+            y[body] += DT * vy[body];
+            rotate(body, angle[body] + DT * w[body]);
+        }
+    }
+
+    private void rotate(int body, float newAngle) {
+        angle[body] = newAngle;
+        cos[body] = (float) Math.cos(newAngle);
+        sin[body] = (float) Math.sin(newAngle);
+        updateExtent(body);
+    }
+
+    /**
+     * Pushes overlapping bodies apart, one contact point at a time.
+     *
+     * @return Whether all overlap is within the tolerance.
+     */
+    private boolean solvePositions() {
+        float minSeparation = 0;
+        for (int i = 0; i < pointCount; i++) {
+            int a = pointA[i];
+            int b = pointB[i];
+            worldPoint(i, true, manifold);
+
+            float nx = manifold[0];
+            float ny = manifold[1];
+            float rax = manifold[2] - x[a];
+            float ray = manifold[3] - y[a];
+            float rbx = manifold[2] - x[b];
+            float rby = manifold[3] - y[b];
+            float separation = manifold[4];
+            minSeparation = Math.min(minSeparation, separation);
+
+            float correction = Math.max(-MAX_LINEAR_CORRECTION, Math.min(BAUMGARTE * (separation + LINEAR_SLOP), 0));
+            float rnA = rax * ny - ray * nx;
+            float rnB = rbx * ny - rby * nx;
+            float k = invMass[a] + invMass[b] + invInertia[a] * rnA * rnA + invInertia[b] * rnB * rnB;
+            float impulse = k > 0 ? -correction / k : 0;
+            float px = impulse * nx;
+            float py = impulse * ny;
+
+            if (invMass[a] > 0) {
+                x[a] -= invMass[a] * px;
+                y[a] -= invMass[a] * py;
+                rotate(a, angle[a] - invInertia[a] * (rax * py - ray * px));
+            }
+
+            if (invMass[b] > 0) {
+                x[b] += invMass[b] * px;
+                y[b] += invMass[b] * py;
+                rotate(b, angle[b] + invInertia[b] * (rbx * py - rby * px));
+            }
+        }
+
+        return minSeparation >= -1.5F * LINEAR_SLOP;
+    }
+
+    private void growBodies() {
+        int capacity = shape.length * 2;
+        shape = Arrays.copyOf(shape, capacity);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        angle = Arrays.copyOf(angle, capacity);
+        cos = Arrays.copyOf(cos, capacity);
+        sin = Arrays.copyOf(sin, capacity);
+        vx = Arrays.copyOf(vx, capacity);
+        vy = Arrays.copyOf(vy, capacity);
+        w = Arrays.copyOf(w, capacity);
+        forceX = Arrays.copyOf(forceX, capacity);
+        forceY = Arrays.copyOf(forceY, capacity);
+        torque = Arrays.copyOf(torque, capacity);
+        mass = Arrays.copyOf(mass, capacity);
+        inertia = Arrays.copyOf(inertia, capacity);
+        invMass = Arrays.copyOf(invMass, capacity);
+        invInertia = Arrays.copyOf(invInertia, capacity);
+        halfWidth = Arrays.copyOf(halfWidth, capacity);
+        halfHeight = Arrays.copyOf(halfHeight, capacity);
+        radius = Arrays.copyOf(radius, capacity);
+        friction = Arrays.copyOf(friction, capacity);
+        restitution = Arrays.copyOf(restitution, capacity);
+        linearDamping = Arrays.copyOf(linearDamping, capacity);
+        angularDamping = Arrays.copyOf(angularDamping, capacity);
+        extentX = Arrays.copyOf(extentX, capacity);
+        extentY = Arrays.copyOf(extentY, capacity);
+        carOf = Arrays.copyOf(carOf, capacity);
+        userData = Arrays.copyOf(userData, capacity);
+    }
+
+    private void growPoints() {
+        int capacity = pointA.length * 2;
+        pointA = Arrays.copyOf(pointA, capacity);
+        pointB = Arrays.copyOf(pointB, capacity);
+        pointType = Arrays.copyOf(pointType, capacity);
+        localNormalX = Arrays.copyOf(localNormalX, capacity);
+        localNormalY = Arrays.copyOf(localNormalY, capacity);
+        localPlaneX = Arrays.copyOf(localPlaneX, capacity);
+        localPlaneY = Arrays.copyOf(localPlaneY, capacity);
+        localPointX = Arrays.copyOf(localPointX, capacity);
+        localPointY = Arrays.copyOf(localPointY, capacity);
+        normalX = Arrays.copyOf(normalX, capacity);
+        normalY = Arrays.copyOf(normalY, capacity);
+        rAx = Arrays.copyOf(rAx, capacity);
+        rAy = Arrays.copyOf(rAy, capacity);
+        rBx = Arrays.copyOf(rBx, capacity);
+        rBy = Arrays.copyOf(rBy, capacity);
+        normalMass = Arrays.copyOf(normalMass, capacity);
+        tangentMass = Arrays.copyOf(tangentMass, capacity);
+        velocityBias = Arrays.copyOf(velocityBias, capacity);
+        normalImpulse = Arrays.copyOf(normalImpulse, capacity);
+        tangentImpulse = Arrays.copyOf(tangentImpulse, capacity);
+        pointFriction = Arrays.copyOf(pointFriction, capacity);
+    }
+
+    @Override
+    public void setTransform(int body, float x, float y, float angle) {
+        checkBody(body);
+        this.x[body] = x;
+        this.y[body] = y;
+        rotate(body, angle);
+    }
+
+    @Override
+    public void setVelocity(int body, float linearVelocityX, float linearVelocityY, float angularVelocity) {
+        checkBody(body);
+        vx[body] = linearVelocityX;
+        vy[body] = linearVelocityY;
+        w[body] = angularVelocity;
+    }
+
+    @Override
+    public boolean isAwake(int body) {
+        return !isStatic(body);
+    }
+
+    @Override
+    public void wake(int body) {
+        // There is no sleeping
+    }
+
+    @Override
+    public boolean hasAwakeBodies() {
+        for (int body = 0; body < bodyCount; body++) {
+            if (invMass[body] > 0) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Casts a ray against the static boxes, clipping it against the four
+     * edges of every box the same way Box2D casts against a polygon: a ray
+     * that starts inside a box does not hit it.
+     */
+    @Override
+    public boolean rayCastStatic(float fromX, float fromY, float toX, float toY, float[] hit) {
+        float closest = 1;
+        boolean found = false;
+
+        for (int body = 0; body < bodyCount; body++) {
+            if (invMass[body] != 0 || shape[body] != BOX) {
+                continue;
+            }
+
+            // The ray in the coordinates of the box
+            float c = cos[body];
+            float s = sin[body];
+            float px = c * (fromX - x[body]) + s * (fromY - y[body]);
+            float py = -s * (fromX - x[body]) + c * (fromY - y[body]);
+            float dx = c * (toX - fromX) + s * (toY - fromY);
+            float dy = -s * (toX - fromX) + c * (toY - fromY);
+
+            float lower = 0;
+            float upper = closest;
+            int index = -1;
+            boolean miss = false;
+            for (int edge = 0; edge < 4 && !miss; edge++) {
+                float nx = edge == 0 ? 1 : edge == 1 ? -1 : 0;
+                float ny = edge == 2 ? 1 : edge == 3 ? -1 : 0;
+                float offset = edge < 2 ? halfWidth[body] : halfHeight[body];
+
+                float numerator = offset - (nx * px + ny * py);
+                float denominator = nx * dx + ny * dy;
+                if (denominator == 0) {
+                    miss = numerator < 0;
+                } else if (denominator < 0 && numerator < lower * denominator) {
+                    lower = numerator / denominator;
+                    index = edge;
+                } else if (denominator > 0 && numerator < upper * denominator) {
+                    upper = numerator / denominator;
+                }
+
+                miss = miss || upper < lower;
+            }
+
+            if (miss || index < 0) {
+                continue;
+            }
+
+            float nx = index == 0 ? 1 : index == 1 ? -1 : 0;
+            float ny = index == 2 ? 1 : index == 3 ? -1 : 0;
+            closest = lower;
+            found = true;
+            hit[2] = c * nx - s * ny;
+            hit[3] = s * nx + c * ny;
+        }
+
+        if (found) {
+            hit[0] = fromX + closest * (toX - fromX);
+            hit[1] = fromY + closest * (toY - fromY);
+        }
+        return found;
+    }
+
+    @Override
+    public void writeState(int body, ByteBuffer out) {
+        checkBody(body);
+        out.putFloat(x[body]);
+        out.putFloat(y[body]);
+        out.putFloat(angle[body]);
+        out.putFloat(vx[body]);
+        out.putFloat(vy[body]);
+        out.putFloat(w[body]);
+
+        int car = carOf[body];
+        if (car >= 0) {
+            out.putFloat(steerAngle[car]);
+            out.putFloat(desiredSpeed[car]);
+            out.putInt(power[car]);
+            out.putInt(slide[car]);
+        }
+    }
+
+    @Override
+    public void readState(int body, ByteBuffer in) {
+        checkBody(body);
+        x[body] = in.getFloat();
+        y[body] = in.getFloat();
+        rotate(body, in.getFloat());
+        vx[body] = in.getFloat();
+        vy[body] = in.getFloat();
+        w[body] = in.getFloat();
+
+        int car = carOf[body];
+        if (car >= 0) {
+            steerAngle[car] = in.getFloat();
+            desiredSpeed[car] = in.getFloat();
+            power[car] = in.getInt();
+            slide[car] = in.getInt();
+        }
+    }
+
+    @Override
+    public float getX(int body) {
+        return x[body];
+    }
+
+    @Override
+    public float getY(int body) {
+        return y[body];
+    }
+
+    @Override
+    public float getAngle(int body) {
+        return angle[body];
+    }
+
+    @Override
+    public float getLinearVelocityX(int body) {
+        return vx[body];
+    }
+
+    @Override
+    public float getLinearVelocityY(int body) {
+        return vy[body];
+    }
+
+    @Override
+    public float getAngularVelocity(int body) {
+        return w[body];
+    }
+
+    @Override
+    public float getWheelX(int car, int wheel) {
+        int i = findWheel(car, wheel);
+        return x[car] + cos[car] * wheelX[i] - sin[car] * wheelY[i];
+    }
+
+    @Override
+    public float getWheelY(int car, int wheel) {
+        int i = findWheel(car, wheel);
+        return y[car] + sin[car] * wheelX[i] + cos[car] * wheelY[i];
+    }
+
+    @Override
+    public float getWheelAngle(int car, int wheel) {
+        int i = findWheel(car, wheel);
+        return wheelSteerable[i] ? angle[car] + steerAngle[carOf[car]] : angle[car];
+    }
+
+    private int findWheel(int car, int wheel) {
+        checkCar(car);
+
+        int number = 0;
+        for (int i = 0; i < wheelCount; i++) {
+            if (wheelBody[i] == car && number++ == wheel) {
+                return i;
+            }
+        }
+
+        throw new IndexOutOfBoundsException("Car " + car + " has no wheel " + wheel + ".");
+    }
+
+    @Override
+    public int getBodyCount() {
+        return bodyCount;
+    }
+
+    /**
+     * Returns the amount of touching pairs of bodies of the last step.
+     *
+     * @return The amount of touching pairs.
+     */
+    @Override
+    public int getContactCount() {
+        return pairCount;
+    }
+
+}
@@ -0,0 +1,49 @@
+package nl.soccar.physics.backend;
+
+import org.jbox2d.pooling.IWorldPool;
+
+import java.util.Objects;
+
+/**
+ * The BackendLoader creates the physics backend a game engine simulates its
+ * world with. The engine's physics models then add their bodies to it.
+ *
+ * @author PTS34A
+ */
+public final class BackendLoader {
+
+    private BackendLoader() {
+    }
+
+    /**
+     * Creates an empty backend of the given type.
+     *
+     * @param type The type of backend.
+     * @return The new backend.
+     */
+    public static PhysicsBackend create(BackendType type) {
+        return create(type, null);
+    }
+
+    /**
+     * Creates an empty backend of the given type. A jbox2d backend uses the
+     * given pools, which may be shared by several backends as long as only
+     * one thread at a time creates, changes or steps any of them, see
+     * EngineWorker.
+     *
+     * @param type The type of backend.
+     * @param pool The jbox2d pools, or null to give the backend its own.
+     * @return The new backend.
+     */
+    public static PhysicsBackend create(BackendType type, IWorldPool pool) {
+        switch (Objects.requireNonNull(type)) {
+            case BOX2D:
+                return new Box2DBackend(pool);
+            case ARENA:
+                return new ArenaBackend();
+            default:
+                throw new UnsupportedOperationException("Unknown backend: " + type);
+        }
+    }
+
+}
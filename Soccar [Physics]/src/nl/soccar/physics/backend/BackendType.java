@@ -0,0 +1,21 @@
+package nl.soccar.physics.backend;
+
+/**
+ * The physics backends a GameEngine can simulate its world with.
+ *
+ * @author PTS34A
+ */
+public enum BackendType {
+
+    /**
+     * The jbox2d backend, with sleeping, joints between cars and wheels and
+     * continuous collision detection for cars.
+     */
+    BOX2D,
+
+    /**
+     * The arena backend, a flat-array solver for Soccar scenes only.
+     */
+    ARENA
+
+}
@@ -0,0 +1,641 @@
+package nl.soccar.physics.backend;
+
+import nl.soccar.physics.PhysicsConstants;
+import nl.soccar.physics.checkpoint.BodyState;
+import org.jbox2d.callbacks.ContactImpulse;
+import org.jbox2d.callbacks.ContactListener;
+import org.jbox2d.callbacks.RayCastCallback;
+import org.jbox2d.collision.Manifold;
+import org.jbox2d.collision.WorldManifold;
+import org.jbox2d.collision.shapes.CircleShape;
+import org.jbox2d.collision.shapes.PolygonShape;
+import org.jbox2d.collision.shapes.Shape;
+import org.jbox2d.common.Mat22;
+import org.jbox2d.common.Vec2;
+import org.jbox2d.common.Vec3;
+import org.jbox2d.dynamics.Body;
+import org.jbox2d.dynamics.BodyDef;
+import org.jbox2d.dynamics.BodyType;
+import org.jbox2d.dynamics.Fixture;
+import org.jbox2d.dynamics.FixtureDef;
+import org.jbox2d.dynamics.World;
+import org.jbox2d.dynamics.contacts.Contact;
+import org.jbox2d.dynamics.joints.Joint;
+import org.jbox2d.dynamics.joints.PrismaticJoint;
+import org.jbox2d.dynamics.joints.PrismaticJointDef;
+import org.jbox2d.dynamics.joints.RevoluteJoint;
+import org.jbox2d.dynamics.joints.RevoluteJointDef;
+import org.jbox2d.pooling.IWorldPool;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The Box2DBackend simulates a scene with jbox2d: every wheel is a sensor
+ * body, joined to its car by a revolute joint when it steers and by a locked
+ * prismatic joint otherwise, and the tire forces are applied to the wheel
+ * bodies. Cars are bullets, so they don't tunnel through walls, and bodies
+ * that come to rest fall asleep.
+ *
+ * @author PTS34A
+ */
+public final class Box2DBackend implements PhysicsBackend {
+
+    private static final int VALUES_PER_BOX = 5; // x, y, angle, half width and half height of static geometry
+
+    private final World world;
+    private final List<Body> bodies = new ArrayList<>();
+    private final List<Object> userData = new ArrayList<>();
+    private final List<Vehicle> vehicles = new ArrayList<>(); // Per body, null if the body is not a car
+    private final List<Vehicle> cars = new ArrayList<>();
+    private final TireForceBatch tireForces = new TireForceBatch();
+    private final WallCast cast = new WallCast();
+    private final Vec2 scratch = new Vec2();
+    private final Vec2 from = new Vec2();
+    private final Vec2 to = new Vec2();
+    private ContactHandler handler;
+    private boolean batching = false;
+
+    /**
+     * Initiates a new Box2DBackend with its own jbox2d pools.
+     */
+    public Box2DBackend() {
+        this(null);
+    }
+
+    /**
+     * Initiates a new Box2DBackend using the given jbox2d pools.
+     *
+     * @param pool The pools, or null to give the world its own.
+     */
+    public Box2DBackend(IWorldPool pool) {
+        // doSleep (second parameter) is true for better performance
+        world = pool != null
+                ? new World(PhysicsConstants.GRAVITY_ANGLE, true, pool)
+                : new World(PhysicsConstants.GRAVITY_ANGLE, true);
+        world.setContactListener(new Contacts());
+
+        // The world scales the warm starting impulses by the ratio to its previous time step, which is 0 before the
+        // first step. Stepping the empty world once makes a restored state continue exactly like the saved one, and
+        // changes nothing for a new scene: every impulse starts at 0.
+        step(world);
+    }
+
+    @Override
+    public int addBall(float x, float y, float radius, Material material) {
+        CircleShape shape = new CircleShape();
+        shape.m_radius = radius;
+
+        return add(createBody(BodyType.DYNAMIC, x, y, 0, material, shape), null);
+    }
+
+    @Override
+    public int addCar(float x, float y, float angle, float halfWidth, float halfHeight, Material material) {
+        PolygonShape shape = new PolygonShape();
+        shape.setAsBox(halfWidth, halfHeight);
+
+        Body body = createBody(BodyType.DYNAMIC, x, y, angle, material, shape);
+        body.setBullet(true); // Prevents tunneling
+
+        Vehicle vehicle = new Vehicle(body);
+        cars.add(vehicle);
+        return add(body, vehicle);
+    }
+
+    @Override
+    public void addWheel(int car, float localX, float localY, float halfWidth, float halfHeight, Material material, boolean steerable, boolean powered) {
+        Vehicle vehicle = getVehicle(car);
+        Vec2 position = vehicle.body.getWorldPoint(new Vec2(localX, localY));
+
+        PolygonShape shape = new PolygonShape();
+        shape.setAsBox(halfWidth, halfHeight);
+
+        Body body = createBody(BodyType.DYNAMIC, position.x, position.y, vehicle.body.getAngle(), material, shape);
+        body.getFixtureList().setSensor(true); // Do not include wheels in the collision system, for performance
+
+        Joint joint;
+        if (steerable) {
+            RevoluteJointDef jd = new RevoluteJointDef();
+            jd.initialize(vehicle.body, body, body.getWorldCenter());
+            jd.enableMotor = true;
+            joint = world.createJoint(jd);
+        } else {
+            PrismaticJointDef jd = new PrismaticJointDef();
+            jd.initialize(vehicle.body, body, body.getWorldCenter(), new Vec2(1, 0));
+            jd.enableLimit = true;
+            jd.lowerTranslation = 0;
+            jd.upperTranslation = 0;
+            joint = world.createJoint(jd);
+        }
+
+        vehicle.wheels.add(new Wheel(body, joint, localX, localY, steerable, powered));
+    }
+
+    @Override
+    public int addStaticBox(float x, float y, float angle, float halfWidth, float halfHeight, Material material) {
+        PolygonShape shape = new PolygonShape();
+        shape.setAsBox(halfWidth, halfHeight);
+
+        return add(createBody(BodyType.STATIC, x, y, angle, material, shape), null);
+    }
+
+    @Override
+    public int addStaticGeometry(float[] boxes, Material material) {
+        BodyDef bd = new BodyDef();
+        bd.type = BodyType.STATIC;
+        Body body = world.createBody(bd);
+
+        FixtureDef fd = new FixtureDef();
+        fd.friction = material.getFriction();
+        fd.restitution = material.getRestitution();
+
+        Vec2 center = new Vec2();
+        for (int i = 0; i < boxes.length; i += VALUES_PER_BOX) {
+            PolygonShape shape = new PolygonShape();
+            center.set(boxes[i], boxes[i + 1]);
+            shape.setAsBox(boxes[i + 3], boxes[i + 4], center, boxes[i + 2]);
+
+            fd.shape = shape;
+            body.createFixture(fd);
+        }
+
+        return add(body, null);
+    }
+
+    private Body createBody(BodyType type, float x, float y, float angle, Material material, Shape shape) {
+        BodyDef bd = new BodyDef();
+        bd.type = type;
+        bd.position.set(x, y);
+        bd.angle = angle;
+        bd.linearDamping = material.getLinearDamping();
+        bd.angularDamping = material.getAngularDamping();
+
+        FixtureDef fd = new FixtureDef();
+        fd.density = material.getDensity();
+        fd.friction = material.getFriction();
+        fd.restitution = material.getRestitution();
+        fd.shape = shape;
+
+        Body body = world.createBody(bd);
+        body.createFixture(fd);
+        return body;
+    }
+
+    private int add(Body body, Vehicle vehicle) {
+        int id = bodies.size();
+        body.setUserData(id); // Wheels have no id, so contacts with them are not reported
+
+        bodies.add(body);
+        userData.add(null);
+        vehicles.add(vehicle);
+        return id;
+    }
+
+    private Vehicle getVehicle(int car) {
+        Vehicle vehicle = car >= 0 && car < vehicles.size() ? vehicles.get(car) : null;
+        if (vehicle == null) {
+            throw new IllegalArgumentException("Body " + car + " is not a car.");
+        }
+
+        return vehicle;
+    }
+
+    @Override
+    public void setUserData(int body, Object data) {
+        userData.set(body, data);
+    }
+
+    @Override
+    public Object getUserData(int body) {
+        return userData.get(body);
+    }
+
+    @Override
+    public boolean isStatic(int body) {
+        return bodies.get(body).getType() == BodyType.STATIC;
+    }
+
+    @Override
+    public void setContactHandler(ContactHandler handler) {
+        this.handler = handler;
+    }
+
+    @Override
+    public void setCarControls(int car, float steerAngle, float desiredSpeed, int power, int slide) {
+        Vehicle vehicle = getVehicle(car);
+        vehicle.steerAngle = steerAngle;
+        vehicle.desiredSpeed = desiredSpeed;
+        vehicle.power = power;
+        vehicle.slide = slide;
+    }
+
+    @Override
+    public void setTireForceBatching(boolean batching) {
+        this.batching = batching;
+    }
+
+    @Override
+    public void step() {
+        for (Vehicle vehicle : cars) {
+            // A sleeping car has no controls to act on; it is woken when it gets input.
+            if (!vehicle.body.isAwake()) {
+                continue;
+            }
+
+            for (Wheel wheel : vehicle.wheels) {
+                if (batching) {
+                    steer(vehicle, wheel);
+                    tireForces.add(wheel.body, vehicle.slide, vehicle.desiredSpeed, vehicle.power, wheel.powered);
+                } else {
+                    applyTireForces(vehicle, wheel);
+                }
+            }
+        }
+
+        if (batching) {
+            tireForces.apply();
+        }
+
+        step(world);
+    }
+
+    /**
+     * Applies the lateral impulse and the drive force of a wheel, and turns
+     * a steerable wheel to the steer angle of its car.
+     *
+     * @param vehicle The car of the wheel.
+     * @param wheel   The wheel.
+     */
+    private void applyTireForces(Vehicle vehicle, Wheel wheel) {
+        Body body = wheel.body;
+        Mat22 rotation = body.getTransform().R;
+        Vec2 velocity = body.getLinearVelocity();
+
+        // Applying an impulse wakes the body, so leave near-zero sideways velocity to the damping.
+        float lateralSpeed = rotation.col1.x * velocity.x + rotation.col1.y * velocity.y;
+        if (Math.abs(lateralSpeed) >= PhysicsConstants.WHEEL_SPEED_TOLERANCE) {
+            float scale = -body.getMass() / vehicle.slide;
+            scratch.set(rotation.col1.x * lateralSpeed * scale, rotation.col1.y * lateralSpeed * scale);
+            body.applyLinearImpulse(scratch, body.getWorldCenter());
+        }
+
+        steer(vehicle, wheel);
+
+        if (!wheel.powered) {
+            return;
+        }
+
+        // The velocity is the body's own vector, so it includes the lateral impulse.
+        float forwardSpeed = rotation.col2.x * velocity.x + rotation.col2.y * velocity.y;
+        float currentSpeed = rotation.col2.x * forwardSpeed * rotation.col2.x + rotation.col2.y * forwardSpeed * rotation.col2.y;
+
+        float force = vehicle.power * 10;
+        if (vehicle.desiredSpeed < currentSpeed) {
+            force *= -1;
+        }
+
+        // An idle car doesn't brake at low speeds, so it can come to rest and fall asleep.
+        float tolerance = vehicle.desiredSpeed == 0 ? PhysicsConstants.WHEEL_IDLE_SPEED_TOLERANCE : PhysicsConstants.WHEEL_SPEED_TOLERANCE;
+        if (Math.abs(vehicle.desiredSpeed - currentSpeed) >= tolerance) {
+            scratch.set(rotation.col2.x * force, rotation.col2.y * force);
+            body.applyForce(scratch, body.getWorldCenter());
+        }
+    }
+
+    private static void steer(Vehicle vehicle, Wheel wheel) {
+        if (wheel.steerable) {
+            wheel.body.m_sweep.a = vehicle.body.getAngle() + vehicle.steerAngle;
+        }
+    }
+
+    @Override
+    public void setTransform(int body, float x, float y, float angle) {
+        Body moved = bodies.get(body);
+        moved.setTransform(new Vec2(x, y), angle);
+
+        Vehicle vehicle = vehicles.get(body);
+        if (vehicle != null) {
+            for (Wheel wheel : vehicle.wheels) {
+                wheel.body.setTransform(moved.getWorldPoint(new Vec2(wheel.localX, wheel.localY)), angle);
+            }
+        }
+    }
+
+    @Override
+    public void setVelocity(int body, float linearVelocityX, float linearVelocityY, float angularVelocity) {
+        Body changed = bodies.get(body);
+        changed.setAwake(true);
+        changed.setLinearVelocity(new Vec2(linearVelocityX, linearVelocityY));
+        changed.setAngularVelocity(angularVelocity);
+    }
+
+    @Override
+    public boolean isAwake(int body) {
+        return bodies.get(body).isAwake();
+    }
+
+    @Override
+    public void wake(int body) {
+        bodies.get(body).setAwake(true);
+    }
+
+    @Override
+    public boolean hasAwakeBodies() {
+        for (Body body = world.getBodyList(); body != null; body = body.getNext()) {
+            if (body.getType() == BodyType.DYNAMIC && body.isAwake()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public boolean rayCastStatic(float fromX, float fromY, float toX, float toY, float[] hit) {
+        from.set(fromX, fromY);
+        to.set(toX, toY);
+        cast.hit = false;
+        world.raycast(cast, from, to);
+
+        if (cast.hit) {
+            hit[0] = cast.pointX;
+            hit[1] = cast.pointY;
+            hit[2] = cast.normalX;
+            hit[3] = cast.normalY;
+        }
+        return cast.hit;
+    }
+
+    @Override
+    public void writeState(int body, ByteBuffer out) {
+        BodyState.write(bodies.get(body), out);
+
+        Vehicle vehicle = vehicles.get(body);
+        if (vehicle == null) {
+            return;
+        }
+
+        out.putFloat(vehicle.steerAngle);
+        out.putFloat(vehicle.desiredSpeed);
+        out.putInt(vehicle.power);
+        out.putInt(vehicle.slide);
+
+        out.putInt(vehicle.wheels.size());
+        for (Wheel wheel : vehicle.wheels) {
+            BodyState.write(wheel.body, out);
+
+            // The accumulated joint impulses are used to warm start the solver in the next step.
+            Vec3 impulse = wheel.getJointImpulse();
+            out.putFloat(impulse.x);
+            out.putFloat(impulse.y);
+            out.putFloat(impulse.z);
+            out.putFloat(wheel.getJointMotorImpulse());
+        }
+    }
+
+    @Override
+    public void readState(int body, ByteBuffer in) {
+        BodyState.read(bodies.get(body), in);
+
+        Vehicle vehicle = vehicles.get(body);
+        if (vehicle == null) {
+            return;
+        }
+
+        vehicle.steerAngle = in.getFloat();
+        vehicle.desiredSpeed = in.getFloat();
+        vehicle.power = in.getInt();
+        vehicle.slide = in.getInt();
+
+        int wheelCount = in.getInt();
+        if (wheelCount != vehicle.wheels.size()) {
+            throw new IllegalStateException("The state has " + wheelCount + " wheels, this car has " + vehicle.wheels.size() + ".");
+        }
+
+        for (Wheel wheel : vehicle.wheels) {
+            BodyState.read(wheel.body, in);
+            wheel.getJointImpulse().set(in.getFloat(), in.getFloat(), in.getFloat());
+            wheel.setJointMotorImpulse(in.getFloat());
+        }
+    }
+
+    @Override
+    public float getX(int body) {
+        return bodies.get(body).getPosition().x;
+    }
+
+    @Override
+    public float getY(int body) {
+        return bodies.get(body).getPosition().y;
+    }
+
+    @Override
+    public float getAngle(int body) {
+        return bodies.get(body).getAngle();
+    }
+
+    @Override
+    public float getLinearVelocityX(int body) {
+        return bodies.get(body).getLinearVelocity().x;
+    }
+
+    @Override
+    public float getLinearVelocityY(int body) {
+        return bodies.get(body).getLinearVelocity().y;
+    }
+
+    @Override
+    public float getAngularVelocity(int body) {
+        return bodies.get(body).getAngularVelocity();
+    }
+
+    @Override
+    public float getWheelX(int car, int wheel) {
+        return getVehicle(car).wheels.get(wheel).body.getPosition().x;
+    }
+
+    @Override
+    public float getWheelY(int car, int wheel) {
+        return getVehicle(car).wheels.get(wheel).body.getPosition().y;
+    }
+
+    @Override
+    public float getWheelAngle(int car, int wheel) {
+        return getVehicle(car).wheels.get(wheel).body.getAngle();
+    }
+
+    @Override
+    public int getBodyCount() {
+        return bodies.size();
+    }
+
+    @Override
+    public int getContactCount() {
+        return world.getContactCount();
+    }
+
+    /**
+     * Returns the jbox2d body of a body.
+     *
+     * @param body The id of the body.
+     * @return The jbox2d body.
+     */
+    public Body getBody(int body) {
+        return bodies.get(body);
+    }
+
+    /**
+     * Returns the jbox2d body of a wheel.
+     *
+     * @param car   The id of the car.
+     * @param wheel The number of the wheel.
+     * @return The jbox2d body.
+     */
+    public Body getWheelBody(int car, int wheel) {
+        return getVehicle(car).wheels.get(wheel).body;
+    }
+
+    private static void step(World world) {
+        world.step(1.0F / PhysicsConstants.ENGINE_FPS, PhysicsConstants.VELOCITY_ITERATIONS, PhysicsConstants.POSITION_ITERATIONS);
+    }
+
+    /**
+     * Returns the underlying world.
+     *
+     * @return The world.
+     */
+    public World getWorld() {
+        return world;
+    }
+
+    private static int idOf(Fixture fixture) {
+        Object id = fixture.getBody().getUserData();
+        return id instanceof Integer ? (Integer) id : -1;
+    }
+
+    private static final class Vehicle {
+
+        private final Body body;
+        private final List<Wheel> wheels = new ArrayList<>();
+        private float steerAngle = 0;
+        private float desiredSpeed = 0;
+        private int power = 0;
+        private int slide = PhysicsConstants.CAR_NORMAL_SLIDE;
+
+        private Vehicle(Body body) {
+            this.body = body;
+        }
+
+    }
+
+    private static final class Wheel {
+
+        private final Body body;
+        private final Joint joint;
+        private final float localX;
+        private final float localY;
+        private final boolean steerable;
+        private final boolean powered;
+
+        private Wheel(Body body, Joint joint, float localX, float localY, boolean steerable, boolean powered) {
+            this.body = body;
+            this.joint = joint;
+            this.localX = localX;
+            this.localY = localY;
+            this.steerable = steerable;
+            this.powered = powered;
+        }
+
+        private Vec3 getJointImpulse() {
+            return joint instanceof RevoluteJoint ? ((RevoluteJoint) joint).m_impulse : ((PrismaticJoint) joint).m_impulse;
+        }
+
+        private float getJointMotorImpulse() {
+            return joint instanceof RevoluteJoint ? ((RevoluteJoint) joint).m_motorImpulse : ((PrismaticJoint) joint).m_motorImpulse;
+        }
+
+        private void setJointMotorImpulse(float impulse) {
+            if (joint instanceof RevoluteJoint) {
+                ((RevoluteJoint) joint).m_motorImpulse = impulse;
+            } else {
+                ((PrismaticJoint) joint).m_motorImpulse = impulse;
+            }
+        }
+
+    }
+
+    /**
+     * Reports the contacts between bodies with an id to the contact handler.
+     */
+    private final class Contacts implements ContactListener {
+
+        private final WorldManifold worldManifold = new WorldManifold();
+
+        @Override
+        public void beginContact(Contact contact) {
+            int a = idOf(contact.getFixtureA());
+            int b = idOf(contact.getFixtureB());
+            if (handler != null && a >= 0 && b >= 0) {
+                handler.beginContact(a, b);
+            }
+        }
+
+        @Override
+        public void endContact(Contact contact) {
+            // Not needed
+        }
+
+        @Override
+        public void preSolve(Contact contact, Manifold manifold) {
+            // Not needed
+        }
+
+        @Override
+        public void postSolve(Contact contact, ContactImpulse contactImpulse) {
+            int a = idOf(contact.getFixtureA());
+            int b = idOf(contact.getFixtureB());
+            int pointCount = contact.getManifold().pointCount;
+            if (handler == null || a < 0 || b < 0 || pointCount == 0) {
+                return;
+            }
+
+            float impulse = 0;
+            for (int i = 0; i < pointCount; i++) {
+                impulse += contactImpulse.normalImpulses[i];
+            }
+
+            contact.getWorldManifold(worldManifold);
+            handler.postSolve(a, b, impulse, worldManifold.points[0].x, worldManifold.points[0].y);
+        }
+
+    }
+
+    /**
+     * The WallCast finds the closest static, solid fixture along a ray.
+     */
+    private static final class WallCast implements RayCastCallback {
+
+        private boolean hit;
+        private float pointX;
+        private float pointY;
+        private float normalX;
+        private float normalY;
+
+        @Override
+        public float reportFixture(Fixture fixture, Vec2 point, Vec2 normal, float fraction) {
+            if (fixture.isSensor() || fixture.getBody().getType() != BodyType.STATIC) {
+                return -1; // Ignore this fixture, and continue.
+            }
+
+            hit = true;
+            pointX = point.x;
+            pointY = point.y;
+            normalX = normal.x;
+            normalY = normal.y;
+            return fraction; // Clip the ray, so only closer fixtures are reported.
+        }
+
+    }
+
+}
@@ -0,0 +1,31 @@
+package nl.soccar.physics.backend;
+
+/**
+ * A ContactHandler is told about the contacts between the bodies of a physics
+ * backend, while the backend steps. Wheels never take part in contacts.
+ *
+ * @author PTS34A
+ */
+public interface ContactHandler {
+
+    /**
+     * Called when two bodies start touching.
+     *
+     * @param bodyA The id of the first body.
+     * @param bodyB The id of the second body.
+     */
+    void beginContact(int bodyA, int bodyB);
+
+    /**
+     * Called after the contact between two touching bodies has been solved,
+     * once per step for as long as they touch.
+     *
+     * @param bodyA   The id of the first body.
+     * @param bodyB   The id of the second body.
+     * @param impulse The total normal impulse over all points of the contact.
+     * @param x       The x-coordinate of the first point of the contact.
+     * @param y       The y-coordinate of the first point of the contact.
+     */
+    void postSolve(int bodyA, int bodyB, float impulse, float x, float y);
+
+}
@@ -0,0 +1,80 @@
+package nl.soccar.physics.backend;
+
+/**
+ * A Material holds the properties of a body that the physics backends need
+ * besides its shape: its density, how it slides and bounces off other
+ * bodies, and how fast it slows down by itself.
+ *
+ * @author PTS34A
+ */
+public final class Material {
+
+    private final float density;
+    private final float friction;
+    private final float restitution;
+    private final float linearDamping;
+    private final float angularDamping;
+
+    /**
+     * Initiates a new Material using the given parameters.
+     *
+     * @param density        The density, zero for static bodies.
+     * @param friction       The friction coefficient.
+     * @param restitution    The restitution (bounciness), between 0 and 1.
+     * @param linearDamping  The linear damping.
+     * @param angularDamping The angular damping.
+     */
+    public Material(float density, float friction, float restitution, float linearDamping, float angularDamping) {
+        this.density = density;
+        this.friction = friction;
+        this.restitution = restitution;
+        this.linearDamping = linearDamping;
+        this.angularDamping = angularDamping;
+    }
+
+    /**
+     * Returns the density.
+     *
+     * @return The density.
+     */
+    public float getDensity() {
+        return density;
+    }
+
+    /**
+     * Returns the friction coefficient.
+     *
+     * @return The friction coefficient.
+     */
+    public float getFriction() {
+        return friction;
+    }
+
+    /**
+     * Returns the restitution.
+     *
+     * @return The restitution.
+     */
+    public float getRestitution() {
+        return restitution;
+    }
+
+    /**
+     * Returns the linear damping.
+     *
+     * @return The linear damping.
+     */
+    public float getLinearDamping() {
+        return linearDamping;
+    }
+
+    /**
+     * Returns the angular damping.
+     *
+     * @return The angular damping.
+     */
+    public float getAngularDamping() {
+        return angularDamping;
+    }
+
+}
@@ -0,0 +1,306 @@
+package nl.soccar.physics.backend;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A PhysicsBackend simulates a Soccar scene: a top-down, zero-gravity world of
+ * static boxes, cars driven by tire forces and a ball. Bodies are referred to
+ * by the id that is returned when they are added; ids start at zero and
+ * increase by one for every body, so two backends that are populated in the
+ * same order use the same ids. The GameEngine gets its backend from
+ * BackendLoader, and its physics models add their bodies to it.
+ * <p>
+ * A car is a box with wheels. Every tick, its wheels eliminate their sideways
+ * velocity and its powered wheels drive it towards the desired speed of its
+ * controls.
+ *
+ * @author PTS34A
+ */
+public interface PhysicsBackend {
+
+    /**
+     * Adds a ball.
+     *
+     * @param x        The x-coordinate of the center.
+     * @param y        The y-coordinate of the center.
+     * @param radius   The radius.
+     * @param material The material.
+     * @return The id of the ball.
+     */
+    int addBall(float x, float y, float radius, Material material);
+
+    /**
+     * Adds a car, without wheels.
+     *
+     * @param x          The x-coordinate of the center.
+     * @param y          The y-coordinate of the center.
+     * @param angle      The angle in radians.
+     * @param halfWidth  Half the width.
+     * @param halfHeight Half the height.
+     * @param material   The material.
+     * @return The id of the car.
+     */
+    int addCar(float x, float y, float angle, float halfWidth, float halfHeight, Material material);
+
+    /**
+     * Adds a wheel to a car. The wheels of a car are numbered in the order
+     * they are added, starting at zero.
+     *
+     * @param car        The id of the car.
+     * @param localX     The x-coordinate of the wheel, relative to the car.
+     * @param localY     The y-coordinate of the wheel, relative to the car.
+     * @param halfWidth  Half the width.
+     * @param halfHeight Half the height.
+     * @param material   The material.
+     * @param steerable  Whether the wheel steers the car.
+     * @param powered    Whether the wheel drives the car.
+     */
+    void addWheel(int car, float localX, float localY, float halfWidth, float halfHeight, Material material, boolean steerable, boolean powered);
+
+    /**
+     * Adds a static box, such as a wall or an obstacle.
+     *
+     * @param x          The x-coordinate of the center.
+     * @param y          The y-coordinate of the center.
+     * @param angle      The angle in radians.
+     * @param halfWidth  Half the width.
+     * @param halfHeight Half the height.
+     * @param material   The material, of which the density and damping are ignored.
+     * @return The id of the box.
+     */
+    int addStaticBox(float x, float y, float angle, float halfWidth, float halfHeight, Material material);
+
+    /**
+     * Adds static geometry made of many boxes, such as the compiled obstacles
+     * of a map, as a single static body with one fixture per box.
+     *
+     * @param boxes    The center (x and y), angle in radians, half the width and half the height of every box, one after another, in world coordinates.
+     * @param material The material, of which the density and damping are ignored.
+     * @return The id of the body.
+     */
+    int addStaticGeometry(float[] boxes, Material material);
+
+    /**
+     * Attaches an object to a body, such as the library model it represents.
+     * The contact handler can look it up with getUserData.
+     *
+     * @param body The id of the body.
+     * @param data The object, or null.
+     */
+    void setUserData(int body, Object data);
+
+    /**
+     * Returns the object attached to a body.
+     *
+     * @param body The id of the body.
+     * @return The object, or null if nothing is attached.
+     */
+    Object getUserData(int body);
+
+    /**
+     * Returns whether a body is static.
+     *
+     * @param body The id of the body.
+     * @return Whether the body is static.
+     */
+    boolean isStatic(int body);
+
+    /**
+     * Sets the handler that is told about the contacts of every step.
+     *
+     * @param handler The handler, or null.
+     */
+    void setContactHandler(ContactHandler handler);
+
+    /**
+     * Sets the controls of a car, which apply from the next step on.
+     *
+     * @param car          The id of the car.
+     * @param steerAngle   The angle of the steerable wheels relative to the car, in radians.
+     * @param desiredSpeed The speed the powered wheels drive towards.
+     * @param power        The power of the powered wheels.
+     * @param slide        The slide of the wheels, by which their mass is divided when sideways velocity is eliminated.
+     */
+    void setCarControls(int car, float steerAngle, float desiredSpeed, int power, int slide);
+
+    /**
+     * Chooses between computing the tire forces of all wheels in one batch
+     * or wheel by wheel. Both give the same results; backends that only have
+     * one way ignore this.
+     *
+     * @param batching Whether tire forces are batched.
+     */
+    default void setTireForceBatching(boolean batching) {
+    }
+
+    /**
+     * Steps the world one engine tick.
+     */
+    void step();
+
+    /**
+     * Moves a body, and the wheels of a car along with it.
+     *
+     * @param body  The id of the body.
+     * @param x     The x-coordinate of the center.
+     * @param y     The y-coordinate of the center.
+     * @param angle The angle in radians.
+     */
+    void setTransform(int body, float x, float y, float angle);
+
+    /**
+     * Sets the velocity of a body, and wakes it.
+     *
+     * @param body            The id of the body.
+     * @param linearVelocityX The horizontal velocity.
+     * @param linearVelocityY The vertical velocity.
+     * @param angularVelocity The angular velocity in radians per second.
+     */
+    void setVelocity(int body, float linearVelocityX, float linearVelocityY, float angularVelocity);
+
+    /**
+     * Returns whether a body is awake. A backend without sleeping reports
+     * every dynamic body awake.
+     *
+     * @param body The id of the body.
+     * @return Whether the body is awake.
+     */
+    boolean isAwake(int body);
+
+    /**
+     * Wakes a body that has fallen asleep.
+     *
+     * @param body The id of the body.
+     */
+    void wake(int body);
+
+    /**
+     * Returns whether any dynamic body is awake.
+     *
+     * @return Whether any dynamic body is awake.
+     */
+    boolean hasAwakeBodies();
+
+    /**
+     * Finds the closest solid static body along a ray.
+     *
+     * @param fromX The x-coordinate of the start of the ray.
+     * @param fromY The y-coordinate of the start of the ray.
+     * @param toX   The x-coordinate of the end of the ray.
+     * @param toY   The y-coordinate of the end of the ray.
+     * @param hit   An array of at least four elements, to write the point (x and y) and the normal (x and y) of the hit to.
+     * @return Whether the ray hit a static body.
+     */
+    boolean rayCastStatic(float fromX, float fromY, float toX, float toY, float[] hit);
+
+    /**
+     * Writes the complete state of a body, and of the wheels and controls of
+     * a car, so that readState lets the body continue exactly where it left
+     * off. Contacts are not part of the state: worlds that read the same
+     * state into a new backend continue exactly like each other, but the
+     * written world may differ from them while bodies touch, see WorldState.
+     *
+     * @param body The id of the body.
+     * @param out  The buffer to write to.
+     */
+    void writeState(int body, ByteBuffer out);
+
+    /**
+     * Reads the state of a body, as written by writeState of the same kind
+     * of backend.
+     *
+     * @param body The id of the body.
+     * @param in   The buffer to read from.
+     */
+    void readState(int body, ByteBuffer in);
+
+    /**
+     * Returns the x-coordinate of the center of a body.
+     *
+     * @param body The id of the body.
+     * @return The x-coordinate.
+     */
+    float getX(int body);
+
+    /**
+     * Returns the y-coordinate of the center of a body.
+     *
+     * @param body The id of the body.
+     * @return The y-coordinate.
+     */
+    float getY(int body);
+
+    /**
+     * Returns the angle of a body.
+     *
+     * @param body The id of the body.
+     * @return The angle in radians.
+     */
+    float getAngle(int body);
+
+    /**
+     * Returns the horizontal velocity of a body.
+     *
+     * @param body The id of the body.
+     * @return The horizontal velocity.
+     */
+    float getLinearVelocityX(int body);
+
+    /**
+     * Returns the vertical velocity of a body.
+     *
+     * @param body The id of the body.
+     * @return The vertical velocity.
+     */
+    float getLinearVelocityY(int body);
+
+    /**
+     * Returns the angular velocity of a body.
+     *
+     * @param body The id of the body.
+     * @return The angular velocity in radians per second.
+     */
+    float getAngularVelocity(int body);
+
+    /**
+     * Returns the x-coordinate of the center of a wheel.
+     *
+     * @param car   The id of the car.
+     * @param wheel The number of the wheel.
+     * @return The x-coordinate.
+     */
+    float getWheelX(int car, int wheel);
+
+    /**
+     * Returns the y-coordinate of the center of a wheel.
+     *
+     * @param car   The id of the car.
+     * @param wheel The number of the wheel.
+     * @return The y-coordinate.
+     */
+    float getWheelY(int car, int wheel);
+
+    /**
+     * Returns the angle of a wheel.
+     *
+     * @param car   The id of the car.
+     * @param wheel The number of the wheel.
+     * @return The angle in radians.
+     */
+    float getWheelAngle(int car, int wheel);
+
+    /**
+     * Returns the amount of bodies that have been added.
+     *
+     * @return The amount of bodies.
+     */
+    int getBodyCount();
+
+    /**
+     * Returns the amount of contacts of the last step.
+     *
+     * @return The amount of contacts.
+     */
+    int getContactCount();
+
+}
@@ -0,0 +1,164 @@
+package nl.soccar.physics.backend;
+
+import nl.soccar.physics.PhysicsConstants;
+import org.jbox2d.common.Mat22;
+import org.jbox2d.common.Vec2;
+import org.jbox2d.dynamics.Body;
+
+import java.util.Arrays;
+
+/**
+ * The TireForceBatch computes the lateral impulses and drive forces of all
+ * wheels of a Box2DBackend in one pass. The velocities and orientations of
+ * the wheels are gathered into flat arrays (one array per component), the
+ * impulses and forces are computed in a single loop over those arrays, and
+ * the results are scattered back to the bodies.
+ * <p>
+ * The arithmetic is the same, in the same order, as the wheel by wheel path
+ * of Box2DBackend, so both paths produce bit-identical results.
+ *
+ * @author PTS34A
+ */
+final class TireForceBatch {
+
+    private static final int INITIAL_CAPACITY = 32;
+
+    private final Vec2 scratch = new Vec2();
+
+    private Body[] bodies = new Body[INITIAL_CAPACITY];
+    private float[] velocityX = new float[INITIAL_CAPACITY];
+    private float[] velocityY = new float[INITIAL_CAPACITY];
+    private float[] rightX = new float[INITIAL_CAPACITY];
+    private float[] rightY = new float[INITIAL_CAPACITY];
+    private float[] forwardX = new float[INITIAL_CAPACITY];
+    private float[] forwardY = new float[INITIAL_CAPACITY];
+    private float[] mass = new float[INITIAL_CAPACITY];
+    private float[] invMass = new float[INITIAL_CAPACITY];
+    private float[] slide = new float[INITIAL_CAPACITY];
+    private float[] desiredSpeed = new float[INITIAL_CAPACITY];
+    private float[] power = new float[INITIAL_CAPACITY];
+    private float[] speedTolerance = new float[INITIAL_CAPACITY];
+    private boolean[] powered = new boolean[INITIAL_CAPACITY];
+
+    private float[] impulseX = new float[INITIAL_CAPACITY];
+    private float[] impulseY = new float[INITIAL_CAPACITY];
+    private float[] forceX = new float[INITIAL_CAPACITY];
+    private float[] forceY = new float[INITIAL_CAPACITY];
+    private boolean[] push = new boolean[INITIAL_CAPACITY];
+    private boolean[] drive = new boolean[INITIAL_CAPACITY];
+
+    private int size = 0;
+
+    /**
+     * Gathers a wheel into the batch.
+     *
+     * @param body         The body of the wheel.
+     * @param slide        The slide of the car.
+     * @param desiredSpeed The desired speed of the car.
+     * @param power        The power of the car.
+     * @param powered      Whether the wheel drives the car.
+     */
+    void add(Body body, int slide, float desiredSpeed, int power, boolean powered) {
+        if (size == bodies.length) {
+            grow();
+        }
+
+        Vec2 velocity = body.getLinearVelocity();
+        Mat22 rotation = body.getTransform().R;
+
+        bodies[size] = body;
+        velocityX[size] = velocity.x;
+        velocityY[size] = velocity.y;
+        rightX[size] = rotation.col1.x; // getWorldVector(1, 0)
+        rightY[size] = rotation.col1.y;
+        forwardX[size] = rotation.col2.x; // getWorldVector(0, 1)
+        forwardY[size] = rotation.col2.y;
+        mass[size] = body.getMass();
+        invMass[size] = body.m_invMass;
+        this.slide[size] = slide;
+        this.desiredSpeed[size] = desiredSpeed;
+        this.power[size] = power;
+        speedTolerance[size] = desiredSpeed == 0 ? PhysicsConstants.WHEEL_IDLE_SPEED_TOLERANCE : PhysicsConstants.WHEEL_SPEED_TOLERANCE;
+        this.powered[size] = powered;
+        size++;
+    }
+
+    /**
+     * Computes and applies the impulses and forces of all gathered wheels,
+     * and empties the batch.
+     */
+    void apply() {
+        compute();
+        scatter();
+        size = 0;
+    }
+
+    private void compute() {
+        for (int i = 0; i < size; i++) {
+            // Lateral impulse
+            float lateralSpeed = rightX[i] * velocityX[i] + rightY[i] * velocityY[i];
+            float scale = -mass[i] / slide[i];
+            impulseX[i] = rightX[i] * lateralSpeed * scale;
+            impulseY[i] = rightY[i] * lateralSpeed * scale;
+            push[i] = Math.abs(lateralSpeed) >= PhysicsConstants.WHEEL_SPEED_TOLERANCE;
+
+            // Drive force, on the velocity after the impulse
+            float vx = push[i] ? velocityX[i] + impulseX[i] * invMass[i] : velocityX[i];
+            float vy = push[i] ? velocityY[i] + impulseY[i] * invMass[i] : velocityY[i];
+            float forwardSpeed = forwardX[i] * vx + forwardY[i] * vy;
+            float currentSpeed = forwardX[i] * forwardSpeed * forwardX[i] + forwardY[i] * forwardSpeed * forwardY[i];
+
+            float force = power[i] * 10;
+            if (desiredSpeed[i] < currentSpeed) {
+                force *= -1;
+            }
+
+            forceX[i] = forwardX[i] * force;
+            forceY[i] = forwardY[i] * force;
+            drive[i] = powered[i] && Math.abs(desiredSpeed[i] - currentSpeed) >= speedTolerance[i];
+        }
+    }
+
+    private void scatter() {
+        for (int i = 0; i < size; i++) {
+            Body body = bodies[i];
+
+            if (push[i]) {
+                scratch.set(impulseX[i], impulseY[i]);
+                body.applyLinearImpulse(scratch, body.getWorldCenter());
+            }
+
+            if (drive[i]) {
+                scratch.set(forceX[i], forceY[i]);
+                body.applyForce(scratch, body.getWorldCenter());
+            }
+
+            bodies[i] = null;
+        }
+    }
+
+    private void grow() {
+        int capacity = bodies.length * 2;
+        bodies = Arrays.copyOf(bodies, capacity);
+        velocityX = Arrays.copyOf(velocityX, capacity);
+        velocityY = Arrays.copyOf(velocityY, capacity);
+        rightX = Arrays.copyOf(rightX, capacity);
+        rightY = Arrays.copyOf(rightY, capacity);
+        forwardX = Arrays.copyOf(forwardX, capacity);
+        forwardY = Arrays.copyOf(forwardY, capacity);
+        mass = Arrays.copyOf(mass, capacity);
+        invMass = Arrays.copyOf(invMass, capacity);
+        slide = Arrays.copyOf(slide, capacity);
+        desiredSpeed = Arrays.copyOf(desiredSpeed, capacity);
+        power = Arrays.copyOf(power, capacity);
+        speedTolerance = Arrays.copyOf(speedTolerance, capacity);
+        powered = Arrays.copyOf(powered, capacity);
+        impulseX = Arrays.copyOf(impulseX, capacity);
+        impulseY = Arrays.copyOf(impulseY, capacity);
+        forceX = Arrays.copyOf(forceX, capacity);
+        forceY = Arrays.copyOf(forceY, capacity);
+        push = Arrays.copyOf(push, capacity);
+        drive = Arrays.copyOf(drive, capacity);
+    }
+
+}
@@ -0,0 +1,151 @@
+package nl.soccar.physics.benchmark;
+
+import nl.soccar.physics.GameEngine;
+import nl.soccar.physics.PhysicsConstants;
+import nl.soccar.physics.backend.BackendType;
+import nl.soccar.physics.backend.PhysicsBackend;
+import nl.soccar.physics.models.CarPhysics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The BackendBenchmark compares the tick times of the jbox2d backend and the
+ * arena backend, side by side. For every car count, two engines are created
+ * by the factory, one per backend, and their backends are driven with the
+ * same scripted controls. The backends are stepped in alternating windows, so
+ * both see the same JIT and cache conditions. Whether both backends behave
+ * alike is covered by BackendParityTest.
+ *
+ * @author PTS34A
+ */
+public final class BackendBenchmark {
+
+    private static final int[] CAR_COUNTS = {2, 4, 8};
+    private static final int CONTROL_INTERVAL = PhysicsConstants.ENGINE_FPS / 2; // Ticks between two changes of the controls
+
+    private final EngineFactory factory;
+    private int warmUpTicks = 5_000;
+    private int ticks = 20_000;
+    private int windowTicks = 500;
+
+    /**
+     * Initiates a new BackendBenchmark using the given parameters.
+     *
+     * @param factory The factory that creates the engines whose backends are stepped.
+     */
+    public BackendBenchmark(EngineFactory factory) {
+        this.factory = Objects.requireNonNull(factory);
+    }
+
+    /**
+     * Runs the benchmark for 2, 4 and 8 cars.
+     *
+     * @return The results, one per car count.
+     */
+    public List<BackendResult> run() {
+        List<BackendResult> results = new ArrayList<>();
+        for (int carCount : CAR_COUNTS) {
+            results.add(run(carCount));
+        }
+        return results;
+    }
+
+    private BackendResult run(int carCount) {
+        GameEngine box2dEngine = factory.create(carCount);
+        GameEngine arenaEngine = factory.create(carCount);
+        box2dEngine.setBackend(BackendType.BOX2D);
+        arenaEngine.setBackend(BackendType.ARENA);
+
+        PhysicsBackend box2d = box2dEngine.getBackend();
+        PhysicsBackend arena = arenaEngine.getBackend();
+        int[] cars = getCarIds(box2dEngine);
+        if (!Arrays.equals(cars, getCarIds(arenaEngine))) {
+            throw new IllegalStateException("The factory populated the engines differently.");
+        }
+
+        long tick = 0;
+        step(box2d, cars, tick, warmUpTicks);
+        step(arena, cars, tick, warmUpTicks);
+        tick += warmUpTicks;
+
+        long box2dNs = 0;
+        long arenaNs = 0;
+        for (int done = 0; done < ticks; done += windowTicks) {
+            box2dNs += step(box2d, cars, tick, windowTicks);
+            arenaNs += step(arena, cars, tick, windowTicks);
+            tick += windowTicks;
+        }
+
+        return new BackendResult(carCount, box2dNs / ticks, arenaNs / ticks);
+    }
+
+    private static int[] getCarIds(GameEngine engine) {
+        return engine.getCars().stream().mapToInt(CarPhysics::getBodyId).toArray();
+    }
+
+    /**
+     * Steps a backend the given amount of ticks.
+     *
+     * @param backend The backend.
+     * @param cars    The ids of the cars.
+     * @param tick    The first tick.
+     * @param count   The amount of ticks.
+     * @return The time it took, in nanoseconds.
+     */
+    private static long step(PhysicsBackend backend, int[] cars, long tick, int count) {
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            drive(backend, cars, tick + i);
+            backend.step();
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Sets the controls of all cars for the given tick. Every car cycles
+     * through driving straight, steering both ways, sliding and reversing, out
+     * of phase with the other cars.
+     */
+    private static void drive(PhysicsBackend backend, int[] cars, long tick) {
+        float maxSteerAngle = (float) Math.toRadians(PhysicsConstants.WHEEL_MAX_STEER_ANGLE);
+
+        for (int i = 0; i < cars.length; i++) {
+            int phase = (int) ((tick / CONTROL_INTERVAL + i * 3) % 8);
+            float steerAngle = phase % 4 == 1 ? maxSteerAngle : phase % 4 == 3 ? -maxSteerAngle : 0;
+            float desiredSpeed = phase == 6 ? -PhysicsConstants.CAR_MAX_REVERSE_SPEED : PhysicsConstants.CAR_MAX_SPEED;
+            int slide = phase == 5 ? PhysicsConstants.CAR_HANDBRAKE_SLIDE : PhysicsConstants.CAR_NORMAL_SLIDE;
+
+            backend.setCarControls(cars[i], steerAngle, desiredSpeed, PhysicsConstants.CAR_NORMAL_POWER, slide);
+        }
+    }
+
+    /**
+     * Sets the amount of ticks that are stepped before measuring.
+     *
+     * @param warmUpTicks The amount of warm-up ticks.
+     */
+    public void setWarmUpTicks(int warmUpTicks) {
+        if (warmUpTicks < 0) {
+            throw new IllegalArgumentException("The amount of warm-up ticks can't be negative.");
+        }
+
+        this.warmUpTicks = warmUpTicks;
+    }
+
+    /**
+     * Sets the amount of measured ticks per backend and car count.
+     *
+     * @param ticks The amount of ticks, a multiple of the window size.
+     */
+    public void setTicks(int ticks) {
+        if (ticks < windowTicks || ticks % windowTicks != 0) {
+            throw new IllegalArgumentException("The amount of ticks must be a positive multiple of " + windowTicks + ".");
+        }
+
+        this.ticks = ticks;
+    }
+
+}
@@ -0,0 +1,60 @@
+package nl.soccar.physics.benchmark;
+
+/**
+ * A BackendResult holds the results of a BackendBenchmark for a single car
+ * count.
+ *
+ * @author PTS34A
+ */
+public final class BackendResult {
+
+    private final int carCount;
+    private final long box2dTickNs;
+    private final long arenaTickNs;
+
+    /**
+     * Initiates a new BackendResult using the given parameters.
+     *
+     * @param carCount    The amount of cars.
+     * @param box2dTickNs The mean tick time of the jbox2d backend, in nanoseconds.
+     * @param arenaTickNs The mean tick time of the arena backend, in nanoseconds.
+     */
+    public BackendResult(int carCount, long box2dTickNs, long arenaTickNs) {
+        this.carCount = carCount;
+        this.box2dTickNs = box2dTickNs;
+        this.arenaTickNs = arenaTickNs;
+    }
+
+    /**
+     * Returns the amount of cars.
+     *
+     * @return The amount of cars.
+     */
+    public int getCarCount() {
+        return carCount;
+    }
+
+    /**
+     * Returns the mean tick time of the jbox2d backend.
+     *
+     * @return The tick time in nanoseconds.
+     */
+    public long getBox2dTickNs() {
+        return box2dTickNs;
+    }
+
+    /**
+     * Returns the mean tick time of the arena backend.
+     *
+     * @return The tick time in nanoseconds.
+     */
+    public long getArenaTickNs() {
+        return arenaTickNs;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d cars: jbox2d %d ns/tick, arena %d ns/tick", carCount, box2dTickNs, arenaTickNs);
+    }
+
+}
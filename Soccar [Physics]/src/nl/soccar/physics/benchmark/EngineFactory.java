@@ -0,0 +1,23 @@
+package nl.soccar.physics.benchmark;
+
+import nl.soccar.physics.GameEngine;
+
+/**
+ * An EngineFactory creates fully populated, headless game engines: a session
+ * with a map, a ball, obstacles and the requested amount of cars, all added to
+ * a new GameEngine. The engine must not be started yet.
+ *
+ * @author PTS34A
+ */
+@FunctionalInterface
+public interface EngineFactory {
+
+    /**
+     * Creates a new game engine.
+     *
+     * @param carCount The amount of cars to add to the engine.
+     * @return The new, not yet started, game engine.
+     */
+    GameEngine create(int carCount);
+
+}
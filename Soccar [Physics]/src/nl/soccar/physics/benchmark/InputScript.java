@@ -0,0 +1,22 @@
+package nl.soccar.physics.benchmark;
+
+import nl.soccar.physics.GameEngine;
+
+/**
+ * An InputScript drives the cars of a headless engine, in place of players.
+ *
+ * @author PTS34A
+ */
+@FunctionalInterface
+public interface InputScript {
+
+    /**
+     * Applies the inputs of a tick to the cars of an engine. This method is
+     * called right before the engine steps the given tick.
+     *
+     * @param engine The engine to apply the inputs to.
+     * @param tick   The tick that is about to be stepped.
+     */
+    void apply(GameEngine engine, long tick);
+
+}
@@ -0,0 +1,280 @@
+package nl.soccar.physics.benchmark;
+
+import nl.soccar.physics.EngineWorker;
+import nl.soccar.physics.GameEngine;
+import nl.soccar.physics.PhysicsConstants;
+import nl.soccar.physics.metrics.LatencyHistogram;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The LoadTest runs many headless game engines side by side, driven by an
+ * input script, and measures how the host copes. Sessions are spread over a
+ * fixed amount of worker threads, which step all of their sessions once every
+ * engine tick, like a server would.
+ *
+ * @author PTS34A
+ */
+public final class LoadTest {
+
+    private static final long TICK_BUDGET_NS = TimeUnit.SECONDS.toNanos(1) / PhysicsConstants.ENGINE_FPS;
+
+    private final EngineFactory factory;
+    private final InputScript script;
+    private int sessions = 100;
+    private int minCars = 2;
+    private int maxCars = 8;
+    private long durationMs = 60_000;
+    private int workers = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Initiates a new LoadTest using the given parameters.
+     *
+     * @param factory The factory that creates the sessions.
+     * @param script  The script that drives the cars of all sessions.
+     */
+    public LoadTest(EngineFactory factory, InputScript script) {
+        this.factory = Objects.requireNonNull(factory);
+        this.script = Objects.requireNonNull(script);
+    }
+
+    /**
+     * Creates all sessions, runs them for the configured duration and reports
+     * the results.
+     *
+     * @return The results of the load test.
+     * @throws InterruptedException When the calling thread is interrupted while waiting for the workers.
+     */
+    public LoadTestReport run() throws InterruptedException {
+        long heapBefore = usedHeap();
+
+        List<List<GameEngine>> assignments = new ArrayList<>();
+        for (int i = 0; i < workers; i++) {
+            assignments.add(new ArrayList<>());
+        }
+
+        // Engines on the same engine worker may share Box2D pools, so they are stepped by the same thread, to not wait for each other.
+        Map<EngineWorker, Integer> threadOfWorker = new HashMap<>();
+        for (int i = 0; i < sessions; i++) {
+            int carCount = minCars + i % (maxCars - minCars + 1);
+            GameEngine engine = factory.create(carCount);
+            engine.startHeadless();
+
+            int thread = threadOfWorker.computeIfAbsent(engine.getWorker(), w -> threadOfWorker.size() % workers);
+            assignments.get(thread).add(engine);
+        }
+
+        long heapPerSession = (usedHeap() - heapBefore) / Math.max(1, sessions);
+
+        List<Worker> running = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(workers);
+        long gcCountBefore = gcCount();
+        long gcTimeBefore = gcTimeMs();
+
+        for (int i = 0; i < workers; i++) {
+            if (assignments.get(i).isEmpty()) {
+                done.countDown();
+                continue;
+            }
+
+            Worker worker = new Worker(assignments.get(i), done);
+            running.add(worker);
+
+            Thread thread = new Thread(worker, "load-test-worker-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        done.await();
+
+        LatencyHistogram ticks = new LatencyHistogram();
+        long sessionOverruns = 0;
+        long workerOverruns = 0;
+        long allocatedBytes = 0;
+        long cpuNs = 0;
+        for (Worker worker : running) {
+            ticks.add(worker.ticks);
+            sessionOverruns += worker.sessionOverruns;
+            workerOverruns += worker.workerOverruns;
+            allocatedBytes += worker.allocatedBytes;
+            cpuNs += worker.cpuNs;
+        }
+
+        return new LoadTestReport(sessions, workers, running.size(), durationMs, ticks, sessionOverruns, workerOverruns,
+                allocatedBytes, gcCount() - gcCountBefore, gcTimeMs() - gcTimeBefore, cpuNs, heapPerSession);
+    }
+
+    /**
+     * Sets the amount of sessions.
+     *
+     * @param sessions The amount of sessions.
+     */
+    public void setSessions(int sessions) {
+        if (sessions < 1) {
+            throw new IllegalArgumentException("At least one session is required.");
+        }
+
+        this.sessions = sessions;
+    }
+
+    /**
+     * Sets the range of the amount of cars per session. Sessions get an amount
+     * of cars in this range, spread evenly.
+     *
+     * @param minCars The minimum amount of cars.
+     * @param maxCars The maximum amount of cars.
+     */
+    public void setCarRange(int minCars, int maxCars) {
+        if (minCars < 0 || maxCars < minCars) {
+            throw new IllegalArgumentException("Invalid car range.");
+        }
+
+        this.minCars = minCars;
+        this.maxCars = maxCars;
+    }
+
+    /**
+     * Sets how long the sessions run.
+     *
+     * @param durationMs The duration in milliseconds.
+     */
+    public void setDuration(long durationMs) {
+        if (durationMs <= 0) {
+            throw new IllegalArgumentException("The duration must be positive.");
+        }
+
+        this.durationMs = durationMs;
+    }
+
+    /**
+     * Sets the amount of worker threads the sessions are spread over. The
+     * sessions of one engine worker are all stepped by the same thread, so
+     * threads beyond the amount of engine workers stay idle; the report
+     * tells how many threads got sessions.
+     *
+     * @param workers The amount of workers.
+     */
+    public void setWorkers(int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("At least one worker is required.");
+        }
+
+        this.workers = workers;
+    }
+
+    /**
+     * Measures the used heap, after asking for a garbage collection.
+     *
+     * @return The used heap in bytes.
+     */
+    private static long usedHeap() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, bean.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcTimeMs() {
+        long time = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            time += Math.max(0, bean.getCollectionTime());
+        }
+        return time;
+    }
+
+    /**
+     * Returns the amount of bytes the current thread has allocated, if the JVM
+     * is able to tell.
+     *
+     * @param threads The thread bean.
+     * @return The allocated bytes, or 0 when unsupported.
+     */
+    private static long allocatedBytes(ThreadMXBean threads) {
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+
+        return 0;
+    }
+
+    /**
+     * A Worker steps its sessions once every engine tick until the duration
+     * has passed.
+     */
+    private final class Worker implements Runnable {
+
+        private final List<GameEngine> engines;
+        private final CountDownLatch done;
+        private final LatencyHistogram ticks = new LatencyHistogram();
+        private long sessionOverruns = 0;
+        private long workerOverruns = 0;
+        private long allocatedBytes = 0;
+        private long cpuNs = 0;
+
+        private Worker(List<GameEngine> engines, CountDownLatch done) {
+            this.engines = engines;
+            this.done = done;
+        }
+
+        @Override
+        public void run() {
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+            try {
+                long allocatedBefore = allocatedBytes(threads);
+                long cpuBefore = threads.getCurrentThreadCpuTime();
+
+                long start = System.nanoTime();
+                long end = start + TimeUnit.MILLISECONDS.toNanos(durationMs);
+                long deadline = start;
+
+                while (deadline < end) {
+                    deadline += TICK_BUDGET_NS;
+
+                    for (GameEngine engine : engines) {
+                        long tickStart = System.nanoTime();
+                        script.apply(engine, engine.getTick() + 1);
+                        engine.step();
+
+                        long duration = System.nanoTime() - tickStart;
+                        ticks.record(duration);
+                        if (duration > TICK_BUDGET_NS) {
+                            sessionOverruns++;
+                        }
+                    }
+
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining > 0) {
+                        LockSupport.parkNanos(remaining);
+                    } else {
+                        workerOverruns++;
+                    }
+                }
+
+                allocatedBytes = allocatedBytes(threads) - allocatedBefore;
+                cpuNs = threads.getCurrentThreadCpuTime() - cpuBefore;
+            } finally {
+                engines.forEach(GameEngine::stop);
+                done.countDown();
+            }
+        }
+
+    }
+
+}
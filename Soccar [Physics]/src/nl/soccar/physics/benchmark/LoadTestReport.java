@@ -0,0 +1,174 @@
+package nl.soccar.physics.benchmark;
+
+import nl.soccar.physics.PhysicsConstants;
+import nl.soccar.physics.metrics.LatencyHistogram;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A LoadTestReport holds the results of a LoadTest.
+ *
+ * @author PTS34A
+ */
+public final class LoadTestReport {
+
+    private final int sessions;
+    private final int workers;
+    private final int activeWorkers;
+    private final long durationMs;
+    private final LatencyHistogram ticks;
+    private final long sessionOverruns;
+    private final long workerOverruns;
+    private final long allocatedBytes;
+    private final long gcCount;
+    private final long gcTimeMs;
+    private final long cpuNs;
+    private final long heapPerSession;
+
+    /**
+     * Initiates a new LoadTestReport using the given parameters.
+     *
+     * @param sessions        The amount of sessions.
+     * @param workers         The amount of worker threads.
+     * @param activeWorkers   The amount of worker threads that got sessions.
+     * @param durationMs      How long the sessions ran, in milliseconds.
+     * @param ticks           The durations of all session ticks.
+     * @param sessionOverruns The amount of session ticks that exceeded the tick budget.
+     * @param workerOverruns  The amount of worker rounds that exceeded the tick budget.
+     * @param allocatedBytes  The amount of bytes allocated by the workers.
+     * @param gcCount         The amount of garbage collections.
+     * @param gcTimeMs        The time spent on garbage collections, in milliseconds.
+     * @param cpuNs           The CPU time used by the workers, in nanoseconds.
+     * @param heapPerSession  The heap used per session after setup, in bytes.
+     */
+    public LoadTestReport(int sessions, int workers, int activeWorkers, long durationMs, LatencyHistogram ticks, long sessionOverruns,
+                          long workerOverruns, long allocatedBytes, long gcCount, long gcTimeMs, long cpuNs, long heapPerSession) {
+        this.sessions = sessions;
+        this.workers = workers;
+        this.activeWorkers = activeWorkers;
+        this.durationMs = durationMs;
+        this.ticks = ticks;
+        this.sessionOverruns = sessionOverruns;
+        this.workerOverruns = workerOverruns;
+        this.allocatedBytes = allocatedBytes;
+        this.gcCount = gcCount;
+        this.gcTimeMs = gcTimeMs;
+        this.cpuNs = cpuNs;
+        this.heapPerSession = heapPerSession;
+    }
+
+    /**
+     * Returns the amount of worker threads that got sessions. The sessions of
+     * one engine worker all go to the same thread, so this is at most the
+     * amount of engine workers the sessions were created on.
+     *
+     * @return The amount of active worker threads.
+     */
+    public int getActiveWorkers() {
+        return activeWorkers;
+    }
+
+    /**
+     * Returns the durations of all session ticks.
+     *
+     * @return The tick durations.
+     */
+    public LatencyHistogram getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Returns the amount of session ticks that took longer than one tick.
+     *
+     * @return The amount of session overruns.
+     */
+    public long getSessionOverruns() {
+        return sessionOverruns;
+    }
+
+    /**
+     * Returns the amount of worker rounds that could not step all of their
+     * sessions within one tick.
+     *
+     * @return The amount of worker overruns.
+     */
+    public long getWorkerOverruns() {
+        return workerOverruns;
+    }
+
+    /**
+     * Returns the allocation rate of all workers together.
+     *
+     * @return The allocation rate in bytes per second.
+     */
+    public double getAllocationRate() {
+        return allocatedBytes * 1000.0 / durationMs;
+    }
+
+    /**
+     * Returns the amount of garbage collections during the run.
+     *
+     * @return The amount of garbage collections.
+     */
+    public long getGcCount() {
+        return gcCount;
+    }
+
+    /**
+     * Returns the time spent on garbage collections during the run.
+     *
+     * @return The garbage collection time in milliseconds.
+     */
+    public long getGcTimeMs() {
+        return gcTimeMs;
+    }
+
+    /**
+     * Returns the share of a core a single session uses.
+     *
+     * @return The CPU usage per session, where 1.0 is a full core.
+     */
+    public double getCpuPerSession() {
+        return (double) cpuNs / TimeUnit.MILLISECONDS.toNanos(durationMs) / sessions;
+    }
+
+    /**
+     * Estimates how many sessions a single core can run, based on the CPU
+     * usage per session.
+     *
+     * @return The estimated amount of sessions per core.
+     */
+    public double getSessionsPerCore() {
+        double cpuPerSession = getCpuPerSession();
+        return cpuPerSession == 0 ? 0 : 1.0 / cpuPerSession;
+    }
+
+    /**
+     * Returns the heap used per session after setup.
+     *
+     * @return The heap per session in bytes.
+     */
+    public long getHeapPerSession() {
+        return heapPerSession;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Sessions: %d on %d of %d workers for %d ms (%d Hz)%n", sessions, activeWorkers, workers, durationMs, PhysicsConstants.ENGINE_FPS));
+        sb.append(String.format("Tick latency (us): p50=%.1f p90=%.1f p99=%.1f p99.9=%.1f max=%.1f%n",
+                micros(ticks.getPercentile(50)), micros(ticks.getPercentile(90)), micros(ticks.getPercentile(99)),
+                micros(ticks.getPercentile(99.9)), micros(ticks.getMax())));
+        sb.append(String.format("Overruns: %d session ticks, %d worker rounds%n", sessionOverruns, workerOverruns));
+        sb.append(String.format("Allocation rate: %.1f MB/s%n", getAllocationRate() / (1024 * 1024)));
+        sb.append(String.format("GC: %d collections, %d ms%n", gcCount, gcTimeMs));
+        sb.append(String.format("CPU per session: %.2f%% of a core (about %.0f sessions per core)%n", getCpuPerSession() * 100, getSessionsPerCore()));
+        sb.append(String.format("Heap per session: %.1f KB", heapPerSession / 1024.0));
+        return sb.toString();
+    }
+
+    private static double micros(long nanos) {
+        return nanos / 1000.0;
+    }
+
+}
@@ -0,0 +1,82 @@
+package nl.soccar.physics.benchmark;
+
+import nl.soccar.library.Car;
+import nl.soccar.library.enumeration.HandbrakeAction;
+import nl.soccar.library.enumeration.SteerAction;
+import nl.soccar.library.enumeration.ThrottleAction;
+import nl.soccar.physics.GameEngine;
+import nl.soccar.physics.models.CarPhysics;
+
+/**
+ * The RandomInputScript drives every car with random actions, which change
+ * about every half second, like a player would. The inputs only depend on the
+ * seed, the tick number and the index of the car, so two runs with the same
+ * seed produce the same inputs.
+ *
+ * @author PTS34A
+ */
+public final class RandomInputScript implements InputScript {
+
+    private static final int CHANGE_INTERVAL = 60; // ticks
+    private static final int ACCELERATE_WEIGHT = 3; // Players mostly accelerate
+
+    private static final SteerAction[] STEER_ACTIONS = SteerAction.values();
+    private static final ThrottleAction[] THROTTLE_ACTIONS = ThrottleAction.values();
+    private static final HandbrakeAction[] HANDBRAKE_ACTIONS = HandbrakeAction.values();
+
+    private final long seed;
+
+    /**
+     * Initiates a new RandomInputScript using the given seed.
+     *
+     * @param seed The seed of the inputs.
+     */
+    public RandomInputScript(long seed) {
+        this.seed = seed;
+    }
+
+    @Override
+    public void apply(GameEngine engine, long tick) {
+        int index = 0;
+        for (CarPhysics carPhysics : engine.getCars()) {
+            // Stagger the changes of the cars, so they don't all change at once.
+            if ((tick + index * 17) % CHANGE_INTERVAL == 0) {
+                long random = mix(seed ^ tick * 31 + index);
+                Car car = carPhysics.getCar();
+
+                car.setSteerAction(STEER_ACTIONS[pick(random, STEER_ACTIONS.length)]);
+                car.setHandbrakeAction(HANDBRAKE_ACTIONS[pick(random >>> 16, HANDBRAKE_ACTIONS.length)]);
+
+                int throttle = pick(random >>> 32, THROTTLE_ACTIONS.length + ACCELERATE_WEIGHT);
+                car.setThrottleAction(throttle < THROTTLE_ACTIONS.length ? THROTTLE_ACTIONS[throttle] : ThrottleAction.ACCELERATE);
+            }
+
+            index++;
+        }
+    }
+
+    /**
+     * Picks a number below the given bound.
+     *
+     * @param random A random value.
+     * @param bound  The exclusive upper bound.
+     * @return A number between 0 and the bound.
+     */
+    private static int pick(long random, int bound) {
+        return (int) ((random & 0xFFFF) % bound);
+    }
+
+    /**
+     * Scrambles the bits of a value (SplitMix64 finalizer).
+     *
+     * @param value The value to scramble.
+     * @return The scrambled value.
+     */
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+}
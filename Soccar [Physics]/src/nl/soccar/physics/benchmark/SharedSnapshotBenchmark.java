@@ -0,0 +1,139 @@
+package nl.soccar.physics.benchmark;
+
+import nl.soccar.physics.GameEngine;
+import nl.soccar.physics.PhysicsConstants;
+import nl.soccar.physics.metrics.LatencyHistogram;
+import nl.soccar.physics.snapshot.SharedSnapshotReader;
+import nl.soccar.physics.snapshot.SharedSnapshotWriter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The SharedSnapshotBenchmark measures the latency of publishing snapshots
+ * through a shared memory file. An engine is stepped at the engine rate and
+ * publishes every tick through a SharedSnapshotWriter, while a reader thread
+ * polls the file the way a consumer process would. It records how long
+ * publishing takes, how long reading a frame takes, and how long it takes
+ * from publishing a frame until the reader has it.
+ *
+ * @author PTS34A
+ */
+public final class SharedSnapshotBenchmark {
+
+    private final EngineFactory factory;
+    private final InputScript script;
+    private int carCount = 8;
+    private int ticks = PhysicsConstants.ENGINE_FPS * 30;
+
+    /**
+     * Initiates a new SharedSnapshotBenchmark using the given parameters.
+     *
+     * @param factory The factory that creates the engine.
+     * @param script  The script that drives the cars.
+     */
+    public SharedSnapshotBenchmark(EngineFactory factory, InputScript script) {
+        this.factory = Objects.requireNonNull(factory);
+        this.script = Objects.requireNonNull(script);
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @return The result of the benchmark.
+     * @throws IOException          When the shared snapshot file can't be created.
+     * @throws InterruptedException When interrupted while waiting for the reader.
+     */
+    public SharedSnapshotResult run() throws IOException, InterruptedException {
+        Path path = Files.createTempFile("soccar-snapshot", ".bin");
+        GameEngine engine = factory.create(carCount);
+        engine.startHeadless();
+
+        LatencyHistogram publish = new LatencyHistogram();
+        LatencyHistogram read = new LatencyHistogram();
+        LatencyHistogram endToEnd = new LatencyHistogram();
+        AtomicBoolean running = new AtomicBoolean(true);
+        long[] frames = new long[1];
+        long[] retries = new long[1];
+
+        try (SharedSnapshotWriter writer = new SharedSnapshotWriter(path, carCount);
+             SharedSnapshotReader reader = new SharedSnapshotReader(path)) {
+            Thread consumer = new Thread(() -> {
+                ByteBuffer target = ByteBuffer.allocateDirect(reader.getCapacity());
+                long last = 0;
+                while (running.get()) {
+                    long sequence = reader.getSequence();
+                    if (sequence == last || (sequence & 1) != 0) {
+                        continue; // Spin, like a latency-sensitive consumer would
+                    }
+
+                    long start = System.nanoTime();
+                    reader.read(target);
+                    long end = System.nanoTime();
+
+                    read.record(end - start);
+                    endToEnd.record(end - reader.getPublishedNs());
+                    frames[0]++;
+                    last = sequence;
+                }
+                retries[0] = reader.getRetries();
+            }, "SharedSnapshotReader");
+            consumer.start();
+
+            long interval = TimeUnit.SECONDS.toNanos(1) / PhysicsConstants.ENGINE_FPS;
+            long next = System.nanoTime();
+            for (int i = 0; i < ticks; i++) {
+                script.apply(engine, engine.getTick() + 1);
+                engine.step();
+
+                long start = System.nanoTime();
+                writer.publish(engine, engine.getTick());
+                publish.record(System.nanoTime() - start);
+
+                next += interval;
+                LockSupport.parkNanos(next - System.nanoTime());
+            }
+
+            running.set(false);
+            consumer.join();
+        } finally {
+            engine.stop();
+            Files.deleteIfExists(path);
+        }
+
+        return new SharedSnapshotResult(carCount, ticks, frames[0], retries[0], publish, read, endToEnd);
+    }
+
+    /**
+     * Sets the amount of cars of the engine.
+     *
+     * @param carCount The amount of cars.
+     */
+    public void setCarCount(int carCount) {
+        if (carCount < 0) {
+            throw new IllegalArgumentException("The amount of cars can't be negative.");
+        }
+
+        this.carCount = carCount;
+    }
+
+    /**
+     * Sets the amount of ticks that are published.
+     *
+     * @param ticks The amount of ticks.
+     */
+    public void setTicks(int ticks) {
+        if (ticks < 1) {
+            throw new IllegalArgumentException("The amount of ticks must be positive.");
+        }
+
+        this.ticks = ticks;
+    }
+
+}
@@ -0,0 +1,113 @@
+package nl.soccar.physics.benchmark;
+
+import nl.soccar.physics.metrics.LatencyHistogram;
+
+/**
+ * A SharedSnapshotResult holds the results of a SharedSnapshotBenchmark.
+ *
+ * @author PTS34A
+ */
+public final class SharedSnapshotResult {
+
+    private final int carCount;
+    private final long published;
+    private final long read;
+    private final long retries;
+    private final LatencyHistogram publishLatency;
+    private final LatencyHistogram readLatency;
+    private final LatencyHistogram endToEndLatency;
+
+    /**
+     * Initiates a new SharedSnapshotResult using the given parameters.
+     *
+     * @param carCount        The amount of cars.
+     * @param published       The amount of published frames.
+     * @param read            The amount of frames the reader read.
+     * @param retries         The amount of reads that had to be retried.
+     * @param publishLatency  The time it took to publish a frame.
+     * @param readLatency     The time it took to read a frame.
+     * @param endToEndLatency The time from publishing a frame until it was read.
+     */
+    public SharedSnapshotResult(int carCount, long published, long read, long retries, LatencyHistogram publishLatency, LatencyHistogram readLatency, LatencyHistogram endToEndLatency) {
+        this.carCount = carCount;
+        this.published = published;
+        this.read = read;
+        this.retries = retries;
+        this.publishLatency = publishLatency;
+        this.readLatency = readLatency;
+        this.endToEndLatency = endToEndLatency;
+    }
+
+    /**
+     * Returns the amount of cars.
+     *
+     * @return The amount of cars.
+     */
+    public int getCarCount() {
+        return carCount;
+    }
+
+    /**
+     * Returns the amount of published frames.
+     *
+     * @return The amount of published frames.
+     */
+    public long getPublished() {
+        return published;
+    }
+
+    /**
+     * Returns the amount of frames the reader read. Frames that were
+     * overwritten before the reader got to them are skipped.
+     *
+     * @return The amount of frames read.
+     */
+    public long getRead() {
+        return read;
+    }
+
+    /**
+     * Returns the amount of reads that had to be retried because the writer
+     * was publishing at the same time.
+     *
+     * @return The amount of retries.
+     */
+    public long getRetries() {
+        return retries;
+    }
+
+    /**
+     * Returns the time it took to publish a frame.
+     *
+     * @return The publish latency.
+     */
+    public LatencyHistogram getPublishLatency() {
+        return publishLatency;
+    }
+
+    /**
+     * Returns the time it took to read a frame.
+     *
+     * @return The read latency.
+     */
+    public LatencyHistogram getReadLatency() {
+        return readLatency;
+    }
+
+    /**
+     * Returns the time from publishing a frame until the reader had it.
+     *
+     * @return The end-to-end latency.
+     */
+    public LatencyHistogram getEndToEndLatency() {
+        return endToEndLatency;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d cars, %d/%d frames read, %d retries: publish p99 %d ns, read p99 %d ns, end-to-end p99 %d ns",
+                carCount, read, published, retries,
+                publishLatency.getPercentile(99), readLatency.getPercentile(99), endToEndLatency.getPercentile(99));
+    }
+
+}
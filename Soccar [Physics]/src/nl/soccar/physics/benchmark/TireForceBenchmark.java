@@ -0,0 +1,125 @@
+package nl.soccar.physics.benchmark;
+
+import nl.soccar.physics.GameEngine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The TireForceBenchmark compares the wheel by wheel tire force path of the
+ * jbox2d backend with its batched path. For every car count, two identical
+ * deterministic engines are driven by the same input script, one per path.
+ * The engines are stepped in alternating windows, so both see the same JIT
+ * and cache conditions, and their state checksums are compared at the end.
+ *
+ * @author PTS34A
+ */
+public final class TireForceBenchmark {
+
+    private static final int[] CAR_COUNTS = {4, 8, 16, 32};
+
+    private final EngineFactory factory;
+    private final InputScript script;
+    private int warmUpTicks = 5_000;
+    private int ticks = 20_000;
+    private int windowTicks = 500;
+
+    /**
+     * Initiates a new TireForceBenchmark using the given parameters.
+     *
+     * @param factory The factory that creates the engines.
+     * @param script  The script that drives the cars.
+     */
+    public TireForceBenchmark(EngineFactory factory, InputScript script) {
+        this.factory = Objects.requireNonNull(factory);
+        this.script = Objects.requireNonNull(script);
+    }
+
+    /**
+     * Runs the benchmark for 4, 8, 16 and 32 cars.
+     *
+     * @return The results, one per car count.
+     */
+    public List<TireForceResult> run() {
+        List<TireForceResult> results = new ArrayList<>();
+        for (int carCount : CAR_COUNTS) {
+            results.add(run(carCount));
+        }
+        return results;
+    }
+
+    private TireForceResult run(int carCount) {
+        GameEngine scalar = create(carCount, false);
+        GameEngine batched = create(carCount, true);
+
+        try {
+            step(scalar, warmUpTicks);
+            step(batched, warmUpTicks);
+
+            long scalarNs = 0;
+            long batchedNs = 0;
+            for (int done = 0; done < ticks; done += windowTicks) {
+                scalarNs += step(scalar, windowTicks);
+                batchedNs += step(batched, windowTicks);
+            }
+
+            boolean identical = scalar.getTick() == batched.getTick() && scalar.getLastChecksum() == batched.getLastChecksum();
+            return new TireForceResult(carCount, carCount * 4, scalarNs / ticks, batchedNs / ticks, identical);
+        } finally {
+            scalar.stop();
+            batched.stop();
+        }
+    }
+
+    private GameEngine create(int carCount, boolean batching) {
+        GameEngine engine = factory.create(carCount);
+        engine.setDeterministic(true);
+        engine.setTireForceBatching(batching);
+        engine.startHeadless();
+        return engine;
+    }
+
+    /**
+     * Steps an engine the given amount of ticks.
+     *
+     * @param engine The engine.
+     * @param count  The amount of ticks.
+     * @return The time it took, in nanoseconds.
+     */
+    private long step(GameEngine engine, int count) {
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            script.apply(engine, engine.getTick() + 1);
+            engine.step();
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Sets the amount of ticks that are stepped before measuring.
+     *
+     * @param warmUpTicks The amount of warm-up ticks.
+     */
+    public void setWarmUpTicks(int warmUpTicks) {
+        if (warmUpTicks < 0) {
+            throw new IllegalArgumentException("The amount of warm-up ticks can't be negative.");
+        }
+
+        this.warmUpTicks = warmUpTicks;
+    }
+
+    /**
+     * Sets the amount of measured ticks per path and car count.
+     *
+     * @param ticks The amount of ticks, a multiple of the window size.
+     */
+    public void setTicks(int ticks) {
+        if (ticks < windowTicks || ticks % windowTicks != 0) {
+            throw new IllegalArgumentException("The amount of ticks must be a positive multiple of " + windowTicks + ".");
+        }
+
+        this.ticks = ticks;
+    }
+
+}
@@ -0,0 +1,85 @@
+package nl.soccar.physics.benchmark;
+
+/**
+ * A TireForceResult holds the results of a TireForceBenchmark for a single
+ * car count.
+ *
+ * @author PTS34A
+ */
+public final class TireForceResult {
+
+    private final int carCount;
+    private final int wheelCount;
+    private final long scalarTickNs;
+    private final long batchedTickNs;
+    private final boolean identical;
+
+    /**
+     * Initiates a new TireForceResult using the given parameters.
+     *
+     * @param carCount      The amount of cars.
+     * @param wheelCount    The amount of wheels.
+     * @param scalarTickNs  The mean tick time of the scalar path, in nanoseconds.
+     * @param batchedTickNs The mean tick time of the batched path, in nanoseconds.
+     * @param identical     Whether both paths ended in the same state.
+     */
+    public TireForceResult(int carCount, int wheelCount, long scalarTickNs, long batchedTickNs, boolean identical) {
+        this.carCount = carCount;
+        this.wheelCount = wheelCount;
+        this.scalarTickNs = scalarTickNs;
+        this.batchedTickNs = batchedTickNs;
+        this.identical = identical;
+    }
+
+    /**
+     * Returns the amount of cars.
+     *
+     * @return The amount of cars.
+     */
+    public int getCarCount() {
+        return carCount;
+    }
+
+    /**
+     * Returns the amount of wheels.
+     *
+     * @return The amount of wheels.
+     */
+    public int getWheelCount() {
+        return wheelCount;
+    }
+
+    /**
+     * Returns the mean tick time of the scalar path.
+     *
+     * @return The tick time in nanoseconds.
+     */
+    public long getScalarTickNs() {
+        return scalarTickNs;
+    }
+
+    /**
+     * Returns the mean tick time of the batched path.
+     *
+     * @return The tick time in nanoseconds.
+     */
+    public long getBatchedTickNs() {
+        return batchedTickNs;
+    }
+
+    /**
+     * Returns whether both paths ended in the same state, according to their
+     * state checksums.
+     *
+     * @return Whether both paths ended in the same state.
+     */
+    public boolean isIdentical() {
+        return identical;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d cars: scalar %d ns/tick, batched %d ns/tick, identical: %b", carCount, scalarTickNs, batchedTickNs, identical);
+    }
+
+}
@@ -0,0 +1,123 @@
+package nl.soccar.physics.benchmark;
+
+import nl.soccar.physics.GameEngine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The WarmUp runs synthetic headless matches at server boot, before the
+ * server takes traffic, so the engine, the physics models and the Box2D
+ * solver are compiled by the JIT before the first real match. Matches are
+ * stepped as fast as possible, in windows of a fixed amount of ticks, until
+ * the mean tick time of the last windows no longer changes.
+ *
+ * @author PTS34A
+ */
+public final class WarmUp {
+
+    private static final int[] CAR_COUNTS = {2, 4, 6, 8}; // Representative match sizes
+    private static final int WINDOW_TICKS = 2_000;
+    private static final int STABLE_WINDOWS = 3;
+    private static final double STABLE_TOLERANCE = 0.05;
+    private static final int RESET_INTERVAL = 5; // windows
+
+    private final EngineFactory factory;
+    private final InputScript script;
+    private long maxDurationMs = 30_000;
+
+    /**
+     * Initiates a new WarmUp using the given parameters.
+     *
+     * @param factory The factory that creates the synthetic matches.
+     * @param script  The script that drives the cars.
+     */
+    public WarmUp(EngineFactory factory, InputScript script) {
+        this.factory = Objects.requireNonNull(factory);
+        this.script = Objects.requireNonNull(script);
+    }
+
+    /**
+     * Runs the warm-up until the tick time is stable, or until the maximum
+     * duration has passed.
+     *
+     * @return The result of the warm-up.
+     */
+    public WarmUpResult run() {
+        long start = System.nanoTime();
+        long end = start + TimeUnit.MILLISECONDS.toNanos(maxDurationMs);
+
+        List<GameEngine> engines = new ArrayList<>();
+        for (int carCount : CAR_COUNTS) {
+            GameEngine engine = factory.create(carCount);
+            engine.startHeadless();
+            engines.add(engine);
+        }
+
+        double[] windows = new double[STABLE_WINDOWS];
+        int window = 0;
+        long ticks = 0;
+        boolean stable = false;
+
+        try {
+            while (!stable && System.nanoTime() < end) {
+                long windowStart = System.nanoTime();
+                for (int i = 0; i < WINDOW_TICKS; i++) {
+                    for (GameEngine engine : engines) {
+                        script.apply(engine, engine.getTick() + 1);
+                        engine.step();
+                    }
+                }
+
+                ticks += (long) WINDOW_TICKS * engines.size();
+                windows[window % STABLE_WINDOWS] = (double) (System.nanoTime() - windowStart) / (WINDOW_TICKS * engines.size());
+                window++;
+
+                stable = window >= STABLE_WINDOWS && isStable(windows);
+
+                // Warm up the reset path too, which runs after every goal.
+                if (window % RESET_INTERVAL == 0) {
+                    engines.forEach(GameEngine::resetWorldObjects);
+                }
+            }
+        } finally {
+            engines.forEach(GameEngine::stop);
+        }
+
+        double mean = 0;
+        for (double value : windows) {
+            mean += value;
+        }
+        mean /= Math.min(window, STABLE_WINDOWS);
+
+        long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        return new WarmUpResult(durationMs, (long) mean, ticks, stable);
+    }
+
+    private static boolean isStable(double[] windows) {
+        double min = Double.MAX_VALUE;
+        double max = 0;
+        for (double value : windows) {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+
+        return max - min <= max * STABLE_TOLERANCE;
+    }
+
+    /**
+     * Sets how long the warm-up may take at most.
+     *
+     * @param maxDurationMs The maximum duration in milliseconds.
+     */
+    public void setMaxDuration(long maxDurationMs) {
+        if (maxDurationMs <= 0) {
+            throw new IllegalArgumentException("The maximum duration must be positive.");
+        }
+
+        this.maxDurationMs = maxDurationMs;
+    }
+
+}
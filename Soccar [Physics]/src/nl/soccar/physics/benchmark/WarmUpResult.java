@@ -0,0 +1,72 @@
+package nl.soccar.physics.benchmark;
+
+/**
+ * A WarmUpResult holds the results of a WarmUp.
+ *
+ * @author PTS34A
+ */
+public final class WarmUpResult {
+
+    private final long durationMs;
+    private final long tickNs;
+    private final long ticks;
+    private final boolean stable;
+
+    /**
+     * Initiates a new WarmUpResult using the given parameters.
+     *
+     * @param durationMs How long the warm-up took, in milliseconds.
+     * @param tickNs     The mean tick time the warm-up ended at, in nanoseconds.
+     * @param ticks      The amount of ticks that have been stepped.
+     * @param stable     Whether the tick time stabilized before the maximum duration.
+     */
+    public WarmUpResult(long durationMs, long tickNs, long ticks, boolean stable) {
+        this.durationMs = durationMs;
+        this.tickNs = tickNs;
+        this.ticks = ticks;
+        this.stable = stable;
+    }
+
+    /**
+     * Returns how long the warm-up took.
+     *
+     * @return The duration in milliseconds.
+     */
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    /**
+     * Returns the mean tick time the warm-up ended at.
+     *
+     * @return The tick time in nanoseconds.
+     */
+    public long getTickNs() {
+        return tickNs;
+    }
+
+    /**
+     * Returns the amount of ticks that have been stepped.
+     *
+     * @return The amount of ticks.
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Returns whether the tick time stabilized before the maximum duration.
+     *
+     * @return Whether the tick time is stable.
+     */
+    public boolean isStable() {
+        return stable;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Warm-up %s after %d ms and %d ticks, at %.1f us per tick",
+                stable ? "stabilized" : "gave up", durationMs, ticks, tickNs / 1000.0);
+    }
+
+}
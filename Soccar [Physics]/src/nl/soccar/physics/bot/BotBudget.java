@@ -0,0 +1,81 @@
+package nl.soccar.physics.bot;
+
+/**
+ * A BotBudget is the CPU budget for bot decisions of one engine worker. Every
+ * engine on the worker steps once per tick period, on the same thread, so the
+ * bot schedulers of those engines draw from this single ledger instead of
+ * each spending a full budget of their own. The ledger is refilled at the
+ * start of every tick period.
+ *
+ * @author PTS34A
+ */
+public final class BotBudget {
+
+    private final long periodNs;
+    private long tickBudgetNs;
+    private long periodStart;
+    private long spentNs = 0;
+
+    /**
+     * Initiates a new BotBudget using the given parameters.
+     *
+     * @param tickBudgetNs The CPU budget of all bot decisions in one tick period, in nanoseconds.
+     * @param periodNs     The length of a tick period, in nanoseconds.
+     */
+    public BotBudget(long tickBudgetNs, long periodNs) {
+        if (periodNs <= 0) {
+            throw new IllegalArgumentException("The tick period must be positive.");
+        }
+
+        this.periodNs = periodNs;
+        setTickBudget(tickBudgetNs);
+        periodStart = System.nanoTime() - periodNs;
+    }
+
+    /**
+     * Returns how much of the budget of the current tick period is left.
+     *
+     * @param nowNs The current moment, as System.nanoTime().
+     * @return The remaining budget in nanoseconds, which is negative when the budget has been overspent.
+     */
+    public synchronized long remaining(long nowNs) {
+        if (nowNs - periodStart >= periodNs) {
+            periodStart = nowNs;
+            spentNs = 0;
+        }
+
+        return tickBudgetNs - spentNs;
+    }
+
+    /**
+     * Charges the time spent on bot decisions to the current tick period.
+     *
+     * @param ns The time spent, in nanoseconds.
+     */
+    public synchronized void charge(long ns) {
+        spentNs += ns;
+    }
+
+    /**
+     * Sets the CPU budget of all bot decisions in one tick period.
+     *
+     * @param tickBudgetNs The budget in nanoseconds.
+     */
+    public synchronized void setTickBudget(long tickBudgetNs) {
+        if (tickBudgetNs <= 0) {
+            throw new IllegalArgumentException("The tick budget must be positive.");
+        }
+
+        this.tickBudgetNs = tickBudgetNs;
+    }
+
+    /**
+     * Returns the CPU budget of all bot decisions in one tick period.
+     *
+     * @return The budget in nanoseconds.
+     */
+    public synchronized long getTickBudget() {
+        return tickBudgetNs;
+    }
+
+}
@@ -0,0 +1,26 @@
+package nl.soccar.physics.bot;
+
+import nl.soccar.physics.GameEngine;
+import nl.soccar.physics.models.CarPhysics;
+
+/**
+ * A BotController drives a car from inside the engine tick. It reads the
+ * engine state directly and decides on the steer, throttle and handbrake
+ * actions of the car it controls.
+ *
+ * @author PTS34A
+ */
+@FunctionalInterface
+public interface BotController {
+
+    /**
+     * Decides on the next actions of the given car. This method is called on
+     * the engine thread, at the decision rate of the BotScheduler, and should
+     * return quickly.
+     *
+     * @param engine The engine in which the car is placed.
+     * @param car    The car this controller drives.
+     */
+    void decide(GameEngine engine, CarPhysics car);
+
+}
@@ -0,0 +1,262 @@
+package nl.soccar.physics.bot;
+
+import nl.soccar.physics.GameEngine;
+import nl.soccar.physics.PhysicsConstants;
+import nl.soccar.physics.models.CarPhysics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The BotScheduler runs the decisions of all bots of an engine. Bots re-plan
+ * once every decision interval, and their decisions are staggered across the
+ * ticks of that interval so no single tick pays for every bot at once. All
+ * decisions of a single tick draw from a CPU budget, which the schedulers of
+ * all engines on the same worker share; bots that do not fit in the budget
+ * are deferred to the next tick.
+ *
+ * @author PTS34A
+ */
+public final class BotScheduler {
+
+    private final List<Bot> bots = new ArrayList<>();
+    private final BotBudget budget;
+    private int decisionInterval;
+    private boolean budgeted = true;
+    private int[] phaseLoad;
+    private int cursor = 0;
+    private long deferredDecisions = 0;
+
+    /**
+     * Initiates a new BotScheduler with the default decision interval and a
+     * tick budget of its own.
+     */
+    public BotScheduler() {
+        this(PhysicsConstants.BOT_DECISION_INTERVAL, PhysicsConstants.BOT_TICK_BUDGET_NS);
+    }
+
+    /**
+     * Initiates a new BotScheduler with a tick budget of its own.
+     *
+     * @param decisionInterval The amount of ticks between two decisions of the same bot.
+     * @param tickBudgetNs     The CPU budget of all bot decisions in one tick, in nanoseconds.
+     */
+    public BotScheduler(int decisionInterval, long tickBudgetNs) {
+        this(decisionInterval, new BotBudget(tickBudgetNs, PhysicsConstants.ENGINE_TICK_PERIOD_NS));
+    }
+
+    /**
+     * Initiates a new BotScheduler that draws from the given budget, which may
+     * be shared with other schedulers.
+     *
+     * @param decisionInterval The amount of ticks between two decisions of the same bot.
+     * @param budget           The budget of the bot decisions.
+     */
+    public BotScheduler(int decisionInterval, BotBudget budget) {
+        this.budget = Objects.requireNonNull(budget);
+        setDecisionInterval(decisionInterval);
+    }
+
+    /**
+     * Adds a bot that drives the given car.
+     *
+     * @param car        The car the bot drives.
+     * @param controller The controller that makes the decisions.
+     */
+    public synchronized void add(CarPhysics car, BotController controller) {
+        Objects.requireNonNull(car);
+        Objects.requireNonNull(controller);
+
+        remove(car);
+        bots.add(new Bot(car, controller, leastLoadedPhase()));
+    }
+
+    /**
+     * Removes the bot that drives the given car, if any.
+     *
+     * @param car The car the bot drives.
+     */
+    public synchronized void remove(CarPhysics car) {
+        for (int i = 0; i < bots.size(); i++) {
+            Bot bot = bots.get(i);
+            if (bot.car == car) {
+                phaseLoad[bot.phase]--;
+                bots.remove(i);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Runs the decisions of all bots that are due in the given tick. At least
+     * one decision is made per tick, so every bot makes progress even when a
+     * single decision exceeds the budget, or other engines on the worker have
+     * spent it already.
+     *
+     * @param engine The engine the bots are placed in.
+     * @param tick   The current tick number.
+     */
+    public synchronized void tick(GameEngine engine, long tick) {
+        int size = bots.size();
+        if (size == 0) {
+            return;
+        }
+
+        int phase = (int) (tick % decisionInterval);
+        long start = System.nanoTime();
+        long available = budgeted ? budget.remaining(start) : Long.MAX_VALUE;
+        boolean decided = false;
+
+        if (cursor >= size) {
+            cursor = 0;
+        }
+
+        for (int i = 0; i < size; i++) {
+            Bot bot = bots.get((cursor + i) % size);
+            if (!bot.deferred && bot.phase != phase) {
+                continue;
+            }
+
+            if (decided && System.nanoTime() - start >= available) {
+                if (!bot.deferred) {
+                    bot.deferred = true;
+                    deferredDecisions++;
+                }
+                continue;
+            }
+
+            bot.deferred = false;
+            bot.controller.decide(engine, bot.car);
+            decided = true;
+        }
+
+        if (decided && budgeted) {
+            budget.charge(System.nanoTime() - start);
+        }
+
+        // Start with a different bot next tick, so the budget is shared fairly.
+        cursor++;
+    }
+
+    /**
+     * Sets the amount of ticks between two decisions of the same bot. The bots
+     * are redistributed over the ticks of the new interval.
+     *
+     * @param decisionInterval The amount of ticks between two decisions.
+     */
+    public synchronized void setDecisionInterval(int decisionInterval) {
+        if (decisionInterval < 1) {
+            throw new IllegalArgumentException("The decision interval must be at least one tick.");
+        }
+
+        this.decisionInterval = decisionInterval;
+        phaseLoad = new int[decisionInterval];
+        bots.forEach(b -> b.phase = leastLoadedPhase());
+    }
+
+    /**
+     * Sets the CPU budget of all bot decisions in one tick. The budget may be
+     * shared with the schedulers of other engines, which then get the new
+     * budget as well.
+     *
+     * @param tickBudgetNs The budget in nanoseconds.
+     */
+    public void setTickBudget(long tickBudgetNs) {
+        budget.setTickBudget(tickBudgetNs);
+    }
+
+    /**
+     * Sets whether the decisions are limited by the budget. Unbudgeted
+     * decisions are not charged to the budget either, so they don't take
+     * anything away from the other schedulers that share it.
+     *
+     * @param budgeted Whether the decisions are limited by the budget.
+     */
+    public synchronized void setBudgeted(boolean budgeted) {
+        this.budgeted = budgeted;
+    }
+
+    /**
+     * Returns the amount of ticks between two decisions of the same bot.
+     *
+     * @return The decision interval in ticks.
+     */
+    public synchronized int getDecisionInterval() {
+        return decisionInterval;
+    }
+
+    /**
+     * Returns the CPU budget of all bot decisions in one tick.
+     *
+     * @return The budget in nanoseconds.
+     */
+    public long getTickBudget() {
+        return budget.getTickBudget();
+    }
+
+    /**
+     * Returns the budget the decisions draw from.
+     *
+     * @return The budget.
+     */
+    public BotBudget getBudget() {
+        return budget;
+    }
+
+    /**
+     * Returns how many decisions were deferred because the tick budget was
+     * exhausted.
+     *
+     * @return The amount of deferred decisions.
+     */
+    public synchronized long getDeferredDecisions() {
+        return deferredDecisions;
+    }
+
+    /**
+     * Returns the amount of bots.
+     *
+     * @return The amount of bots.
+     */
+    public synchronized int size() {
+        return bots.size();
+    }
+
+    /**
+     * Finds the phase with the least bots, and claims it.
+     *
+     * @return The claimed phase.
+     */
+    private int leastLoadedPhase() {
+        int phase = 0;
+        for (int i = 1; i < phaseLoad.length; i++) {
+            if (phaseLoad[i] < phaseLoad[phase]) {
+                phase = i;
+            }
+        }
+
+        phaseLoad[phase]++;
+        return phase;
+    }
+
+    /**
+     * Holds a controller together with the car it drives and its place in the
+     * decision schedule.
+     */
+    private static final class Bot {
+
+        private final CarPhysics car;
+        private final BotController controller;
+        private int phase;
+        private boolean deferred = false;
+
+        private Bot(CarPhysics car, BotController controller, int phase) {
+            this.car = car;
+            this.controller = controller;
+            this.phase = phase;
+        }
+
+    }
+
+}
@@ -0,0 +1,81 @@
+package nl.soccar.physics.checkpoint;
+
+import org.jbox2d.common.Vec2;
+import org.jbox2d.dynamics.Body;
+
+import java.nio.ByteBuffer;
+
+/**
+ * BodyState writes and reads the state of a Box2D body: its transform, its
+ * sweep, its velocities and whether, and for how long, it has been resting.
+ * Floats are written as raw bits, so a restored body continues exactly where
+ * the original left off.
+ *
+ * @author PTS34A
+ */
+public final class BodyState {
+
+    /**
+     * The amount of bytes written per body.
+     */
+    public static final int SIZE = 12 * Float.BYTES + Byte.BYTES;
+
+    private BodyState() {
+    }
+
+    /**
+     * Writes the state of a body.
+     *
+     * @param body The body.
+     * @param out  The buffer to write to.
+     */
+    public static void write(Body body, ByteBuffer out) {
+        out.putFloat(body.getPosition().x);
+        out.putFloat(body.getPosition().y);
+        out.putFloat(body.getAngle());
+        out.putFloat(body.m_sweep.c0.x);
+        out.putFloat(body.m_sweep.c0.y);
+        out.putFloat(body.m_sweep.a0);
+        out.putFloat(body.m_sweep.c.x);
+        out.putFloat(body.m_sweep.c.y);
+        out.putFloat(body.getLinearVelocity().x);
+        out.putFloat(body.getLinearVelocity().y);
+        out.putFloat(body.getAngularVelocity());
+        out.putFloat(body.m_sleepTime);
+        out.put((byte) (body.isAwake() ? 1 : 0));
+    }
+
+    /**
+     * Reads the state of a body, as written by write.
+     *
+     * @param body The body to restore.
+     * @param in   The buffer to read from.
+     */
+    public static void read(Body body, ByteBuffer in) {
+        float x = in.getFloat();
+        float y = in.getFloat();
+        float angle = in.getFloat();
+        float c0x = in.getFloat();
+        float c0y = in.getFloat();
+        float a0 = in.getFloat();
+        float cx = in.getFloat();
+        float cy = in.getFloat();
+        float linearVelocityX = in.getFloat();
+        float linearVelocityY = in.getFloat();
+        float angularVelocity = in.getFloat();
+        float sleepTime = in.getFloat();
+        boolean awake = in.get() == 1;
+
+        body.setTransform(new Vec2(x, y), angle);
+        body.m_sweep.c0.set(c0x, c0y);
+        body.m_sweep.a0 = a0;
+        body.m_sweep.c.set(cx, cy);
+
+        // Putting a body to sleep clears its velocities, so set them afterwards.
+        body.setAwake(awake);
+        body.m_linearVelocity.set(linearVelocityX, linearVelocityY);
+        body.m_angularVelocity = angularVelocity;
+        body.m_sleepTime = sleepTime;
+    }
+
+}
@@ -0,0 +1,27 @@
+package nl.soccar.physics.checkpoint;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A Checkpointable is a physics-model that can write its complete state to a
+ * buffer, and read it back into a freshly created model of the same kind.
+ *
+ * @author PTS34A
+ */
+public interface Checkpointable {
+
+    /**
+     * Writes the state of this model.
+     *
+     * @param out The buffer to write to.
+     */
+    void writeState(ByteBuffer out);
+
+    /**
+     * Reads the state of this model, as written by writeState.
+     *
+     * @param in The buffer to read from.
+     */
+    void readState(ByteBuffer in);
+
+}
@@ -0,0 +1,69 @@
+package nl.soccar.physics.checkpoint;
+
+import nl.soccar.physics.WorldObject;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * WorldState writes and reads the state of a list of world objects: the
+ * amount of objects, and per object whether it has a state, followed by that
+ * state. World objects that are not Checkpointable, such as static geometry,
+ * only get their flag.
+ * <p>
+ * Contacts, and the impulses the solver warm starts them with, belong to the
+ * backend and are not part of the state. Worlds that read the same state into
+ * a freshly built world continue exactly like each other; the writer keeps its
+ * contacts, so while bodies touch it may differ from them in the last bits.
+ *
+ * @author PTS34A
+ */
+public final class WorldState {
+
+    private WorldState() {
+    }
+
+    /**
+     * Writes the state of the given world objects, in their order.
+     *
+     * @param objects The world objects.
+     * @param out     The buffer to write to.
+     */
+    public static void write(List<WorldObject> objects, ByteBuffer out) {
+        out.putInt(objects.size());
+        for (WorldObject object : objects) {
+            if (object instanceof Checkpointable) {
+                out.put((byte) 1);
+                ((Checkpointable) object).writeState(out);
+            } else {
+                out.put((byte) 0);
+            }
+        }
+    }
+
+    /**
+     * Reads the state written by write into the given world objects, which
+     * must be the same kind of objects in the same order.
+     *
+     * @param objects The world objects.
+     * @param in      The buffer to read from.
+     */
+    public static void read(List<WorldObject> objects, ByteBuffer in) {
+        int objectCount = in.getInt();
+        if (objectCount != objects.size()) {
+            throw new IllegalStateException("The state has " + objectCount + " world objects, the world has " + objects.size() + ".");
+        }
+
+        for (WorldObject object : objects) {
+            boolean hasState = in.get() == 1;
+            if (hasState != object instanceof Checkpointable) {
+                throw new IllegalStateException("The world objects of the state do not match those of the world.");
+            }
+
+            if (hasState) {
+                ((Checkpointable) object).readState(in);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,373 @@
+package nl.soccar.physics.diagnostics;
+
+import nl.soccar.physics.PhysicsConstants;
+import nl.soccar.physics.WorldObject;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The FlightRecorder keeps the phase timings, body and contact counts, the
+ * amount of pending inputs and the garbage collection activity of the last
+ * ticks of an engine in a preallocated ring. When a tick exceeds the
+ * threshold, the ring and the state of all world objects are dumped to a
+ * file on a background thread, so rare hitches can be diagnosed afterwards.
+ * <p>
+ * The recorder is on until it is disabled. It makes at most one dump per
+ * dump interval, keeps only the newest dumps it wrote and cuts off a dump
+ * that grows past the maximum size. The garbage collectors are sampled every
+ * few ticks instead of every tick, as asking them is not free.
+ *
+ * @author PTS34A
+ */
+public final class FlightRecorder {
+
+    /**
+     * The phases of a tick.
+     */
+    public static final int PHASE_INPUT = 0;
+    public static final int PHASE_WORLD = 1;
+    public static final int PHASE_OBJECTS = 2;
+    public static final int PHASE_LISTENERS = 3;
+    private static final int PHASES = 4;
+    private static final String[] PHASE_NAMES = {"input", "world", "objects", "listeners"};
+
+    private static final Logger LOGGER = Logger.getLogger(FlightRecorder.class.getSimpleName());
+    private static final GarbageCollectorMXBean[] COLLECTORS = ManagementFactory.getGarbageCollectorMXBeans().toArray(new GarbageCollectorMXBean[0]);
+    private static final ExecutorService DUMPER = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "flight-recorder-dump");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final int capacity;
+    private final long[] ticks;
+    private final long[] phases;
+    private final long[] durations;
+    private final int[] bodies;
+    private final int[] contacts;
+    private final int[] pendingInputs;
+    private final long[] gcCounts;
+    private final long[] gcTimes;
+    private int head = -1;
+    private int size = 0;
+
+    private long tickStart;
+    private long phaseStart;
+    private boolean recording = false; // Whether the current tick is recorded
+    private int ticksSinceGcSample = 0;
+    private long gcCount = 0;
+    private long gcTime = 0;
+
+    private volatile boolean enabled = true;
+    private volatile long thresholdNs = TimeUnit.MILLISECONDS.toNanos(PhysicsConstants.FLIGHT_RECORDER_THRESHOLD);
+    private volatile Path directory = Paths.get(System.getProperty("java.io.tmpdir"));
+    private volatile int maxDumps = PhysicsConstants.FLIGHT_RECORDER_MAX_DUMPS;
+    private volatile long maxDumpSize = PhysicsConstants.FLIGHT_RECORDER_MAX_DUMP_SIZE;
+    private final long dumpIntervalNs = TimeUnit.MILLISECONDS.toNanos(PhysicsConstants.FLIGHT_RECORDER_DUMP_INTERVAL);
+    private long lastDumpNs;
+    private long dumps = 0;
+    private final Deque<Path> written = new ArrayDeque<>(); // Only used on the dump thread
+
+    /**
+     * Initiates a new FlightRecorder that remembers the given amount of ticks.
+     *
+     * @param capacity The amount of ticks to remember.
+     */
+    public FlightRecorder(int capacity) {
+        this.capacity = capacity;
+
+        ticks = new long[capacity];
+        phases = new long[capacity * PHASES];
+        durations = new long[capacity];
+        bodies = new int[capacity];
+        contacts = new int[capacity];
+        pendingInputs = new int[capacity];
+        gcCounts = new long[capacity];
+        gcTimes = new long[capacity];
+
+        lastDumpNs = System.nanoTime() - dumpIntervalNs; // The first slow tick may be dumped right away
+    }
+
+    /**
+     * Marks the start of a tick. Nothing is recorded for this tick if the
+     * recorder is disabled.
+     *
+     * @param tick The number of the tick.
+     */
+    public void begin(long tick) {
+        recording = enabled;
+        if (!recording) {
+            return;
+        }
+
+        head = (head + 1) % capacity;
+        size = Math.min(size + 1, capacity);
+
+        ticks[head] = tick;
+        Arrays.fill(phases, head * PHASES, (head + 1) * PHASES, 0);
+
+        tickStart = System.nanoTime();
+        phaseStart = tickStart;
+    }
+
+    /**
+     * Marks the end of a phase of the current tick. The time since the end of
+     * the previous phase is added to the given phase.
+     *
+     * @param phase The phase that ended.
+     */
+    public void mark(int phase) {
+        if (!recording) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        phases[head * PHASES + phase] += now - phaseStart;
+        phaseStart = now;
+    }
+
+    /**
+     * Marks the end of the current tick, and dumps the recorded ticks if this
+     * tick exceeded the threshold.
+     *
+     * @param bodyCount    The amount of bodies in the world.
+     * @param contactCount The amount of contacts in the world.
+     * @param inputCount   The amount of pending inputs.
+     * @param objects      The world objects, whose state is dumped.
+     */
+    public void end(int bodyCount, int contactCount, int inputCount, List<WorldObject> objects) {
+        if (!recording) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        durations[head] = now - tickStart;
+        bodies[head] = bodyCount;
+        contacts[head] = contactCount;
+        pendingInputs[head] = inputCount;
+
+        // Limit dumps to one per interval, a hitch often spans several ticks.
+        boolean dump = durations[head] > thresholdNs && now - lastDumpNs >= dumpIntervalNs;
+        if (dump || ++ticksSinceGcSample >= PhysicsConstants.FLIGHT_RECORDER_GC_SAMPLE_INTERVAL) {
+            sampleCollectors();
+        }
+        gcCounts[head] = gcCount;
+        gcTimes[head] = gcTime;
+
+        if (dump) {
+            lastDumpNs = now;
+            dumps++;
+            dump(objects);
+        }
+    }
+
+    /**
+     * Returns whether the current tick is being recorded. The caller can skip
+     * gathering the counts for {@link #end} when it is not.
+     *
+     * @return Whether the current tick is being recorded.
+     */
+    public boolean isRecording() {
+        return recording;
+    }
+
+    private void sampleCollectors() {
+        long count = 0;
+        long time = 0;
+        for (GarbageCollectorMXBean collector : COLLECTORS) {
+            count += Math.max(0, collector.getCollectionCount());
+            time += Math.max(0, collector.getCollectionTime());
+        }
+
+        gcCount = count;
+        gcTime = time;
+        ticksSinceGcSample = 0;
+    }
+
+    /**
+     * Copies the ring and the state of the world objects, and writes them to
+     * a file on the background thread.
+     *
+     * @param objects The world objects.
+     */
+    private void dump(List<WorldObject> objects) {
+        int count = size;
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = (head - count + 1 + i + capacity) % capacity;
+        }
+
+        long[] ticksCopy = ticks.clone();
+        long[] phasesCopy = phases.clone();
+        long[] durationsCopy = durations.clone();
+        int[] bodiesCopy = bodies.clone();
+        int[] contactsCopy = contacts.clone();
+        int[] inputsCopy = pendingInputs.clone();
+        long[] gcCountsCopy = gcCounts.clone();
+        long[] gcTimesCopy = gcTimes.clone();
+
+        float[] state = new float[objects.size() * 3];
+        String[] names = new String[objects.size()];
+        for (int i = 0; i < objects.size(); i++) {
+            WorldObject object = objects.get(i);
+            names[i] = object.getClass().getSimpleName();
+            state[i * 3] = object.getX();
+            state[i * 3 + 1] = object.getY();
+            state[i * 3 + 2] = object.getDegree();
+        }
+
+        Path file = directory.resolve("flight-" + ticks[head] + "-" + System.currentTimeMillis() + ".txt");
+        int keep = maxDumps;
+        long limit = maxDumpSize;
+        DUMPER.execute(() -> {
+            try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+                written.addLast(file);
+
+                long size = 0;
+                String header = "# tick duration_us " + String.join("_us ", PHASE_NAMES) + "_us bodies contacts pending_inputs gc_count gc_ms";
+                out.println(header);
+                size += header.length() + 1;
+                for (int index : order) {
+                    StringBuilder line = new StringBuilder();
+                    line.append(ticksCopy[index]).append(' ').append(durationsCopy[index] / 1000);
+                    for (int phase = 0; phase < PHASES; phase++) {
+                        line.append(' ').append(phasesCopy[index * PHASES + phase] / 1000);
+                    }
+                    line.append(' ').append(bodiesCopy[index]).append(' ').append(contactsCopy[index])
+                            .append(' ').append(inputsCopy[index]).append(' ').append(gcCountsCopy[index])
+                            .append(' ').append(gcTimesCopy[index]);
+                    out.println(line);
+                    size += line.length() + 1;
+                }
+
+                out.println("# object x y degree");
+                for (int i = 0; i < names.length; i++) {
+                    String line = names[i] + ' ' + state[i * 3] + ' ' + state[i * 3 + 1] + ' ' + state[i * 3 + 2];
+                    if (size + line.length() + 1 > limit) {
+                        out.println("# truncated, " + (names.length - i) + " objects left out");
+                        break;
+                    }
+
+                    out.println(line);
+                    size += line.length() + 1;
+                }
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to write a flight recording.", e);
+            }
+
+            removeOldDumps(keep);
+        });
+    }
+
+    /**
+     * Deletes the oldest dumps this recorder wrote until at most the given
+     * amount is left. Runs on the dump thread.
+     *
+     * @param keep The amount of dumps to keep.
+     */
+    private void removeOldDumps(int keep) {
+        while (written.size() > keep) {
+            Path oldest = written.removeFirst();
+            try {
+                Files.deleteIfExists(oldest);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to remove an old flight recording.", e);
+            }
+        }
+    }
+
+    /**
+     * Enables or disables the recorder. It is enabled by default; a change
+     * takes effect from the next tick.
+     *
+     * @param enabled Whether ticks are recorded and slow ticks are dumped.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Returns whether the recorder is enabled.
+     *
+     * @return Whether the recorder is enabled.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets the tick duration above which the recorded ticks are dumped.
+     *
+     * @param thresholdNs The threshold in nanoseconds.
+     */
+    public void setThreshold(long thresholdNs) {
+        if (thresholdNs <= 0) {
+            throw new IllegalArgumentException("The threshold must be positive.");
+        }
+
+        this.thresholdNs = thresholdNs;
+    }
+
+    /**
+     * Sets the amount of dumps that are kept. Once more dumps have been
+     * written, the oldest ones are deleted.
+     *
+     * @param maxDumps The amount of dumps.
+     */
+    public void setMaxDumps(int maxDumps) {
+        if (maxDumps < 1) {
+            throw new IllegalArgumentException("At least one dump must be kept.");
+        }
+
+        this.maxDumps = maxDumps;
+    }
+
+    /**
+     * Sets the size a dump may grow to. The state of the world objects that
+     * does not fit is left out.
+     *
+     * @param maxDumpSize The size in bytes.
+     */
+    public void setMaxDumpSize(long maxDumpSize) {
+        if (maxDumpSize <= 0) {
+            throw new IllegalArgumentException("The dump size must be positive.");
+        }
+
+        this.maxDumpSize = maxDumpSize;
+    }
+
+    /**
+     * Sets the directory the dumps are written to.
+     *
+     * @param directory The directory.
+     */
+    public void setDirectory(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the amount of dumps that have been made.
+     *
+     * @return The amount of dumps.
+     */
+    public long getDumps() {
+        return dumps;
+    }
+
+}
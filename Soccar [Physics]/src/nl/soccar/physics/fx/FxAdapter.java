@@ -0,0 +1,83 @@
+package nl.soccar.physics.fx;
+
+import javafx.geometry.Point2D;
+import javafx.scene.shape.Rectangle;
+import nl.soccar.library.Map;
+import nl.soccar.physics.GoalBounds;
+import nl.soccar.physics.models.BoostTrail;
+import nl.soccar.physics.models.CarPhysics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The FxAdapter converts between the JavaFX types of the library and the UI,
+ * and the plain data the physics engine works with. It is the only class of
+ * the physics module that uses JavaFX; a headless server that sets the goals
+ * of its engines explicitly never loads it.
+ *
+ * @author PTS34A
+ */
+public final class FxAdapter {
+
+    private FxAdapter() {
+    }
+
+    /**
+     * Converts a JavaFX rectangle into goal bounds.
+     *
+     * @param rectangle The rectangle.
+     * @return The goal bounds.
+     */
+    public static GoalBounds toGoalBounds(Rectangle rectangle) {
+        return new GoalBounds((float) rectangle.getX(), (float) rectangle.getY(), (float) rectangle.getWidth(), (float) rectangle.getHeight());
+    }
+
+    /**
+     * Returns the bounds of the blue goal of a map.
+     *
+     * @param map The map.
+     * @return The bounds of the blue goal.
+     */
+    public static GoalBounds getGoalBlue(Map map) {
+        return toGoalBounds(map.getGoalBlue());
+    }
+
+    /**
+     * Returns the bounds of the red goal of a map.
+     *
+     * @param map The map.
+     * @return The bounds of the red goal.
+     */
+    public static GoalBounds getGoalRed(Map map) {
+        return toGoalBounds(map.getGoalRed());
+    }
+
+    /**
+     * Converts a boost trail into a list of points, oldest first.
+     *
+     * @param trail The boost trail.
+     * @return The points of the trail.
+     */
+    public static List<Point2D> toPoints(BoostTrail trail) {
+        List<Point2D> points = new ArrayList<>(trail.size());
+        for (int i = 0; i < trail.size(); i++) {
+            points.add(new Point2D(trail.getX(i), trail.getY(i)));
+        }
+        return points;
+    }
+
+    /**
+     * Returns the boost trail of a car as a list of points, oldest first, the
+     * way CarPhysics.getTrail() used to. The trail is copied into new points
+     * on every call, so callers that draw every frame should read
+     * CarPhysics.getBoostTrail() instead.
+     *
+     * @param car The car.
+     * @return The points of the boost trail of the car.
+     */
+    public static List<Point2D> trailOf(CarPhysics car) {
+        return toPoints(car.getBoostTrail());
+    }
+
+}
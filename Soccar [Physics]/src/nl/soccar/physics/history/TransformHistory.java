@@ -0,0 +1,355 @@
+package nl.soccar.physics.history;
+
+import nl.soccar.physics.models.BallPhysics;
+import nl.soccar.physics.models.CarPhysics;
+import org.jbox2d.common.Vec2;
+
+import java.util.Arrays;
+
+/**
+ * The TransformHistory remembers the transforms of the ball and all cars for
+ * the last ticks, so the engine can rewind a query to the moment a client saw
+ * the world. All transforms are stored in preallocated primitive arrays, so
+ * its memory is bounded and neither recording nor querying allocates. The
+ * arrays only grow when more cars are added than there are slots for.
+ *
+ * @author PTS34A
+ */
+public final class TransformHistory {
+
+    private static final int STRIDE = 3; // x, y and angle (in radians)
+
+    private final int capacity;
+    private final long[] ticks;
+    private final long[] times;
+    private final float[] ball;
+    private CarPhysics[] slots;
+    private float[] cars;
+    private final float[] carA = new float[STRIDE];
+    private final float[] carB = new float[STRIDE];
+    private float ballRadius = 0;
+    private int head = -1;
+    private int size = 0;
+
+    /**
+     * Initiates a new TransformHistory using the given parameters.
+     *
+     * @param capacity The amount of ticks to remember.
+     * @param carSlots The amount of cars to make room for up front.
+     */
+    public TransformHistory(int capacity, int carSlots) {
+        if (carSlots < 1) {
+            throw new IllegalArgumentException("At least one car slot is required.");
+        }
+
+        this.capacity = capacity;
+
+        slots = new CarPhysics[carSlots];
+        ticks = new long[capacity];
+        times = new long[capacity];
+        ball = new float[capacity * STRIDE];
+        cars = new float[capacity * carSlots * STRIDE];
+    }
+
+    /**
+     * Starts remembering the transforms of a car. When every slot is taken,
+     * the amount of slots is doubled.
+     *
+     * @param car The car to remember.
+     */
+    public synchronized void addCar(CarPhysics car) {
+        if (slotOf(car) >= 0) {
+            return;
+        }
+
+        int slot = slotOf(null);
+        if (slot < 0) {
+            slot = slots.length;
+            grow(slots.length * 2);
+        }
+
+        slots[slot] = car;
+        clearSlot(slot);
+    }
+
+    /**
+     * Makes room for more cars, keeping the remembered transforms of the cars
+     * that are already remembered.
+     *
+     * @param carSlots The new amount of slots.
+     */
+    private void grow(int carSlots) {
+        float[] grown = new float[capacity * carSlots * STRIDE];
+        Arrays.fill(grown, Float.NaN);
+
+        int rowLength = slots.length * STRIDE;
+        for (int frame = 0; frame < capacity; frame++) {
+            System.arraycopy(cars, frame * rowLength, grown, frame * carSlots * STRIDE, rowLength);
+        }
+
+        slots = Arrays.copyOf(slots, carSlots);
+        cars = grown;
+    }
+
+    /**
+     * Returns the amount of cars there is room for without growing.
+     *
+     * @return The amount of car slots.
+     */
+    public synchronized int getCarSlots() {
+        return slots.length;
+    }
+
+    /**
+     * Stops remembering the transforms of a car.
+     *
+     * @param car The car to forget.
+     */
+    public synchronized void removeCar(CarPhysics car) {
+        int slot = slotOf(car);
+        if (slot >= 0) {
+            slots[slot] = null;
+            clearSlot(slot);
+        }
+    }
+
+    /**
+     * Forgets all remembered ticks, for example because all objects have been
+     * moved back to their original position.
+     */
+    public synchronized void clear() {
+        head = -1;
+        size = 0;
+    }
+
+    /**
+     * Remembers the current transforms of the ball and all cars.
+     *
+     * @param tick   The number of the tick.
+     * @param timeMs The time of the tick, in milliseconds.
+     * @param ball   The ball, or null if there is none.
+     */
+    public synchronized void record(long tick, long timeMs, BallPhysics ball) {
+        head = (head + 1) % capacity;
+        size = Math.min(size + 1, capacity);
+
+        ticks[head] = tick;
+        times[head] = timeMs;
+
+        int offset = head * STRIDE;
+        if (ball != null) {
+            ballRadius = ball.getRadius();
+            this.ball[offset] = ball.getX();
+            this.ball[offset + 1] = ball.getY();
+            this.ball[offset + 2] = (float) Math.toRadians(ball.getDegree());
+        } else {
+            Arrays.fill(this.ball, offset, offset + STRIDE, Float.NaN);
+        }
+
+        for (int slot = 0; slot < slots.length; slot++) {
+            int carOffset = carOffset(head, slot);
+            CarPhysics car = slots[slot];
+            if (car == null || car.isResetting()) {
+                Arrays.fill(cars, carOffset, carOffset + STRIDE, Float.NaN);
+                continue;
+            }
+
+            cars[carOffset] = car.getX();
+            cars[carOffset + 1] = car.getY();
+            cars[carOffset + 2] = (float) Math.toRadians(car.getDegree());
+        }
+    }
+
+    /**
+     * Determines the position of the ball at the given time.
+     *
+     * @param timeMs The time, in milliseconds.
+     * @param out    The vector to write the position to.
+     * @return Whether the time is covered by the history.
+     */
+    public synchronized boolean getBallPosition(long timeMs, Vec2 out) {
+        int frame = findFrame(timeMs);
+        if (frame < 0) {
+            return false;
+        }
+
+        int next = nextFrame(frame);
+        float alpha = alpha(frame, next, timeMs);
+        float x = lerp(ball[frame * STRIDE], ball[next * STRIDE], alpha);
+        float y = lerp(ball[frame * STRIDE + 1], ball[next * STRIDE + 1], alpha);
+        if (Float.isNaN(x) || Float.isNaN(y)) {
+            return false;
+        }
+
+        out.set(x, y);
+        return true;
+    }
+
+    /**
+     * Determines the transform of a car at the given time.
+     *
+     * @param car    The car.
+     * @param timeMs The time, in milliseconds.
+     * @param out    An array of at least three elements to write x, y and the angle (in radians) to.
+     * @return Whether the car and the time are covered by the history.
+     */
+    public synchronized boolean getCarTransform(CarPhysics car, long timeMs, float[] out) {
+        int slot = slotOf(car);
+        int frame = findFrame(timeMs);
+        if (slot < 0 || frame < 0) {
+            return false;
+        }
+
+        int next = nextFrame(frame);
+        float alpha = alpha(frame, next, timeMs);
+        int a = carOffset(frame, slot);
+        int b = carOffset(next, slot);
+        for (int i = 0; i < STRIDE; i++) {
+            out[i] = lerp(cars[a + i], cars[b + i], alpha);
+            if (Float.isNaN(out[i])) {
+                return false;
+            }
+        }
+
+        // Interpolate the angle along the shortest arc.
+        out[2] = cars[a + 2] + wrapAngle(cars[b + 2] - cars[a + 2]) * alpha;
+        return true;
+    }
+
+    /**
+     * Determines whether a car touched the ball at the given time.
+     *
+     * @param car    The car.
+     * @param timeMs The time, in milliseconds.
+     * @param margin The distance the car and the ball may be apart, to allow for interpolation errors.
+     * @return Whether the car touched the ball.
+     */
+    public synchronized boolean isTouching(CarPhysics car, long timeMs, float margin) {
+        int slot = slotOf(car);
+        int frame = findFrame(timeMs);
+        if (slot < 0 || frame < 0) {
+            return false;
+        }
+
+        int next = nextFrame(frame);
+        float alpha = alpha(frame, next, timeMs);
+        float ballX = lerp(ball[frame * STRIDE], ball[next * STRIDE], alpha);
+        float ballY = lerp(ball[frame * STRIDE + 1], ball[next * STRIDE + 1], alpha);
+
+        int a = carOffset(frame, slot);
+        int b = carOffset(next, slot);
+        float carX = lerp(cars[a], cars[b], alpha);
+        float carY = lerp(cars[a + 1], cars[b + 1], alpha);
+        float carAngle = cars[a + 2] + wrapAngle(cars[b + 2] - cars[a + 2]) * alpha;
+        if (Float.isNaN(ballX + ballY + carX + carY + carAngle)) {
+            return false;
+        }
+
+        // Move the ball into the local space of the car, and find the closest point on the car.
+        float dx = ballX - carX;
+        float dy = ballY - carY;
+        float cos = (float) Math.cos(-carAngle);
+        float sin = (float) Math.sin(-carAngle);
+        float localX = dx * cos - dy * sin;
+        float localY = dx * sin + dy * cos;
+
+        float halfWidth = car.getCar().getWidth() / 2;
+        float halfHeight = car.getCar().getHeight() / 2;
+        float closestX = Math.max(-halfWidth, Math.min(halfWidth, localX));
+        float closestY = Math.max(-halfHeight, Math.min(halfHeight, localY));
+
+        float distanceX = localX - closestX;
+        float distanceY = localY - closestY;
+        float reach = ballRadius + margin;
+        return distanceX * distanceX + distanceY * distanceY <= reach * reach;
+    }
+
+    /**
+     * Returns the time of the oldest remembered tick.
+     *
+     * @return The time in milliseconds, or Long.MAX_VALUE if nothing is remembered.
+     */
+    public synchronized long getOldestTime() {
+        return size == 0 ? Long.MAX_VALUE : times[oldestFrame()];
+    }
+
+    /**
+     * Returns the tick number of the newest remembered tick.
+     *
+     * @return The tick number, or -1 if nothing is remembered.
+     */
+    public synchronized long getNewestTick() {
+        return size == 0 ? -1 : ticks[head];
+    }
+
+    /**
+     * Finds the newest frame at or before the given time. Times past the
+     * newest frame resolve to the newest frame.
+     *
+     * @param timeMs The time, in milliseconds.
+     * @return The index of the frame, or -1 if the time is not covered.
+     */
+    private int findFrame(long timeMs) {
+        if (size == 0 || timeMs < times[oldestFrame()]) {
+            return -1;
+        }
+
+        int frame = head;
+        for (int i = 0; i < size; i++) {
+            if (times[frame] <= timeMs) {
+                return frame;
+            }
+            frame = (frame - 1 + capacity) % capacity;
+        }
+
+        return -1;
+    }
+
+    private int nextFrame(int frame) {
+        return frame == head ? frame : (frame + 1) % capacity;
+    }
+
+    private int oldestFrame() {
+        return (head - size + 1 + capacity) % capacity;
+    }
+
+    private float alpha(int frame, int next, long timeMs) {
+        long span = times[next] - times[frame];
+        return span <= 0 ? 0 : Math.min(1.0F, (float) (timeMs - times[frame]) / span);
+    }
+
+    private int carOffset(int frame, int slot) {
+        return (frame * slots.length + slot) * STRIDE;
+    }
+
+    private void clearSlot(int slot) {
+        for (int frame = 0; frame < capacity; frame++) {
+            int offset = carOffset(frame, slot);
+            Arrays.fill(cars, offset, offset + STRIDE, Float.NaN);
+        }
+    }
+
+    private int slotOf(CarPhysics car) {
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] == car) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static float lerp(float a, float b, float alpha) {
+        return a + (b - a) * alpha;
+    }
+
+    private static float wrapAngle(float angle) {
+        double wrapped = angle % (2 * Math.PI);
+        if (wrapped > Math.PI) {
+            wrapped -= 2 * Math.PI;
+        } else if (wrapped < -Math.PI) {
+            wrapped += 2 * Math.PI;
+        }
+        return (float) wrapped;
+    }
+
+}
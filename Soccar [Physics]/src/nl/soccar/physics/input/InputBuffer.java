@@ -0,0 +1,237 @@
+package nl.soccar.physics.input;
+
+import nl.soccar.library.Car;
+import nl.soccar.library.enumeration.HandbrakeAction;
+import nl.soccar.library.enumeration.SteerAction;
+import nl.soccar.library.enumeration.ThrottleAction;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * The InputBuffer holds the inputs of a single player until the tick they are
+ * meant for. Inputs carry a sequence number and a target tick, and are applied
+ * to the car exactly at the boundary of that tick, no matter when the network
+ * packet arrived. When no input arrives in time for a tick, the last known
+ * input is repeated.
+ * <p>
+ * The moment an input arrives is remembered, so the engine can trace how long
+ * it takes until the input shows up in the published state.
+ *
+ * @author PTS34A
+ */
+public final class InputBuffer {
+
+    /**
+     * Returned by apply() when no input is applied for the first time.
+     */
+    public static final long NOT_TRACED = Long.MIN_VALUE;
+
+    private final int mask;
+    private final long[] targetTicks;
+    private final int[] sequences;
+    private final long[] arrivals;
+    private final SteerAction[] steerActions;
+    private final ThrottleAction[] throttleActions;
+    private final HandbrakeAction[] handbrakeActions;
+
+    private long appliedTick = -1;
+    private int lastSequence = -1;
+    private SteerAction lastSteerAction;
+    private ThrottleAction lastThrottleAction;
+    private HandbrakeAction lastHandbrakeAction;
+    private long untracedArrival = NOT_TRACED; // Arrival of the last known input, until it is applied
+
+    private long receivedInputs = 0;
+    private long coalescedInputs = 0;
+    private long lateInputs = 0;
+    private long droppedInputs = 0;
+    private long repeatedTicks = 0;
+    private int pendingInputs = 0;
+
+    /**
+     * Initiates a new InputBuffer that holds inputs up to the given amount of
+     * ticks ahead.
+     *
+     * @param capacity The amount of ticks to buffer, rounded up to a power of two.
+     */
+    public InputBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        mask = size - 1;
+
+        targetTicks = new long[size];
+        sequences = new int[size];
+        arrivals = new long[size];
+        steerActions = new SteerAction[size];
+        throttleActions = new ThrottleAction[size];
+        handbrakeActions = new HandbrakeAction[size];
+
+        Arrays.fill(targetTicks, -1);
+    }
+
+    /**
+     * Submits an input. Inputs for a tick that already has an input replace
+     * that input only if their sequence number is higher, so redundant copies
+     * of the same input are coalesced. Inputs for a tick that has already
+     * passed are counted as late, but are remembered as the last known input.
+     *
+     * @param sequence        The sequence number of the input.
+     * @param targetTick      The tick at which the input should be applied.
+     * @param steerAction     The steer action.
+     * @param throttleAction  The throttle action.
+     * @param handbrakeAction The handbrake action.
+     * @return Whether the input will be applied at its target tick.
+     */
+    public synchronized boolean submit(int sequence, long targetTick, SteerAction steerAction, ThrottleAction throttleAction, HandbrakeAction handbrakeAction) {
+        Objects.requireNonNull(steerAction);
+        Objects.requireNonNull(throttleAction);
+        Objects.requireNonNull(handbrakeAction);
+
+        long arrival = System.nanoTime();
+        receivedInputs++;
+
+        if (targetTick <= appliedTick) {
+            lateInputs++;
+
+            if (sequence > lastSequence) {
+                remember(sequence, steerAction, throttleAction, handbrakeAction, arrival);
+            }
+            return false;
+        }
+
+        if (targetTick > appliedTick + mask + 1) {
+            droppedInputs++;
+            return false;
+        }
+
+        int slot = (int) (targetTick & mask);
+        if (targetTicks[slot] == targetTick) {
+            coalescedInputs++;
+
+            if (sequence <= sequences[slot]) {
+                return true;
+            }
+        } else if (targetTicks[slot] < 0) {
+            pendingInputs++;
+        }
+
+        targetTicks[slot] = targetTick;
+        sequences[slot] = sequence;
+        arrivals[slot] = arrival;
+        steerActions[slot] = steerAction;
+        throttleActions[slot] = throttleAction;
+        handbrakeActions[slot] = handbrakeAction;
+        return true;
+    }
+
+    /**
+     * Applies the input of a tick to a car. When there is no input for the
+     * tick, the last known input is repeated. A car without any known input is
+     * left untouched.
+     *
+     * @param tick The tick that is about to be stepped.
+     * @param car  The car to apply the input to.
+     * @return The moment the input arrived, as System.nanoTime(), if this is
+     * the first time the input is applied, or NOT_TRACED otherwise.
+     */
+    public synchronized long apply(long tick, Car car) {
+        int slot = (int) (tick & mask);
+        if (targetTicks[slot] == tick) {
+            if (sequences[slot] > lastSequence) {
+                remember(sequences[slot], steerActions[slot], throttleActions[slot], handbrakeActions[slot], arrivals[slot]);
+            }
+
+            targetTicks[slot] = -1;
+            pendingInputs--;
+        } else if (lastSequence >= 0) {
+            repeatedTicks++;
+        }
+
+        // Forget inputs for ticks that were skipped.
+        for (long skipped = appliedTick + 1; skipped < tick && skipped <= appliedTick + mask + 1; skipped++) {
+            int skippedSlot = (int) (skipped & mask);
+            if (targetTicks[skippedSlot] == skipped) {
+                targetTicks[skippedSlot] = -1;
+                pendingInputs--;
+            }
+        }
+
+        appliedTick = tick;
+
+        if (lastSequence < 0) {
+            return NOT_TRACED;
+        }
+
+        car.setSteerAction(lastSteerAction);
+        car.setThrottleAction(lastThrottleAction);
+        car.setHandbrakeAction(lastHandbrakeAction);
+
+        long arrival = untracedArrival;
+        untracedArrival = NOT_TRACED;
+        return arrival;
+    }
+
+    private void remember(int sequence, SteerAction steerAction, ThrottleAction throttleAction, HandbrakeAction handbrakeAction, long arrival) {
+        lastSequence = sequence;
+        untracedArrival = arrival;
+        lastSteerAction = steerAction;
+        lastThrottleAction = throttleAction;
+        lastHandbrakeAction = handbrakeAction;
+    }
+
+    /**
+     * Returns the amount of received inputs.
+     *
+     * @return The amount of received inputs.
+     */
+    public synchronized long getReceivedInputs() {
+        return receivedInputs;
+    }
+
+    /**
+     * Returns the amount of inputs that arrived for a tick which already had
+     * an input.
+     *
+     * @return The amount of coalesced inputs.
+     */
+    public synchronized long getCoalescedInputs() {
+        return coalescedInputs;
+    }
+
+    /**
+     * Returns the amount of inputs that arrived after their target tick.
+     *
+     * @return The amount of late inputs.
+     */
+    public synchronized long getLateInputs() {
+        return lateInputs;
+    }
+
+    /**
+     * Returns the amount of inputs that targeted a tick too far ahead.
+     *
+     * @return The amount of dropped inputs.
+     */
+    public synchronized long getDroppedInputs() {
+        return droppedInputs;
+    }
+
+    /**
+     * Returns the amount of ticks for which the last known input was repeated.
+     *
+     * @return The amount of repeated ticks.
+     */
+    public synchronized long getRepeatedTicks() {
+        return repeatedTicks;
+    }
+
+    /**
+     * Returns the amount of inputs waiting for their target tick.
+     *
+     * @return The amount of pending inputs.
+     */
+    public synchronized int getPendingInputs() {
+        return pendingInputs;
+    }
+
+}
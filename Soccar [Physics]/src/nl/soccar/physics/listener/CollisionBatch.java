@@ -0,0 +1,164 @@
+package nl.soccar.physics.listener;
+
+import nl.soccar.library.Ball;
+import nl.soccar.library.Car;
+
+/**
+ * A CollisionBatch holds all significant collisions of a single tick, in
+ * preallocated arrays. The engine reuses the same batch every tick, so
+ * listeners must copy whatever they want to keep.
+ *
+ * @author PTS34A
+ */
+public final class CollisionBatch {
+
+    private final CollisionType[] types;
+    private final float[] impulses;
+    private final float[] xs;
+    private final float[] ys;
+    private final Car[] cars;
+    private final Object[] others;
+    private int size = 0;
+    private long overflow = 0;
+
+    /**
+     * Initiates a new CollisionBatch that holds up to the given amount of
+     * collisions per tick.
+     *
+     * @param capacity The maximum amount of collisions per tick.
+     */
+    public CollisionBatch(int capacity) {
+        types = new CollisionType[capacity];
+        impulses = new float[capacity];
+        xs = new float[capacity];
+        ys = new float[capacity];
+        cars = new Car[capacity];
+        others = new Object[capacity];
+    }
+
+    /**
+     * Adds a collision. Collisions beyond the capacity are counted, but not
+     * stored.
+     *
+     * @param type    The kind of collision.
+     * @param impulse The total normal impulse of the collision.
+     * @param x       The x-coordinate of the contact point.
+     * @param y       The y-coordinate of the contact point.
+     * @param car     The car involved in the collision.
+     * @param other   The other car or the ball, or null for a wall.
+     */
+    public void add(CollisionType type, float impulse, float x, float y, Car car, Object other) {
+        if (size == types.length) {
+            overflow++;
+            return;
+        }
+
+        types[size] = type;
+        impulses[size] = impulse;
+        xs[size] = x;
+        ys[size] = y;
+        cars[size] = car;
+        others[size] = other;
+        size++;
+    }
+
+    /**
+     * Removes all collisions, to make room for the next tick.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            cars[i] = null;
+            others[i] = null;
+        }
+        size = 0;
+    }
+
+    /**
+     * Returns the amount of collisions in this batch.
+     *
+     * @return The amount of collisions.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the kind of a collision.
+     *
+     * @param index The index of the collision.
+     * @return The kind of collision.
+     */
+    public CollisionType getType(int index) {
+        return types[index];
+    }
+
+    /**
+     * Returns the total normal impulse of a collision.
+     *
+     * @param index The index of the collision.
+     * @return The impulse.
+     */
+    public float getImpulse(int index) {
+        return impulses[index];
+    }
+
+    /**
+     * Returns the x-coordinate of the contact point of a collision.
+     *
+     * @param index The index of the collision.
+     * @return The x-coordinate.
+     */
+    public float getX(int index) {
+        return xs[index];
+    }
+
+    /**
+     * Returns the y-coordinate of the contact point of a collision.
+     *
+     * @param index The index of the collision.
+     * @return The y-coordinate.
+     */
+    public float getY(int index) {
+        return ys[index];
+    }
+
+    /**
+     * Returns the car involved in a collision.
+     *
+     * @param index The index of the collision.
+     * @return The car.
+     */
+    public Car getCar(int index) {
+        return cars[index];
+    }
+
+    /**
+     * Returns the other car of a car-car collision.
+     *
+     * @param index The index of the collision.
+     * @return The other car, or null if the collision is not between two cars.
+     */
+    public Car getOtherCar(int index) {
+        return others[index] instanceof Car ? (Car) others[index] : null;
+    }
+
+    /**
+     * Returns the ball of a car-ball collision.
+     *
+     * @param index The index of the collision.
+     * @return The ball, or null if the collision does not involve the ball.
+     */
+    public Ball getBall(int index) {
+        return others[index] instanceof Ball ? (Ball) others[index] : null;
+    }
+
+    /**
+     * Returns the amount of collisions that did not fit in a batch.
+     *
+     * @return The amount of dropped collisions.
+     */
+    public long getOverflow() {
+        return overflow;
+    }
+
+}
@@ -0,0 +1,20 @@
+package nl.soccar.physics.listener;
+
+import nl.soccar.physics.GameEngine;
+
+/**
+ * @author PTS34A
+ */
+public interface CollisionListener {
+
+    /**
+     * This method is called once per tick, on the engine thread, with all
+     * significant collisions of that tick. The batch is reused by the engine
+     * afterwards.
+     *
+     * @param engine The game engine.
+     * @param batch The collisions of the tick.
+     */
+    void onCollisions(GameEngine engine, CollisionBatch batch);
+
+}
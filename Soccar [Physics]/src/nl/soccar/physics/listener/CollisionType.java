@@ -0,0 +1,14 @@
+package nl.soccar.physics.listener;
+
+/**
+ * The kinds of collisions that are reported to collision listeners.
+ *
+ * @author PTS34A
+ */
+public enum CollisionType {
+
+    CAR_BALL,
+    CAR_CAR,
+    CAR_WALL
+
+}
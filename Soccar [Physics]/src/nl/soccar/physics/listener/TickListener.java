@@ -0,0 +1,19 @@
+package nl.soccar.physics.listener;
+
+import nl.soccar.physics.GameEngine;
+
+/**
+ * @author PTS34A
+ */
+public interface TickListener {
+
+    /**
+     * This method is called on the engine thread at the end of every running
+     * tick, after all world objects have been stepped.
+     *
+     * @param engine The game engine.
+     * @param tick The number of the tick.
+     */
+    void onTick(GameEngine engine, long tick);
+
+}
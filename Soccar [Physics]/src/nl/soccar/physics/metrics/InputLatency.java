@@ -0,0 +1,163 @@
+package nl.soccar.physics.metrics;
+
+import java.util.Arrays;
+
+/**
+ * The InputLatency traces how long it takes from an input of a player
+ * arriving at the engine until the first state that reflects it is
+ * published. Every input is timed at three points:
+ * <ol>
+ * <li>when it arrives;</li>
+ * <li>when it is applied to the car, at the start of the tick that consumes
+ * it;</li>
+ * <li>when the tick listeners and the snapshot publisher are done with the
+ * first tick whose state reflects it.</li>
+ * </ol>
+ * An input is applied before the world step of the tick that consumes it, but
+ * the wheels only act on it after that step, so its effect shows up in the
+ * state of the next tick.
+ * <p>
+ * The queue latency covers the time an input waits for its target tick,
+ * including the phase of the tick timer. The processing latency covers the
+ * ticks and listener work until its state is published. Snapshot
+ * subscriptions at a lower rate than the engine add their own interval on
+ * top.
+ *
+ * @author PTS34A
+ */
+public final class InputLatency {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final LatencyHistogram queueLatency = new LatencyHistogram();
+    private final LatencyHistogram processingLatency = new LatencyHistogram();
+    private final LatencyHistogram totalLatency = new LatencyHistogram();
+
+    // Inputs that have been consumed, but of which no state has been published yet
+    private long[] arrivals = new long[INITIAL_CAPACITY];
+    private long[] consumptions = new long[INITIAL_CAPACITY];
+    private long[] consumeTicks = new long[INITIAL_CAPACITY];
+    private int pending = 0;
+
+    private long tracedInputs = 0;
+    private long tickLagSum = 0;
+
+    /**
+     * Records that an input has been applied to a car.
+     *
+     * @param arrivalNs The moment the input arrived, as System.nanoTime().
+     * @param tick      The tick that consumes the input.
+     * @param nowNs     The current moment, as System.nanoTime().
+     */
+    public synchronized void consume(long arrivalNs, long tick, long nowNs) {
+        if (pending == arrivals.length) {
+            int capacity = pending * 2;
+            arrivals = Arrays.copyOf(arrivals, capacity);
+            consumptions = Arrays.copyOf(consumptions, capacity);
+            consumeTicks = Arrays.copyOf(consumeTicks, capacity);
+        }
+
+        arrivals[pending] = arrivalNs;
+        consumptions[pending] = nowNs;
+        consumeTicks[pending] = tick;
+        pending++;
+
+        queueLatency.record(nowNs - arrivalNs);
+    }
+
+    /**
+     * Records that the state of a tick has been published, which completes
+     * the trace of every input that was consumed by an earlier tick.
+     *
+     * @param tick  The tick of which the state has been published.
+     * @param nowNs The current moment, as System.nanoTime().
+     */
+    public synchronized void publish(long tick, long nowNs) {
+        int kept = 0;
+        for (int i = 0; i < pending; i++) {
+            if (consumeTicks[i] >= tick) {
+                arrivals[kept] = arrivals[i];
+                consumptions[kept] = consumptions[i];
+                consumeTicks[kept] = consumeTicks[i];
+                kept++;
+                continue;
+            }
+
+            processingLatency.record(nowNs - consumptions[i]);
+            totalLatency.record(nowNs - arrivals[i]);
+            tickLagSum += tick - consumeTicks[i];
+            tracedInputs++;
+        }
+
+        pending = kept;
+    }
+
+    /**
+     * Forgets the inputs of which no state has been published yet, such as
+     * when the engine jumps to another tick.
+     */
+    public synchronized void clearPending() {
+        pending = 0;
+    }
+
+    /**
+     * Removes all recorded latencies.
+     */
+    public synchronized void reset() {
+        queueLatency.reset();
+        processingLatency.reset();
+        totalLatency.reset();
+        tracedInputs = 0;
+        tickLagSum = 0;
+    }
+
+    /**
+     * Returns the time from the arrival of an input until it was applied.
+     *
+     * @return The queue latency.
+     */
+    public LatencyHistogram getQueueLatency() {
+        return queueLatency;
+    }
+
+    /**
+     * Returns the time from applying an input until the first state that
+     * reflects it was published.
+     *
+     * @return The processing latency.
+     */
+    public LatencyHistogram getProcessingLatency() {
+        return processingLatency;
+    }
+
+    /**
+     * Returns the time from the arrival of an input until the first state
+     * that reflects it was published.
+     *
+     * @return The total latency.
+     */
+    public LatencyHistogram getTotalLatency() {
+        return totalLatency;
+    }
+
+    /**
+     * Returns the amount of inputs of which the first state that reflects
+     * them has been published.
+     *
+     * @return The amount of traced inputs.
+     */
+    public synchronized long getTracedInputs() {
+        return tracedInputs;
+    }
+
+    /**
+     * Returns the mean amount of ticks between the tick that consumed an input
+     * and the tick whose state was published first after it.
+     *
+     * @return The mean tick lag, or 0 if no inputs have been traced.
+     */
+    public synchronized double getMeanTickLag() {
+        return tracedInputs == 0 ? 0 : (double) tickLagSum / tracedInputs;
+    }
+
+}
@@ -3,17 +3,21 @@ package nl.soccar.physics.models;
 import nl.soccar.library.Ball;
 import nl.soccar.physics.AbstractWorldObject;
 import nl.soccar.physics.GameEngine;
-import org.jbox2d.collision.shapes.CircleShape;
+import nl.soccar.physics.backend.Box2DBackend;
+import nl.soccar.physics.backend.Material;
+import nl.soccar.physics.backend.PhysicsBackend;
+import nl.soccar.physics.checkpoint.Checkpointable;
 import org.jbox2d.common.Vec2;
-import org.jbox2d.dynamics.*;
+import org.jbox2d.dynamics.Body;
 
+import java.nio.ByteBuffer;
 
 /**
  * BallPhysics is a physics-model that keeps track of the physics of the Ball.
  *
  * @author PTS34A
  */
-public class BallPhysics extends AbstractWorldObject {
+public class BallPhysics extends AbstractWorldObject implements Checkpointable {
 
     private static final float DENSITY = 0.01F;
     private static final float FRICTION = 1.0F;
@@ -22,12 +26,16 @@ public class BallPhysics extends AbstractWorldObject {
     private static final float LINEAR_DAMPING = 1.0F;
     private static final float ANGULAR_DAMPING = 1.0F;
 
+    private static final Material MATERIAL = new Material(DENSITY, FRICTION, RESTITUTION, LINEAR_DAMPING, ANGULAR_DAMPING);
+
     private final Vec2 originalPos;
 
     private final GameEngine engine;
     private final float radius;
-    private Body body;
+    private PhysicsBackend backend;
+    private int body;
     private Ball ball;
+    private boolean modelAsleep; // The ball model holds the position the ball fell asleep at
 
     /**
      * Initiates a new BallPhysics Object using the given parameter.
@@ -42,12 +50,22 @@ public class BallPhysics extends AbstractWorldObject {
         originalPos = new Vec2(ball.getX(), ball.getY());
         radius = ball.getRadius();
 
-        doReset();
+        engine.getWorker().run(this::doReset);
     }
 
     @Override
     protected void doStep() {
-        ball.move(getX(), getY(), getDegree());
+        // The ball is moved by the world; the model is updated by flushModel.
+    }
+
+    @Override
+    public void flushModel() {
+        // A resting ball doesn't move, so its model only has to be updated once.
+        boolean awake = backend.isAwake(body);
+        if (awake || !modelAsleep) {
+            ball.move(getX(), getY(), getDegree());
+            modelAsleep = !awake;
+        }
     }
 
     @Override
@@ -58,50 +76,84 @@ public class BallPhysics extends AbstractWorldObject {
 
         ball.move(x, y, 0);
 
-        body.setLinearVelocity(new Vec2(linearVelocityX, linearVelocityY));
-        body.setAngularVelocity(angularVelocity);
-        body.setTransform(new Vec2(x, y), body.getAngle());
+        backend.setVelocity(body, linearVelocityX, linearVelocityY, angularVelocity);
+        backend.setTransform(body, x, y, backend.getAngle(body));
     }
 
     @Override
     protected void doReset() {
         ball.move(originalPos.x, originalPos.y, 0);
+        modelAsleep = false;
 
-        World world = engine.getWorld();
-
-        BodyDef bd = new BodyDef();
-        bd.type = BodyType.DYNAMIC;
-        bd.position.set(originalPos);
-        bd.linearDamping = LINEAR_DAMPING;
-        bd.angularDamping = ANGULAR_DAMPING;
-
-        CircleShape cs = new CircleShape();
-        cs.m_radius = radius;
+        backend = engine.getBackend();
+        body = backend.addBall(originalPos.x, originalPos.y, radius, MATERIAL);
+        backend.setUserData(body, ball);
+    }
 
-        FixtureDef fd = new FixtureDef();
-        fd.density = DENSITY;
-        fd.friction = FRICTION;
-        fd.restitution = RESTITUTION;
-        fd.shape = cs;
-        fd.userData = ball;
+    @Override
+    public void writeState(ByteBuffer out) {
+        backend.writeState(body, out);
+    }
 
-        body = world.createBody(bd);
-        body.createFixture(fd);
+    @Override
+    public void readState(ByteBuffer in) {
+        backend.readState(body, in);
+        modelAsleep = false;
+        flushModel();
     }
 
     @Override
     public float getX() {
-        return body.getPosition().x;
+        return backend.getX(body);
     }
 
     @Override
     public float getY() {
-        return body.getPosition().y;
+        return backend.getY(body);
     }
 
     @Override
     public float getDegree() {
-        return (float) Math.toDegrees(body.getAngle());
+        return (float) Math.toDegrees(backend.getAngle(body));
+    }
+
+    /**
+     * Returns the Box2D ball body.
+     *
+     * @return The Box2D ball body, or null if the engine uses another backend.
+     * @deprecated The ball is simulated by the backend of the engine; use
+     * {@link #getBodyId()} with {@link GameEngine#getBackend()} instead.
+     */
+    @Deprecated
+    public Body getBody() {
+        return backend instanceof Box2DBackend ? ((Box2DBackend) backend).getBody(body) : null;
+    }
+
+    /**
+     * Returns the id of the ball in the backend of the engine.
+     *
+     * @return The id of the ball.
+     */
+    public int getBodyId() {
+        return body;
+    }
+
+    /**
+     * Returns the material of the ball.
+     *
+     * @return The material of the ball.
+     */
+    public Material getMaterial() {
+        return MATERIAL;
+    }
+
+    /**
+     * Returns the radius of the ball.
+     *
+     * @return The radius of the ball.
+     */
+    public float getRadius() {
+        return radius;
     }
 
     /**
@@ -110,7 +162,7 @@ public class BallPhysics extends AbstractWorldObject {
      * @return The linear velocity X value.
      */
     public float getLinearVelocityX() {
-        return body.getLinearVelocity().x;
+        return backend.getLinearVelocityX(body);
     }
 
     /**
@@ -119,7 +171,7 @@ public class BallPhysics extends AbstractWorldObject {
      * @return The linear velocity Y value.
      */
     public float getLinearVelocityY() {
-        return body.getLinearVelocity().y;
+        return backend.getLinearVelocityY(body);
     }
 
     /**
@@ -128,6 +180,6 @@ public class BallPhysics extends AbstractWorldObject {
      * @return The angular velocity value.
      */
     public float getAngularVelocity() {
-        return body.getAngularVelocity();
+        return backend.getAngularVelocity(body);
     }
 }
@@ -0,0 +1,115 @@
+package nl.soccar.physics.models;
+
+/**
+ * The BoostTrail holds the exhaust positions of a boosting car in a ring of
+ * primitive coordinates, oldest first. Adding a position to a full trail
+ * overwrites the oldest one.
+ *
+ * @author PTS34A
+ */
+public final class BoostTrail {
+
+    private final float[] xs;
+    private final float[] ys;
+    private int head = 0; // Index of the oldest position
+    private int size = 0;
+
+    /**
+     * Initiates a new BoostTrail with the given capacity.
+     *
+     * @param capacity The maximum amount of positions.
+     */
+    public BoostTrail(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity must be at least one.");
+        }
+
+        xs = new float[capacity];
+        ys = new float[capacity];
+    }
+
+    /**
+     * Adds a position to the end of the trail.
+     *
+     * @param x The x-coordinate.
+     * @param y The y-coordinate.
+     */
+    public void add(float x, float y) {
+        int index = (head + size) % xs.length;
+        xs[index] = x;
+        ys[index] = y;
+
+        if (size < xs.length) {
+            size++;
+        } else {
+            head = (head + 1) % xs.length;
+        }
+    }
+
+    /**
+     * Removes the oldest position, if any.
+     */
+    public void removeOldest() {
+        if (size == 0) {
+            return;
+        }
+
+        head = (head + 1) % xs.length;
+        size--;
+    }
+
+    /**
+     * Removes all positions.
+     */
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    /**
+     * Returns the x-coordinate of a position.
+     *
+     * @param index The index of the position, 0 being the oldest.
+     * @return The x-coordinate.
+     */
+    public float getX(int index) {
+        return xs[slot(index)];
+    }
+
+    /**
+     * Returns the y-coordinate of a position.
+     *
+     * @param index The index of the position, 0 being the oldest.
+     * @return The y-coordinate.
+     */
+    public float getY(int index) {
+        return ys[slot(index)];
+    }
+
+    private int slot(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " is out of bounds for a trail of " + size + " positions.");
+        }
+
+        return (head + index) % xs.length;
+    }
+
+    /**
+     * Returns the amount of positions.
+     *
+     * @return The amount of positions.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether the trail is empty.
+     *
+     * @return Whether the trail is empty.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+}
@@ -1,15 +1,20 @@
 package nl.soccar.physics.models;
 
-import javafx.geometry.Point2D;
 import nl.soccar.library.Car;
+import nl.soccar.library.enumeration.HandbrakeAction;
+import nl.soccar.library.enumeration.SteerAction;
 import nl.soccar.library.enumeration.ThrottleAction;
 import nl.soccar.physics.AbstractWorldObject;
 import nl.soccar.physics.GameEngine;
 import nl.soccar.physics.PhysicsConstants;
-import org.jbox2d.collision.shapes.PolygonShape;
+import nl.soccar.physics.backend.Box2DBackend;
+import nl.soccar.physics.backend.Material;
+import nl.soccar.physics.backend.PhysicsBackend;
+import nl.soccar.physics.checkpoint.Checkpointable;
 import org.jbox2d.common.Vec2;
-import org.jbox2d.dynamics.*;
+import org.jbox2d.dynamics.Body;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -19,13 +24,14 @@ import java.util.List;
  *
  * @author PTS34A
  */
-public class CarPhysics extends AbstractWorldObject {
-
-    private static final boolean BULLET = true;
+public class CarPhysics extends AbstractWorldObject implements Checkpointable {
 
     private static final float DENSITY = 0.2F;
+    private static final float FRICTION = 0.2F;
     private static final float RESTITUTION = 0.2F;
 
+    private static final Material MATERIAL = new Material(DENSITY, FRICTION, RESTITUTION, 0, 0);
+
     private static final float WHEEL_POS_RATIO_X = 2.3F;
     private static final float WHEEL_POS_RATIO_Y = 4.0F;
 
@@ -34,10 +40,16 @@ public class CarPhysics extends AbstractWorldObject {
     private final float originalDegree;
     private final List<WheelPhysics> wheels;
     private final Car car;
-    private Body body;
+    private PhysicsBackend backend;
+    private int body;
     private float steerAngle = 0.0F;
-    private List<Point2D> trail; // Holds the boost trail location
+    private float desiredSpeed = 0.0F;
+    private int power = 0;
+    private final BoostTrail trail; // Holds the boost trail location
     private boolean boostActive;
+    private float boostAmount; // Authoritative, flushed into the car model by flushModel
+    private boolean resting; // Asleep without input, so the wheels are not stepped
+    private boolean modelAsleep; // The car model holds the position the car fell asleep at
 
     /**
      * Initiates a new CarPhysics Object using the given parameters.
@@ -48,7 +60,7 @@ public class CarPhysics extends AbstractWorldObject {
     public CarPhysics(GameEngine engine, Car car) {
         this.engine = engine;
         this.car = car;
-        this.trail = new ArrayList<>();
+        this.trail = new BoostTrail(PhysicsConstants.CAR_BOOST_TRAIL_SIZE + 1);
         this.boostActive = false;
 
         float carWidth = car.getWidth();
@@ -58,32 +70,49 @@ public class CarPhysics extends AbstractWorldObject {
         originalDegree = (float) Math.toRadians(car.getDegree());
 
         wheels = new ArrayList<>();
-        doReset();
 
         // TODO: Calculate wheel positions from PhysicsUtilities, WHEEL_POS_RATIO should be defined in DisplayConstants.
         float wheelWidth = car.getWheelWidth();
         float wheelHeight = car.getWheelHeight();
 
         // Create wheels
-        wheels.add(new WheelPhysics(-carWidth / WHEEL_POS_RATIO_X, carHeight / WHEEL_POS_RATIO_Y, wheelWidth, wheelHeight, true, true, this, engine));
-        wheels.add(new WheelPhysics(carWidth / WHEEL_POS_RATIO_X, carHeight / WHEEL_POS_RATIO_Y, wheelWidth, wheelHeight, true, true, this, engine));
-        wheels.add(new WheelPhysics(-carWidth / WHEEL_POS_RATIO_X, -carHeight / WHEEL_POS_RATIO_Y, wheelWidth, wheelHeight, false, false, this, engine));
-        wheels.add(new WheelPhysics(carWidth / WHEEL_POS_RATIO_X, -carHeight / WHEEL_POS_RATIO_Y, wheelWidth, wheelHeight, false, false, this, engine));
+        wheels.add(new WheelPhysics(-carWidth / WHEEL_POS_RATIO_X, carHeight / WHEEL_POS_RATIO_Y, wheelWidth, wheelHeight, true, true));
+        wheels.add(new WheelPhysics(carWidth / WHEEL_POS_RATIO_X, carHeight / WHEEL_POS_RATIO_Y, wheelWidth, wheelHeight, true, true));
+        wheels.add(new WheelPhysics(-carWidth / WHEEL_POS_RATIO_X, -carHeight / WHEEL_POS_RATIO_Y, wheelWidth, wheelHeight, false, false));
+        wheels.add(new WheelPhysics(carWidth / WHEEL_POS_RATIO_X, -carHeight / WHEEL_POS_RATIO_Y, wheelWidth, wheelHeight, false, false));
+
+        engine.getWorker().run(this::doReset);
     }
 
     @Override
     protected void doStep() {
-        // Update the steering angle
-        updateSteerAngle();
-
-        // Update each wheel
-        wheels.forEach(WheelPhysics::step);
+        // A sleeping car stays asleep until it gets input, or until something hits it.
+        resting = !backend.isAwake(body) && !hasInput();
+
+        if (!resting) {
+            if (!backend.isAwake(body)) {
+                backend.wake(body); // Input wakes the car right away
+            }
+
+            // Update the controls the backend drives the wheels with
+            updateSteerAngle();
+            updateDesiredSpeed();
+            backend.setCarControls(body, steerAngle, desiredSpeed, power, getSlide());
+        }
 
         // Update trail
         updateBoost();
+    }
+
+    @Override
+    public void flushModel() {
+        boolean awake = backend.isAwake(body);
+        if (awake || !modelAsleep) {
+            car.move(getX(), getY(), getDegree());
+            modelAsleep = !awake;
+        }
 
-        // Move the car
-        car.move(getX(), getY(), getDegree());
+        car.setBoostAmount(boostAmount);
     }
 
     @Override
@@ -94,39 +123,27 @@ public class CarPhysics extends AbstractWorldObject {
 
         car.move(x, y, degree);
 
-        body.setLinearVelocity(new Vec2(linearVelocityX, linearVelocityY));
-        body.setAngularVelocity(angularVelocity);
-        body.setTransform(new Vec2(x, y), (float) Math.toRadians(degree));
+        backend.setVelocity(body, linearVelocityX, linearVelocityY, angularVelocity);
+        backend.setTransform(body, x, y, (float) Math.toRadians(degree));
     }
 
     @Override
     protected void doReset() {
         trail.clear();
+        resting = false;
+        modelAsleep = false;
 
         car.move(originalPos.x, originalPos.y, (float) Math.toDegrees(originalDegree));
-        car.setBoostAmount(Car.DEFAULT_BOOST_AMOUNT);
-
-        World world = engine.getWorld();
-
-        BodyDef bd = new BodyDef();
-        bd.type = BodyType.DYNAMIC;
-        bd.position.set(originalPos);
-        bd.angle = originalDegree;
-        bd.bullet = BULLET; // Prevents tunneling
-
-        PolygonShape shape = new PolygonShape();
-        shape.setAsBox(car.getWidth() / 2, car.getHeight() / 2);
+        boostAmount = Car.DEFAULT_BOOST_AMOUNT;
+        car.setBoostAmount(boostAmount);
 
-        FixtureDef fd = new FixtureDef();
-        fd.density = DENSITY;
-        fd.restitution = RESTITUTION;
-        fd.shape = shape;
-        fd.userData = car;
+        backend = engine.getBackend();
+        body = backend.addCar(originalPos.x, originalPos.y, originalDegree, car.getWidth() / 2, car.getHeight() / 2, MATERIAL);
+        backend.setUserData(body, car);
 
-        body = world.createBody(bd);
-        body.createFixture(fd);
-
-        wheels.forEach(WheelPhysics::reset);
+        for (int i = 0; i < wheels.size(); i++) {
+            wheels.get(i).attach(backend, body, i);
+        }
     }
 
     /**
@@ -149,6 +166,47 @@ public class CarPhysics extends AbstractWorldObject {
         }
     }
 
+    /**
+     * Sets the speed the powered wheels should go towards, and their power.
+     * This is based on the ThrottleAction.
+     */
+    private void updateDesiredSpeed() {
+        switch (car.getThrottleAction()) {
+            case BOOST:
+            case ACCELERATE:
+                desiredSpeed = PhysicsConstants.CAR_MAX_SPEED;
+                power = PhysicsConstants.CAR_NORMAL_POWER;
+                break;
+            case REVERSE:
+                desiredSpeed = -PhysicsConstants.CAR_MAX_REVERSE_SPEED;
+                power = PhysicsConstants.CAR_NORMAL_POWER;
+                break;
+            case IDLE:
+                desiredSpeed = 0;
+                break;
+            default:
+                throw new UnsupportedOperationException();
+        }
+
+        if (boostActive) {
+            desiredSpeed = PhysicsConstants.CAR_MAX_BOOST_SPEED;
+            power = PhysicsConstants.CAR_BOOST_POWER;
+        }
+    }
+
+    /**
+     * Gets the slide of the wheels, by which their mass is divided when
+     * sideways velocity is eliminated.
+     *
+     * @return The slide of the wheels.
+     */
+    private int getSlide() {
+        if (car.getHandbrakeAction() == HandbrakeAction.ACTIVE) {
+            return PhysicsConstants.CAR_HANDBRAKE_SLIDE;
+        }
+        return PhysicsConstants.CAR_NORMAL_SLIDE;
+    }
+
     /**
      * Updates the boost trail.
      */
@@ -159,38 +217,97 @@ public class CarPhysics extends AbstractWorldObject {
         }
 
         // Disable boost when the throttle action is not boost or boost amount is 0
-        if (car.getThrottleAction() != ThrottleAction.BOOST || car.getBoostAmount() == 0) {
+        if (car.getThrottleAction() != ThrottleAction.BOOST || boostAmount == 0) {
             boostActive = false;
         }
 
         // The trail has to remove itself when it's longer than max length or boost is not active.
         if (trail.size() > PhysicsConstants.CAR_BOOST_TRAIL_SIZE || !trail.isEmpty() && !boostActive) {
-            trail.remove(0);
+            trail.removeOldest();
         }
 
         // Make boost trail if active, refill when inactive.
         if (boostActive) {
-            car.setBoostAmount(car.getBoostAmount() - PhysicsConstants.CAR_BOOST_DEPLETE_SPEED);
-            Vec2 exhaustPos = body.getWorldPoint(new Vec2(0, -car.getHeight() / 2));
-            trail.add(new Point2D(exhaustPos.x, exhaustPos.y));
+            boostAmount = Math.max(0, boostAmount - PhysicsConstants.CAR_BOOST_DEPLETE_SPEED);
+            // The exhaust is at the middle of the rear of the car.
+            float angle = backend.getAngle(body);
+            float offset = car.getHeight() / 2;
+            trail.add(getX() + (float) Math.sin(angle) * offset, getY() - (float) Math.cos(angle) * offset);
         } else {
-            car.setBoostAmount(car.getBoostAmount() + PhysicsConstants.CAR_BOOST_FILL_SPEED);
+            boostAmount = Math.min(PhysicsConstants.CAR_MAX_BOOST_AMOUNT, boostAmount + PhysicsConstants.CAR_BOOST_FILL_SPEED);
+        }
+    }
+
+    @Override
+    public void writeState(ByteBuffer out) {
+        backend.writeState(body, out); // Including the wheels
+        out.putFloat(steerAngle);
+        out.putFloat(desiredSpeed);
+        out.putInt(power);
+        out.put((byte) (boostActive ? 1 : 0));
+        out.putFloat(boostAmount);
+
+        out.putInt(trail.size());
+        for (int i = 0; i < trail.size(); i++) {
+            out.putFloat(trail.getX(i));
+            out.putFloat(trail.getY(i));
         }
     }
 
+    @Override
+    public void readState(ByteBuffer in) {
+        backend.readState(body, in);
+        steerAngle = in.getFloat();
+        desiredSpeed = in.getFloat();
+        power = in.getInt();
+        boostActive = in.get() == 1;
+        boostAmount = in.getFloat();
+
+        trail.clear();
+        int trailSize = in.getInt();
+        for (int i = 0; i < trailSize; i++) {
+            trail.add(in.getFloat(), in.getFloat());
+        }
+
+        modelAsleep = false;
+        flushModel();
+    }
+
     @Override
     public float getX() {
-        return body.getPosition().x;
+        return backend.getX(body);
     }
 
     @Override
     public float getY() {
-        return body.getPosition().y;
+        return backend.getY(body);
     }
 
     @Override
     public float getDegree() {
-        return (float) Math.toDegrees(body.getAngle());
+        return (float) Math.toDegrees(backend.getAngle(body));
+    }
+
+    /**
+     * Returns whether the player gives input that moves the car: throttle or
+     * steering.
+     *
+     * @return Whether the car has input.
+     */
+    public boolean hasInput() {
+        return car.getThrottleAction() != ThrottleAction.IDLE
+                || car.getSteerAction() == SteerAction.STEER_LEFT
+                || car.getSteerAction() == SteerAction.STEER_RIGHT;
+    }
+
+    /**
+     * Returns whether the car is asleep without input. The controls of a
+     * resting car are not updated.
+     *
+     * @return Whether the car is resting.
+     */
+    public boolean isResting() {
+        return resting;
     }
 
     /**
@@ -199,7 +316,7 @@ public class CarPhysics extends AbstractWorldObject {
      * @return The linear velocity X value.
      */
     public float getLinearVelocityX() {
-        return body.getLinearVelocity().x;
+        return backend.getLinearVelocityX(body);
     }
 
     /**
@@ -208,7 +325,7 @@ public class CarPhysics extends AbstractWorldObject {
      * @return The linear velocity Y value.
      */
     public float getLinearVelocityY() {
-        return body.getLinearVelocity().y;
+        return backend.getLinearVelocityY(body);
     }
 
     /**
@@ -217,7 +334,7 @@ public class CarPhysics extends AbstractWorldObject {
      * @return The angular velocity value.
      */
     public float getAngularVelocity() {
-        return body.getAngularVelocity();
+        return backend.getAngularVelocity(body);
     }
 
     /**
@@ -230,9 +347,20 @@ public class CarPhysics extends AbstractWorldObject {
 
     /**
      * Returns the Box2D car body.
-     * @return The Box2D car body.
+     * @return The Box2D car body, or null if the engine uses another backend.
+     * @deprecated The car is simulated by the backend of the engine; use
+     * {@link #getBodyId()} with {@link GameEngine#getBackend()} instead.
      */
+    @Deprecated
     public Body getBody() {
+        return backend instanceof Box2DBackend ? ((Box2DBackend) backend).getBody(body) : null;
+    }
+
+    /**
+     * Returns the id of the car in the backend of the engine.
+     * @return The id of the car.
+     */
+    public int getBodyId() {
         return body;
     }
 
@@ -245,13 +373,22 @@ public class CarPhysics extends AbstractWorldObject {
     }
 
     /**
-     * Returns a list of all trail positions.
-     * @return A list of all trail positions.
+     * Returns the boost trail positions.
+     * @return The boost trail positions.
      */
-    public List<Point2D> getTrail() {
+    public BoostTrail getBoostTrail() {
         return trail;
     }
 
+    /**
+     * Returns the boost amount. Unlike the boost amount of the car model, it
+     * is always up to date.
+     * @return The boost amount.
+     */
+    public float getBoostAmount() {
+        return boostAmount;
+    }
+
     /**
      * Returns whether the boost is active.
      * @return Whether the boost is active.
@@ -0,0 +1,241 @@
+package nl.soccar.physics.models;
+
+import nl.soccar.library.Obstacle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * CompiledGeometry is the static geometry of a map layout, compiled into as
+ * few boxes as possible: axis-aligned obstacles that line up and touch are
+ * merged into a single box. Compiled geometry is cached per layout, so every
+ * session with the same layout shares the same boxes.
+ *
+ * @author PTS34A
+ */
+public final class CompiledGeometry {
+
+    private static final float EPSILON = 0.001F;
+    private static final int VALUES_PER_OBSTACLE = 5; // x, y, degree, width and height
+    private static final int VALUES_PER_BOX = 5; // x, y, angle in radians, half width and half height
+    private static final Map<Layout, CompiledGeometry> CACHE = new ConcurrentHashMap<>();
+
+    private final float[] boxes;
+    private final int obstacleCount;
+
+    private CompiledGeometry(float[] boxes, int obstacleCount) {
+        this.boxes = boxes;
+        this.obstacleCount = obstacleCount;
+    }
+
+    /**
+     * Returns the compiled geometry of the given obstacles, compiling it if
+     * the layout has not been compiled before.
+     *
+     * @param obstacles The obstacles of the map.
+     * @return The compiled geometry.
+     */
+    public static CompiledGeometry of(List<Obstacle> obstacles) {
+        float[] values = new float[obstacles.size() * VALUES_PER_OBSTACLE];
+
+        int i = 0;
+        for (Obstacle obstacle : obstacles) {
+            values[i++] = obstacle.getX();
+            values[i++] = obstacle.getY();
+            values[i++] = obstacle.getDegree();
+            values[i++] = obstacle.getWidth();
+            values[i++] = obstacle.getHeight();
+        }
+
+        return of(values);
+    }
+
+    /**
+     * Returns the compiled geometry of a layout, compiling it if the layout
+     * has not been compiled before.
+     *
+     * @param layout The center (x and y), angle in degrees, width and height of every obstacle, one after another.
+     * @return The compiled geometry.
+     */
+    public static CompiledGeometry of(float[] layout) {
+        if (layout.length % VALUES_PER_OBSTACLE != 0) {
+            throw new IllegalArgumentException("A layout has " + VALUES_PER_OBSTACLE + " values per obstacle.");
+        }
+
+        return CACHE.computeIfAbsent(new Layout(layout.clone()), l -> compile(l.values));
+    }
+
+    /**
+     * Compiles the given layout.
+     *
+     * @param layout The layout, see of(float[]).
+     * @return The compiled geometry.
+     */
+    private static CompiledGeometry compile(float[] layout) {
+        List<float[]> boxes = new ArrayList<>(); // minX, minY, maxX, maxY
+        List<float[]> compiled = new ArrayList<>(); // x, y, angle, halfWidth, halfHeight
+
+        for (int i = 0; i < layout.length; i += VALUES_PER_OBSTACLE) {
+            float x = layout[i];
+            float y = layout[i + 1];
+            float rotation = layout[i + 2];
+            float halfWidth = layout[i + 3] / 2;
+            float halfHeight = layout[i + 4] / 2;
+            float degree = ((rotation % 180) + 180) % 180;
+
+            if (Math.abs(degree - 90) < EPSILON) {
+                float swap = halfWidth;
+                halfWidth = halfHeight;
+                halfHeight = swap;
+            } else if (degree > EPSILON && degree < 180 - EPSILON) {
+                // Rotated obstacles can't be merged, they keep their own oriented box.
+                compiled.add(new float[]{x, y, (float) Math.toRadians(rotation), halfWidth, halfHeight});
+                continue;
+            }
+
+            boxes.add(new float[]{x - halfWidth, y - halfHeight, x + halfWidth, y + halfHeight});
+        }
+
+        mergeBoxes(boxes);
+
+        for (float[] box : boxes) {
+            float halfWidth = (box[2] - box[0]) / 2;
+            float halfHeight = (box[3] - box[1]) / 2;
+
+            compiled.add(new float[]{box[0] + halfWidth, box[1] + halfHeight, 0, halfWidth, halfHeight});
+        }
+
+        float[] values = new float[compiled.size() * VALUES_PER_BOX];
+        for (int i = 0; i < compiled.size(); i++) {
+            System.arraycopy(compiled.get(i), 0, values, i * VALUES_PER_BOX, VALUES_PER_BOX);
+        }
+
+        return new CompiledGeometry(values, layout.length / VALUES_PER_OBSTACLE);
+    }
+
+    /**
+     * Merges boxes that span the same rows and touch horizontally, or span the
+     * same columns and touch vertically, until no boxes can be merged anymore.
+     * Every pass sorts the boxes so that boxes that can be merged are next to
+     * each other, which keeps compiling maps with many pieces fast.
+     *
+     * @param boxes The boxes to merge, which are replaced by the merged boxes.
+     */
+    private static void mergeBoxes(List<float[]> boxes) {
+        int size;
+        do {
+            size = boxes.size();
+            mergeRuns(boxes, 1, 0); // Along the rows
+            mergeRuns(boxes, 0, 1); // Along the columns
+        } while (boxes.size() < size);
+    }
+
+    /**
+     * Merges the boxes that share the same extent on one axis and touch or
+     * overlap on the other axis.
+     *
+     * @param boxes The boxes to merge, which are replaced by the merged boxes.
+     * @param fixed The axis on which merged boxes have the same extent (0 for x, 1 for y).
+     * @param along The axis along which boxes are merged.
+     */
+    private static void mergeRuns(List<float[]> boxes, int fixed, int along) {
+        boxes.sort(Comparator.<float[]>comparingDouble(b -> b[fixed])
+                .thenComparingDouble(b -> b[fixed + 2])
+                .thenComparingDouble(b -> b[along]));
+
+        List<float[]> merged = new ArrayList<>(boxes.size());
+        float[] run = null;
+        for (float[] box : boxes) {
+            if (run != null && equal(run[fixed], box[fixed]) && equal(run[fixed + 2], box[fixed + 2]) && box[along] <= run[along + 2] + EPSILON) {
+                run[along + 2] = Math.max(run[along + 2], box[along + 2]);
+                continue;
+            }
+
+            run = box;
+            merged.add(box);
+        }
+
+        boxes.clear();
+        boxes.addAll(merged);
+    }
+
+    private static boolean equal(float a, float b) {
+        return Math.abs(a - b) < EPSILON;
+    }
+
+    /**
+     * Removes all compiled geometry from the cache.
+     */
+    public static void clearCache() {
+        CACHE.clear();
+    }
+
+    /**
+     * Returns the boxes of the geometry, in world coordinates: the center (x
+     * and y), the angle in radians, half the width and half the height of
+     * every box, one after another.
+     *
+     * @return A copy of the boxes.
+     */
+    public float[] getBoxes() {
+        return boxes.clone();
+    }
+
+    /**
+     * Returns the amount of boxes of the geometry.
+     *
+     * @return The amount of boxes.
+     */
+    public int getBoxCount() {
+        return boxes.length / VALUES_PER_BOX;
+    }
+
+    /**
+     * Returns the amount of obstacles this geometry was compiled from.
+     *
+     * @return The amount of obstacles.
+     */
+    public int getObstacleCount() {
+        return obstacleCount;
+    }
+
+    /**
+     * Returns the amount of layouts in the cache.
+     *
+     * @return The amount of cached layouts.
+     */
+    public static int getCacheSize() {
+        return CACHE.size();
+    }
+
+    /**
+     * The Layout identifies a set of obstacles by their position, angle and
+     * size.
+     */
+    private static final class Layout {
+
+        private final float[] values;
+        private final int hash;
+
+        private Layout(float[] values) {
+            this.values = values;
+            hash = Arrays.hashCode(values);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o || o instanceof Layout && Arrays.equals(values, ((Layout) o).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+    }
+
+}
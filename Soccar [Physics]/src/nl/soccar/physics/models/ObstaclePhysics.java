@@ -3,11 +3,11 @@ package nl.soccar.physics.models;
 import nl.soccar.library.Obstacle;
 import nl.soccar.physics.AbstractWorldObject;
 import nl.soccar.physics.GameEngine;
-import org.jbox2d.collision.shapes.PolygonShape;
-import org.jbox2d.common.Vec2;
-import org.jbox2d.dynamics.Body;
-import org.jbox2d.dynamics.BodyDef;
-import org.jbox2d.dynamics.FixtureDef;
+import nl.soccar.physics.backend.Material;
+import nl.soccar.physics.backend.PhysicsBackend;
+import nl.soccar.physics.checkpoint.Checkpointable;
+
+import java.nio.ByteBuffer;
 
 /**
  * ObstaclePhysics is a physics-model that keeps track of the physics of an
@@ -15,15 +15,18 @@ import org.jbox2d.dynamics.FixtureDef;
  *
  * @author PTS34A
  */
-public class ObstaclePhysics extends AbstractWorldObject {
+public class ObstaclePhysics extends AbstractWorldObject implements Checkpointable {
 
     private static final float FRICTION = 0.0F;
 
+    private static final Material MATERIAL = new Material(0, FRICTION, 0, 0, 0);
+
     private final GameEngine engine;
     private final Obstacle obstacle;
     private final float width;
     private final float height;
-    private Body body;
+    private PhysicsBackend backend;
+    private int body;
 
     /**
      * Initiates a new ObstaclePhysics Object using the given parameters.
@@ -38,16 +41,15 @@ public class ObstaclePhysics extends AbstractWorldObject {
         width = obstacle.getWidth();
         height = obstacle.getHeight();
 
-        doReset();
+        engine.getWorker().run(this::doReset);
     }
 
     @Override
     protected void doSetPosition(float x, float y, float degree, float linearVelocityX, float linearVelocityY, float angularVelocity) {
         obstacle.move(x, y, degree);
 
-        body.setLinearVelocity(new Vec2(linearVelocityX, linearVelocityY));
-        body.setAngularVelocity(angularVelocity);
-        body.setTransform(new Vec2(x, y), (float) Math.toRadians(degree));
+        // Obstacles are static, so they don't have a velocity.
+        backend.setTransform(body, x, y, (float) Math.toRadians(degree));
     }
 
     @Override
@@ -57,29 +59,28 @@ public class ObstaclePhysics extends AbstractWorldObject {
 
     @Override
     protected void doReset() {
-        BodyDef bd = new BodyDef();
-        bd.position.set(obstacle.getX(), obstacle.getY());
-        bd.angle = (float) Math.toRadians(obstacle.getDegree());
-
-        PolygonShape shape = new PolygonShape();
-        shape.setAsBox(width / 2, height / 2);
+        backend = engine.getBackend();
+        body = backend.addStaticBox(obstacle.getX(), obstacle.getY(), (float) Math.toRadians(obstacle.getDegree()), width / 2, height / 2, MATERIAL);
+    }
 
-        FixtureDef fd = new FixtureDef();
-        fd.friction = FRICTION;
-        fd.shape = shape;
+    @Override
+    public void writeState(ByteBuffer out) {
+        backend.writeState(body, out);
+    }
 
-        body = engine.getWorld().createBody(bd);
-        body.createFixture(fd);
+    @Override
+    public void readState(ByteBuffer in) {
+        backend.readState(body, in);
     }
 
     @Override
     public float getX() {
-        return body.getPosition().x;
+        return backend.getX(body);
     }
 
     @Override
     public float getY() {
-        return body.getPosition().y;
+        return backend.getY(body);
     }
 
     /**
@@ -92,7 +93,7 @@ public class ObstaclePhysics extends AbstractWorldObject {
 
     @Override
     public float getDegree() {
-        return body.m_sweep.a;
+        return backend.getAngle(body);
     }
 
 }
@@ -0,0 +1,92 @@
+package nl.soccar.physics.models;
+
+import nl.soccar.library.Obstacle;
+import nl.soccar.physics.AbstractWorldObject;
+import nl.soccar.physics.GameEngine;
+import nl.soccar.physics.backend.Material;
+
+import java.util.List;
+
+/**
+ * StaticGeometryPhysics is a physics-model that places all obstacles of a map
+ * in the world as a single static body, with one fixture per box of the
+ * compiled geometry. For maps with many wall pieces this keeps the body list
+ * and the broadphase small, compared to one ObstaclePhysics per obstacle.
+ *
+ * @author PTS34A
+ */
+public class StaticGeometryPhysics extends AbstractWorldObject {
+
+    private static final float FRICTION = 0.0F;
+
+    private static final Material MATERIAL = new Material(0, FRICTION, 0, 0, 0);
+
+    private final GameEngine engine;
+    private final CompiledGeometry geometry;
+
+    /**
+     * Initiates a new StaticGeometryPhysics Object using the given parameters.
+     *
+     * @param engine    The engine in which the geometry is placed.
+     * @param obstacles The obstacles of the map.
+     */
+    public StaticGeometryPhysics(GameEngine engine, List<Obstacle> obstacles) {
+        this.engine = engine;
+
+        geometry = CompiledGeometry.of(obstacles);
+
+        engine.getWorker().run(this::doReset);
+    }
+
+    @Override
+    protected void doStep() {
+        // The step method is not implemented because obstacles never move on the map.
+    }
+
+    @Override
+    protected void doSetPosition(float x, float y, float degree, float linearVelocityX, float linearVelocityY, float angularVelocity) {
+        throw new UnsupportedOperationException("Can't set position of static geometry.");
+    }
+
+    @Override
+    protected void doReset() {
+        engine.getBackend().addStaticGeometry(geometry.getBoxes(), MATERIAL);
+    }
+
+    /**
+     * The boxes of the geometry are placed in world coordinates, so the
+     * geometry itself is at the origin.
+     *
+     * @return Zero.
+     */
+    @Override
+    public float getX() {
+        return 0;
+    }
+
+    /**
+     * The boxes of the geometry are placed in world coordinates, so the
+     * geometry itself is at the origin.
+     *
+     * @return Zero.
+     */
+    @Override
+    public float getY() {
+        return 0;
+    }
+
+    @Override
+    public float getDegree() {
+        return 0;
+    }
+
+    /**
+     * Returns the compiled geometry.
+     *
+     * @return The compiled geometry.
+     */
+    public CompiledGeometry getGeometry() {
+        return geometry;
+    }
+
+}
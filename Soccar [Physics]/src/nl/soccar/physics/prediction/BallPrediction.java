@@ -0,0 +1,192 @@
+package nl.soccar.physics.prediction;
+
+import nl.soccar.physics.PhysicsConstants;
+import nl.soccar.physics.backend.Material;
+import nl.soccar.physics.backend.PhysicsBackend;
+import nl.soccar.physics.models.BallPhysics;
+import org.jbox2d.common.Vec2;
+
+/**
+ * BallPrediction holds the predicted path of the ball for the next seconds.
+ * The path is integrated with the damping Box2D applies to the ball, and
+ * bounces off static geometry, found with ray casts against the backend. Cars
+ * are not taken into account. The path is computed at most once per tick and
+ * shared by all callers, and computing it does not allocate.
+ *
+ * @author PTS34A
+ */
+public final class BallPrediction {
+
+    private static final float DT = 1.0F / PhysicsConstants.ENGINE_FPS;
+    private static final float REST_SPEED = 0.01F;
+
+    private final int steps = PhysicsConstants.PREDICTION_HORIZON_TICKS;
+    private final float[] xs = new float[steps + 1];
+    private final float[] ys = new float[steps + 1];
+    private final float[] vxs = new float[steps + 1];
+    private final float[] vys = new float[steps + 1];
+    private final float[] hit = new float[4]; // The point and the normal of a ray cast
+    private long computedTick = -1;
+    private boolean valid = false;
+
+    /**
+     * Computes the path of the ball, unless it has already been computed for
+     * the given tick. The caller must make sure the backend is not stepped in
+     * the meantime.
+     *
+     * @param tick    The current tick number.
+     * @param backend The backend that simulates the ball.
+     * @param ball    The ball, or null if there is none.
+     */
+    public synchronized void update(long tick, PhysicsBackend backend, BallPhysics ball) {
+        if (tick == computedTick) {
+            return;
+        }
+
+        computedTick = tick;
+        valid = ball != null && backend != null && !ball.isResetting();
+        if (!valid) {
+            return;
+        }
+
+        Material material = ball.getMaterial();
+        float radius = ball.getRadius();
+        float damping = Math.min(Math.max(1.0F - DT * material.getLinearDamping(), 0.0F), 1.0F);
+        float restitution = material.getRestitution();
+
+        float x = ball.getX();
+        float y = ball.getY();
+        float vx = ball.getLinearVelocityX();
+        float vy = ball.getLinearVelocityY();
+        xs[0] = x;
+        ys[0] = y;
+        vxs[0] = vx;
+        vys[0] = vy;
+
+        for (int i = 1; i <= steps; i++) {
+            // Box2D applies damping to the velocity before integrating the position.
+            vx *= damping;
+            vy *= damping;
+
+            float speed = (float) Math.sqrt(vx * vx + vy * vy);
+            if (speed > REST_SPEED) {
+                float dx = vx * DT;
+                float dy = vy * DT;
+                float reachX = vx / speed * radius;
+                float reachY = vy / speed * radius;
+
+                if (backend.rayCastStatic(x, y, x + dx + reachX, y + dy + reachY, hit)) {
+                    // Stop at the wall, and reflect the velocity off its normal.
+                    x = hit[0] - reachX;
+                    y = hit[1] - reachY;
+
+                    float normalSpeed = vx * hit[2] + vy * hit[3];
+                    if (normalSpeed < 0) {
+                        vx -= (1 + restitution) * normalSpeed * hit[2];
+                        vy -= (1 + restitution) * normalSpeed * hit[3];
+                    }
+                } else {
+                    x += dx;
+                    y += dy;
+                }
+            } else {
+                vx = 0;
+                vy = 0;
+            }
+
+            xs[i] = x;
+            ys[i] = y;
+            vxs[i] = vx;
+            vys[i] = vy;
+        }
+    }
+
+    /**
+     * Gets the predicted position of the ball.
+     *
+     * @param seconds The time from now, at most the prediction horizon.
+     * @param out     The vector to write the position to.
+     * @return Whether there is a prediction.
+     */
+    public synchronized boolean getPosition(float seconds, Vec2 out) {
+        if (!valid) {
+            return false;
+        }
+
+        float step = clampStep(seconds);
+        int index = (int) step;
+        int next = Math.min(index + 1, steps);
+        float alpha = step - index;
+
+        out.set(xs[index] + (xs[next] - xs[index]) * alpha, ys[index] + (ys[next] - ys[index]) * alpha);
+        return true;
+    }
+
+    /**
+     * Gets the predicted velocity of the ball.
+     *
+     * @param seconds The time from now, at most the prediction horizon.
+     * @param out     The vector to write the velocity to.
+     * @return Whether there is a prediction.
+     */
+    public synchronized boolean getVelocity(float seconds, Vec2 out) {
+        if (!valid) {
+            return false;
+        }
+
+        int index = Math.round(clampStep(seconds));
+        out.set(vxs[index], vys[index]);
+        return true;
+    }
+
+    /**
+     * Determines when the center of the ball first crosses a vertical line,
+     * for example a goal line.
+     *
+     * @param lineX The x-coordinate of the line.
+     * @return The time from now in seconds, or -1 if the ball does not cross the line within the horizon.
+     */
+    public synchronized float getTimeToReachX(float lineX) {
+        if (!valid) {
+            return -1;
+        }
+
+        for (int i = 1; i <= steps; i++) {
+            float before = xs[i - 1] - lineX;
+            float after = xs[i] - lineX;
+            if (before == 0) {
+                return (i - 1) * DT;
+            }
+
+            if (before * after <= 0) {
+                float alpha = before / (before - after);
+                return (i - 1 + alpha) * DT;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Returns the tick the prediction was computed in.
+     *
+     * @return The tick number, or -1 if nothing has been computed yet.
+     */
+    public synchronized long getComputedTick() {
+        return computedTick;
+    }
+
+    /**
+     * Returns how far ahead the prediction reaches.
+     *
+     * @return The horizon in seconds.
+     */
+    public float getHorizon() {
+        return steps * DT;
+    }
+
+    private float clampStep(float seconds) {
+        return Math.max(0, Math.min(steps, seconds / DT));
+    }
+
+}
@@ -0,0 +1,34 @@
+package nl.soccar.physics.replay;
+
+/**
+ * Constants that describe the layout of a replay file.
+ * <p>
+ * A replay file starts with a header (magic, version, object count and
+ * keyframe interval), followed by one record per tick. A keyframe record holds
+ * the x, y and angle of every object; a delta record only holds the objects
+ * that changed since the previous record, each prefixed with its index. The
+ * file ends with the keyframe index (pairs of tick and file offset), the
+ * offset of that index and a footer magic.
+ *
+ * @author PTS34A
+ */
+final class ReplayFormat {
+
+    static final int MAGIC = 0x53435250; // "SCRP"
+    static final int FOOTER_MAGIC = 0x53435246; // "SCRF"
+    static final int VERSION = 1;
+
+    static final byte KEYFRAME = 1;
+    static final byte DELTA = 2;
+
+    static final int HEADER_SIZE = 4 * Integer.BYTES;
+    static final int FOOTER_SIZE = Long.BYTES + Integer.BYTES;
+    static final int RECORD_HEADER_SIZE = Byte.BYTES + Long.BYTES;
+    static final int STRIDE = 3; // x, y and angle
+    static final int OBJECT_SIZE = STRIDE * Float.BYTES;
+    static final int INDEX_ENTRY_SIZE = 2 * Long.BYTES;
+
+    private ReplayFormat() {
+    }
+
+}
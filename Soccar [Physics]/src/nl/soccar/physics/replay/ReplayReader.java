@@ -0,0 +1,162 @@
+package nl.soccar.physics.replay;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The ReplayReader memory-maps a replay file and seeks to any tick by loading
+ * the nearest keyframe before it and applying the deltas up to that tick. Only
+ * the pages that are touched are loaded from disk, so seeking in a long match
+ * does not load the whole file.
+ *
+ * @author PTS34A
+ */
+public final class ReplayReader implements AutoCloseable {
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int objectCount;
+    private final long[] keyframeTicks;
+    private final long[] keyframeOffsets;
+    private final long indexOffset;
+
+    /**
+     * Opens the given replay file.
+     *
+     * @param path The path of the replay file.
+     * @throws IOException When the file can't be read or is not a replay file.
+     */
+    public ReplayReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+        if (buffer.capacity() < ReplayFormat.HEADER_SIZE + ReplayFormat.FOOTER_SIZE
+                || buffer.getInt(0) != ReplayFormat.MAGIC
+                || buffer.getInt(buffer.capacity() - Integer.BYTES) != ReplayFormat.FOOTER_MAGIC) {
+            channel.close();
+            throw new IOException("Not a complete replay file: " + path);
+        }
+
+        if (buffer.getInt(Integer.BYTES) != ReplayFormat.VERSION) {
+            channel.close();
+            throw new IOException("Unsupported replay version: " + buffer.getInt(Integer.BYTES));
+        }
+
+        objectCount = buffer.getInt(2 * Integer.BYTES);
+
+        indexOffset = buffer.getLong(buffer.capacity() - ReplayFormat.FOOTER_SIZE);
+        int keyframes = buffer.getInt((int) indexOffset);
+        keyframeTicks = new long[keyframes];
+        keyframeOffsets = new long[keyframes];
+
+        int position = (int) indexOffset + Integer.BYTES;
+        for (int i = 0; i < keyframes; i++) {
+            keyframeTicks[i] = buffer.getLong(position);
+            keyframeOffsets[i] = buffer.getLong(position + Long.BYTES);
+            position += ReplayFormat.INDEX_ENTRY_SIZE;
+        }
+    }
+
+    /**
+     * Determines the transforms of all objects at the given tick. Ticks before
+     * the first keyframe resolve to the first keyframe, ticks after the last
+     * record resolve to the last record.
+     *
+     * @param tick  The tick to seek to.
+     * @param state An array of three floats (x, y and angle) per object to write the transforms to.
+     * @return The tick the state belongs to, or -1 if the replay is empty.
+     */
+    public long seek(long tick, float[] state) {
+        if (state.length < objectCount * ReplayFormat.STRIDE) {
+            throw new IllegalArgumentException("The state array is too small for " + objectCount + " objects.");
+        }
+
+        int keyframe = findKeyframe(tick);
+        if (keyframe < 0) {
+            return -1;
+        }
+
+        int position = (int) keyframeOffsets[keyframe] + Byte.BYTES;
+        long reached = buffer.getLong(position);
+        position += Long.BYTES;
+        for (int i = 0; i < objectCount * ReplayFormat.STRIDE; i++) {
+            state[i] = buffer.getFloat(position);
+            position += Float.BYTES;
+        }
+
+        while (position < indexOffset) {
+            byte type = buffer.get(position);
+            long recordTick = buffer.getLong(position + Byte.BYTES);
+            if (type != ReplayFormat.DELTA || recordTick > tick) {
+                break;
+            }
+
+            position += ReplayFormat.RECORD_HEADER_SIZE;
+            int changed = buffer.getShort(position);
+            position += Short.BYTES;
+            for (int i = 0; i < changed; i++) {
+                int index = buffer.getShort(position) * ReplayFormat.STRIDE;
+                position += Short.BYTES;
+                state[index] = buffer.getFloat(position);
+                state[index + 1] = buffer.getFloat(position + Float.BYTES);
+                state[index + 2] = buffer.getFloat(position + 2 * Float.BYTES);
+                position += ReplayFormat.OBJECT_SIZE;
+            }
+
+            reached = recordTick;
+        }
+
+        return reached;
+    }
+
+    /**
+     * Finds the last keyframe at or before the given tick.
+     *
+     * @param tick The tick.
+     * @return The index of the keyframe, or -1 if there are no keyframes.
+     */
+    private int findKeyframe(long tick) {
+        int low = 0;
+        int high = keyframeTicks.length - 1;
+        int found = keyframeTicks.length > 0 ? 0 : -1;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (keyframeTicks[middle] <= tick) {
+                found = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        return found;
+    }
+
+    /**
+     * Returns the amount of objects in the replay.
+     *
+     * @return The amount of objects.
+     */
+    public int getObjectCount() {
+        return objectCount;
+    }
+
+    /**
+     * Returns the first tick of the replay.
+     *
+     * @return The first tick, or -1 if the replay is empty.
+     */
+    public long getFirstTick() {
+        return keyframeTicks.length == 0 ? -1 : keyframeTicks[0];
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+}
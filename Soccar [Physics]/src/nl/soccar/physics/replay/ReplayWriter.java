@@ -0,0 +1,329 @@
+package nl.soccar.physics.replay;
+
+import nl.soccar.physics.GameEngine;
+import nl.soccar.physics.PhysicsConstants;
+import nl.soccar.physics.WorldObject;
+import nl.soccar.physics.listener.TickListener;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The ReplayWriter records the transforms of a fixed set of world objects to
+ * a seekable replay file. Every keyframe interval a full keyframe is written;
+ * in between only the objects that changed are written. The keyframe index is
+ * appended when the writer is closed. See ReplayFormat for the layout.
+ * <p>
+ * Records are encoded into a buffer on the engine thread; full buffers are
+ * written to the file on a background thread, so the engine thread never
+ * waits for the disk. When the file can't be written, or the disk falls too
+ * far behind, recording stops and the failure is logged; it is never thrown
+ * into the tick.
+ *
+ * @author PTS34A
+ */
+public final class ReplayWriter implements TickListener, AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(ReplayWriter.class.getSimpleName());
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_PENDING_BUFFERS = 16; // Buffers that may wait for the disk
+
+    private final FileChannel channel;
+    private final ExecutorService executor;
+    private final Queue<ByteBuffer> spareBuffers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingBuffers = new AtomicInteger();
+    private final List<WorldObject> objects;
+    private final int keyframeInterval;
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private volatile IOException failure;
+    private boolean recording = true;
+    private final float[] previous;
+    private final float[] current;
+    private long[] indexTicks = new long[64];
+    private long[] indexOffsets = new long[64];
+    private int indexSize = 0;
+    private long offset = 0;
+    private long recordedTicks = 0;
+
+    /**
+     * Initiates a new ReplayWriter that records the given objects, with the
+     * default keyframe interval.
+     *
+     * @param path    The path of the replay file, which is overwritten if it exists.
+     * @param objects The objects to record.
+     * @throws IOException When the file can't be opened.
+     */
+    public ReplayWriter(Path path, List<WorldObject> objects) throws IOException {
+        this(path, objects, PhysicsConstants.REPLAY_KEYFRAME_INTERVAL);
+    }
+
+    /**
+     * Initiates a new ReplayWriter using the given parameters.
+     *
+     * @param path             The path of the replay file, which is overwritten if it exists.
+     * @param objects          The objects to record.
+     * @param keyframeInterval The amount of ticks between two keyframes.
+     * @throws IOException When the file can't be opened.
+     */
+    public ReplayWriter(Path path, List<WorldObject> objects, int keyframeInterval) throws IOException {
+        if (keyframeInterval < 1) {
+            throw new IllegalArgumentException("The keyframe interval must be at least one tick.");
+        }
+
+        this.objects = new ArrayList<>(objects);
+        this.keyframeInterval = keyframeInterval;
+
+        previous = new float[this.objects.size() * ReplayFormat.STRIDE];
+        current = new float[previous.length];
+
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "replay-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        buffer.putInt(ReplayFormat.MAGIC);
+        buffer.putInt(ReplayFormat.VERSION);
+        buffer.putInt(this.objects.size());
+        buffer.putInt(keyframeInterval);
+        offset = ReplayFormat.HEADER_SIZE;
+    }
+
+    @Override
+    public void onTick(GameEngine engine, long tick) {
+        record(tick);
+    }
+
+    /**
+     * Records the current transforms of all objects. Does nothing once
+     * recording has stopped because of a failure.
+     *
+     * @param tick The number of the tick.
+     */
+    public synchronized void record(long tick) {
+        if (!recording) {
+            return;
+        }
+
+        if (failure != null) {
+            stopRecording("Failed to write the replay, recording stopped.", failure);
+            return;
+        }
+
+        for (int i = 0; i < objects.size(); i++) {
+            WorldObject object = objects.get(i);
+            int index = i * ReplayFormat.STRIDE;
+            current[index] = object.getX();
+            current[index + 1] = object.getY();
+            current[index + 2] = object.getDegree();
+        }
+
+        boolean written = recordedTicks % keyframeInterval == 0 ? writeKeyframe(tick) : writeDelta(tick);
+        if (!written) {
+            return;
+        }
+
+        System.arraycopy(current, 0, previous, 0, current.length);
+        recordedTicks++;
+    }
+
+    private boolean writeKeyframe(long tick) {
+        if (!ensureCapacity(ReplayFormat.RECORD_HEADER_SIZE + objects.size() * ReplayFormat.OBJECT_SIZE)) {
+            return false;
+        }
+
+        if (indexSize == indexTicks.length) {
+            indexTicks = Arrays.copyOf(indexTicks, indexSize * 2);
+            indexOffsets = Arrays.copyOf(indexOffsets, indexSize * 2);
+        }
+        indexTicks[indexSize] = tick;
+        indexOffsets[indexSize] = offset;
+        indexSize++;
+
+        int start = buffer.position();
+        buffer.put(ReplayFormat.KEYFRAME);
+        buffer.putLong(tick);
+        for (float value : current) {
+            buffer.putFloat(value);
+        }
+        offset += buffer.position() - start;
+        return true;
+    }
+
+    private boolean writeDelta(long tick) {
+        int changed = 0;
+        for (int i = 0; i < objects.size(); i++) {
+            if (hasChanged(i)) {
+                changed++;
+            }
+        }
+
+        if (!ensureCapacity(ReplayFormat.RECORD_HEADER_SIZE + Short.BYTES + changed * (Short.BYTES + ReplayFormat.OBJECT_SIZE))) {
+            return false;
+        }
+
+        int start = buffer.position();
+        buffer.put(ReplayFormat.DELTA);
+        buffer.putLong(tick);
+        buffer.putShort((short) changed);
+        for (int i = 0; i < objects.size(); i++) {
+            if (!hasChanged(i)) {
+                continue;
+            }
+
+            int index = i * ReplayFormat.STRIDE;
+            buffer.putShort((short) i);
+            buffer.putFloat(current[index]);
+            buffer.putFloat(current[index + 1]);
+            buffer.putFloat(current[index + 2]);
+        }
+        offset += buffer.position() - start;
+        return true;
+    }
+
+    private boolean hasChanged(int object) {
+        int index = object * ReplayFormat.STRIDE;
+        for (int i = index; i < index + ReplayFormat.STRIDE; i++) {
+            if (Float.floatToIntBits(current[i]) != Float.floatToIntBits(previous[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Makes sure the buffer has room for the given amount of bytes, by handing
+     * a full buffer to the background thread.
+     *
+     * @param bytes The amount of bytes.
+     * @return Whether there is room, or false if recording has stopped.
+     */
+    private boolean ensureCapacity(int bytes) {
+        if (buffer.remaining() >= bytes) {
+            return true;
+        }
+
+        if (pendingBuffers.get() >= MAX_PENDING_BUFFERS) {
+            stopRecording("The disk can't keep up with the replay, recording stopped.", null);
+            return false;
+        }
+
+        flush();
+        return true;
+    }
+
+    /**
+     * Hands the buffer to the background thread, and continues in a spare
+     * buffer.
+     */
+    private void flush() {
+        ByteBuffer full = buffer;
+        full.flip();
+
+        ByteBuffer spare = spareBuffers.poll();
+        buffer = spare != null ? spare : ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        pendingBuffers.incrementAndGet();
+        executor.execute(() -> {
+            try {
+                if (failure == null) {
+                    while (full.hasRemaining()) {
+                        channel.write(full);
+                    }
+                }
+            } catch (IOException e) {
+                failure = e;
+            } finally {
+                full.clear();
+                spareBuffers.add(full);
+                pendingBuffers.decrementAndGet();
+            }
+        });
+    }
+
+    private void stopRecording(String message, IOException cause) {
+        recording = false;
+        LOGGER.log(Level.WARNING, message, cause);
+    }
+
+    /**
+     * Returns whether the writer is still recording; recording stops when the
+     * file can't be written or the disk falls too far behind.
+     *
+     * @return Whether the writer is recording.
+     */
+    public synchronized boolean isRecording() {
+        return recording && failure == null;
+    }
+
+    /**
+     * Writes the keyframe index, waits for all pending buffers and closes the
+     * file. When the disk fell behind, the replay ends at the last record
+     * before recording stopped; when the file could not be written, it is
+     * closed without an index.
+     *
+     * @throws IOException When the file can't be written or closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (failure == null && !executor.isShutdown()) {
+            recording = false;
+            writeIndex();
+            flush();
+        }
+
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        channel.close();
+
+        IOException cause = failure;
+        if (cause != null) {
+            throw cause;
+        }
+    }
+
+    private void writeIndex() {
+        long indexOffset = offset;
+
+        // The index is written regardless of how far behind the disk is.
+        reserve(Integer.BYTES);
+        buffer.putInt(indexSize);
+        for (int i = 0; i < indexSize; i++) {
+            reserve(ReplayFormat.INDEX_ENTRY_SIZE);
+            buffer.putLong(indexTicks[i]);
+            buffer.putLong(indexOffsets[i]);
+        }
+
+        reserve(ReplayFormat.FOOTER_SIZE);
+        buffer.putLong(indexOffset);
+        buffer.putInt(ReplayFormat.FOOTER_MAGIC);
+    }
+
+    private void reserve(int bytes) {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+}
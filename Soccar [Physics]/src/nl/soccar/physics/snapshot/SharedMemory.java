@@ -0,0 +1,74 @@
+package nl.soccar.physics.snapshot;
+
+import sun.misc.Unsafe;
+
+import java.lang.reflect.Field;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * SharedMemory provides the ordered memory accesses a seqlock in a mapped
+ * file needs, which ByteBuffer does not offer: volatile reads and writes of a
+ * long at a raw address, and load and store fences. Java 8 only offers these
+ * through Unsafe, which is looked up once, by reflection.
+ *
+ * @author PTS34A
+ */
+final class SharedMemory {
+
+    private static final Unsafe UNSAFE;
+    private static final long ADDRESS_OFFSET;
+
+    static {
+        try {
+            Field field = Unsafe.class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            UNSAFE = (Unsafe) field.get(null);
+            ADDRESS_OFFSET = UNSAFE.objectFieldOffset(Buffer.class.getDeclaredField("address"));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private SharedMemory() {
+    }
+
+    /**
+     * Returns the address of the memory of a direct or mapped buffer.
+     *
+     * @param buffer The buffer.
+     * @return The address.
+     */
+    static long addressOf(ByteBuffer buffer) {
+        if (!buffer.isDirect()) {
+            throw new IllegalArgumentException("Only direct and mapped buffers have an address.");
+        }
+
+        return UNSAFE.getLong(buffer, ADDRESS_OFFSET);
+    }
+
+    static long getLongVolatile(long address) {
+        return UNSAFE.getLongVolatile(null, address);
+    }
+
+    static void putLongVolatile(long address, long value) {
+        UNSAFE.putLongVolatile(null, address, value);
+    }
+
+    /**
+     * Prevents stores before the fence from being reordered with stores after
+     * it.
+     */
+    static void storeFence() {
+        UNSAFE.storeFence();
+    }
+
+    /**
+     * Prevents loads before the fence from being reordered with loads after
+     * it.
+     */
+    static void loadFence() {
+        UNSAFE.loadFence();
+    }
+
+}
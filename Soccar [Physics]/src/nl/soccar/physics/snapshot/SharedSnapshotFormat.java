@@ -0,0 +1,44 @@
+package nl.soccar.physics.snapshot;
+
+/**
+ * Constants that describe the layout of a shared snapshot file.
+ * <p>
+ * The file starts with a header (magic, version and frame capacity), followed
+ * by the sequence number of the frame on its own cache line and the frame
+ * itself: the moment it was published (System.nanoTime(), a long), the length
+ * of the snapshot (int) and the snapshot as encoded by SnapshotEncoder.
+ * <p>
+ * The frame is guarded by the sequence number (a seqlock): the writer makes
+ * it odd before it writes the frame and even again afterwards. A reader that
+ * sees the same even sequence number before and after reading the frame has
+ * read a consistent frame. A sequence number of zero means that nothing has
+ * been published yet.
+ *
+ * @author PTS34A
+ */
+final class SharedSnapshotFormat {
+
+    static final int MAGIC = 0x53435353; // "SCSS"
+    static final int VERSION = 1;
+
+    static final int CACHE_LINE = 64;
+    static final int CAPACITY_OFFSET = 2 * Integer.BYTES;
+    static final int SEQUENCE_OFFSET = CACHE_LINE;
+    static final int PUBLISHED_OFFSET = 2 * CACHE_LINE;
+    static final int LENGTH_OFFSET = PUBLISHED_OFFSET + Long.BYTES;
+    static final int DATA_OFFSET = LENGTH_OFFSET + Integer.BYTES;
+
+    private SharedSnapshotFormat() {
+    }
+
+    /**
+     * Determines the size of a shared snapshot file.
+     *
+     * @param capacity The maximum size of a snapshot.
+     * @return The size of the file in bytes.
+     */
+    static int fileSize(int capacity) {
+        return DATA_OFFSET + capacity;
+    }
+
+}
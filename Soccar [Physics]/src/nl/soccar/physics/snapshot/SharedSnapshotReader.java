@@ -0,0 +1,193 @@
+package nl.soccar.physics.snapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Function;
+
+/**
+ * The SharedSnapshotReader reads the frames a SharedSnapshotWriter, usually in
+ * another process, publishes into a memory-mapped file. Reading takes no
+ * system calls: the frame is read from the mapped memory and validated
+ * against the sequence number of the seqlock, and read again if the writer
+ * changed it in the meantime.
+ * <p>
+ * Consumers poll getSequence() to see whether a new frame is available. A
+ * reader is not thread-safe; every consumer thread should open its own.
+ * This class only depends on the JDK, so consumers don't need the engine.
+ *
+ * @author PTS34A
+ */
+public final class SharedSnapshotReader implements AutoCloseable {
+
+    private static final int SPINS_BEFORE_YIELD = 100;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final ByteBuffer frame;
+    private final long sequenceAddress;
+    private final int capacity;
+    private long publishedNs = 0;
+    private long retries = 0;
+
+    /**
+     * Opens the given shared snapshot file.
+     *
+     * @param path The path of the file.
+     * @throws IOException When the file can't be read or is not a shared snapshot file.
+     */
+    public SharedSnapshotReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+        if (buffer.capacity() < SharedSnapshotFormat.DATA_OFFSET || buffer.getInt(0) != SharedSnapshotFormat.MAGIC) {
+            channel.close();
+            throw new IOException("Not a shared snapshot file: " + path);
+        }
+
+        if (buffer.getInt(Integer.BYTES) != SharedSnapshotFormat.VERSION) {
+            channel.close();
+            throw new IOException("Unsupported shared snapshot version: " + buffer.getInt(Integer.BYTES));
+        }
+
+        capacity = buffer.getInt(SharedSnapshotFormat.CAPACITY_OFFSET);
+        if (buffer.capacity() < SharedSnapshotFormat.fileSize(capacity)) {
+            channel.close();
+            throw new IOException("The shared snapshot file is truncated: " + path);
+        }
+
+        sequenceAddress = SharedMemory.addressOf(buffer) + SharedSnapshotFormat.SEQUENCE_OFFSET;
+
+        buffer.position(SharedSnapshotFormat.DATA_OFFSET);
+        frame = buffer.slice();
+        buffer.position(0);
+    }
+
+    /**
+     * Returns the sequence number of the latest frame. It changes every time
+     * a frame is published; it's odd while a frame is being written and zero
+     * if nothing has been published yet.
+     *
+     * @return The sequence number.
+     */
+    public long getSequence() {
+        return SharedMemory.getLongVolatile(sequenceAddress);
+    }
+
+    /**
+     * Copies the latest frame into the given buffer, which is cleared first
+     * and flipped afterwards. The buffer should have room for getCapacity()
+     * bytes.
+     *
+     * @param target The buffer to copy the snapshot to.
+     * @return The tick of the snapshot, or -1 if nothing has been published yet.
+     */
+    public long read(ByteBuffer target) {
+        if (target.capacity() < capacity) {
+            throw new IllegalArgumentException("The target buffer must have room for " + capacity + " bytes.");
+        }
+
+        Long tick = read(f -> {
+            target.clear();
+            target.put(f);
+            target.flip();
+            return target.getLong(0);
+        });
+        return tick == null ? -1 : tick;
+    }
+
+    /**
+     * Decodes the latest frame in place, without copying it. The decoder gets
+     * a read-only view of the snapshot in the mapped memory; it may be called
+     * more than once if the writer publishes while it runs, and must not keep
+     * the view or act on the frame before this method returns.
+     *
+     * @param decoder The decoder, see SnapshotEncoder for the layout.
+     * @param <T>     The type of the decoded value.
+     * @return The decoded value, or null if nothing has been published yet.
+     */
+    public <T> T read(Function<ByteBuffer, T> decoder) {
+        int spins = 0;
+        while (true) {
+            long before = getSequence();
+            if (before == 0) {
+                return null;
+            }
+
+            if ((before & 1) == 0) {
+                long published = buffer.getLong(SharedSnapshotFormat.PUBLISHED_OFFSET);
+                int length = buffer.getInt(SharedSnapshotFormat.LENGTH_OFFSET);
+
+                T value = null;
+                boolean decoded = false;
+                if (length >= 0 && length <= capacity) {
+                    frame.limit(length).position(0);
+                    try {
+                        value = decoder.apply(frame);
+                        decoded = true;
+                    } catch (RuntimeException e) {
+                        // A torn frame may fail to decode in any way; this is only an error if the frame turns out to be consistent.
+                        if (isUnchanged(before)) {
+                            throw e;
+                        }
+                    }
+                }
+
+                if (decoded && isUnchanged(before)) {
+                    publishedNs = published;
+                    return value;
+                }
+            }
+
+            retries++;
+            if (++spins % SPINS_BEFORE_YIELD == 0) {
+                Thread.yield();
+            }
+        }
+    }
+
+    private boolean isUnchanged(long before) {
+        // Keep the reads of the frame before the second read of the sequence number.
+        SharedMemory.loadFence();
+        return getSequence() == before;
+    }
+
+    /**
+     * Returns the moment the last frame that was read was published, as
+     * System.nanoTime() of the writer. On Linux, this clock is shared by all
+     * processes of the host.
+     *
+     * @return The moment of publishing in nanoseconds.
+     */
+    public long getPublishedNs() {
+        return publishedNs;
+    }
+
+    /**
+     * Returns how often a read had to be retried because the writer was
+     * publishing at the same time.
+     *
+     * @return The amount of retries.
+     */
+    public long getRetries() {
+        return retries;
+    }
+
+    /**
+     * Returns the maximum size of a snapshot.
+     *
+     * @return The capacity in bytes.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+}
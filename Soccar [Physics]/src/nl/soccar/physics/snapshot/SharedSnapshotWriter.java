@@ -0,0 +1,137 @@
+package nl.soccar.physics.snapshot;
+
+import nl.soccar.physics.GameEngine;
+import nl.soccar.physics.listener.TickListener;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The SharedSnapshotWriter publishes the latest state of an engine into a
+ * memory-mapped file, every tick, for consumers in other processes on the
+ * same host. The snapshot is encoded straight into the mapped memory, guarded
+ * by a seqlock; see SharedSnapshotFormat for the layout. A
+ * SharedSnapshotReader reads the frames without system calls.
+ * <p>
+ * There must be a single writer per file, and it must be used by the thread
+ * that steps the engine, which is the case when it's added as a tick
+ * listener.
+ * <p>
+ * The file is prepared under a temporary name and moved into place once its
+ * header is complete, so a reader never maps a half-initialised file. A
+ * reader that still has the file of a previous writer mapped keeps reading
+ * that file; it must reopen the path to see the new writer.
+ *
+ * @author PTS34A
+ */
+public final class SharedSnapshotWriter implements TickListener, AutoCloseable {
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final ByteBuffer data;
+    private final long sequenceAddress;
+    private final int capacity;
+    private long sequence = 0;
+
+    /**
+     * Creates, or replaces, the given shared snapshot file, with room for the
+     * snapshot of an engine with the given amount of cars.
+     *
+     * @param path    The path of the file, preferably on a memory-backed file system such as /dev/shm.
+     * @param maxCars The maximum amount of cars of the engine.
+     * @throws IOException When the file can't be created.
+     */
+    public SharedSnapshotWriter(Path path, int maxCars) throws IOException {
+        if (maxCars < 0) {
+            throw new IllegalArgumentException("The amount of cars can't be negative.");
+        }
+
+        capacity = SnapshotEncoder.sizeOf(maxCars);
+
+        // The temporary file must be on the same file system for the move to be atomic.
+        Path absolute = path.toAbsolutePath();
+        Path temporary = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            channel = FileChannel.open(temporary, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, SharedSnapshotFormat.fileSize(capacity));
+
+                buffer.putInt(0, SharedSnapshotFormat.MAGIC);
+                buffer.putInt(Integer.BYTES, SharedSnapshotFormat.VERSION);
+                buffer.putInt(SharedSnapshotFormat.CAPACITY_OFFSET, capacity);
+
+                sequenceAddress = SharedMemory.addressOf(buffer) + SharedSnapshotFormat.SEQUENCE_OFFSET;
+                SharedMemory.putLongVolatile(sequenceAddress, 0);
+
+                buffer.position(SharedSnapshotFormat.DATA_OFFSET);
+                data = buffer.slice();
+                buffer.position(0);
+
+                Files.move(temporary, absolute, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+    }
+
+    @Override
+    public void onTick(GameEngine engine, long tick) {
+        publish(engine, tick);
+    }
+
+    /**
+     * Publishes the state of an engine.
+     *
+     * @param engine The engine.
+     * @param tick   The tick the state belongs to.
+     */
+    public void publish(GameEngine engine, long tick) {
+        int size = SnapshotEncoder.sizeOf(engine);
+        if (size > capacity) {
+            throw new IllegalStateException("The engine has more cars than the shared snapshot has room for.");
+        }
+
+        // An odd sequence number tells readers the frame is being written.
+        SharedMemory.putLongVolatile(sequenceAddress, ++sequence);
+        SharedMemory.storeFence();
+
+        buffer.putLong(SharedSnapshotFormat.PUBLISHED_OFFSET, System.nanoTime());
+        buffer.putInt(SharedSnapshotFormat.LENGTH_OFFSET, size);
+        data.clear();
+        SnapshotEncoder.encode(engine, tick, data);
+
+        // The volatile write orders the frame before the even sequence number.
+        SharedMemory.putLongVolatile(sequenceAddress, ++sequence);
+    }
+
+    /**
+     * Returns the maximum size of a snapshot.
+     *
+     * @return The capacity in bytes.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Closes the file. The mapping itself is released when the buffer is
+     * garbage collected, so the writer must not be used afterwards.
+     *
+     * @throws IOException When the file can't be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+}
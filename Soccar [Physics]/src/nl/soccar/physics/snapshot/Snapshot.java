@@ -0,0 +1,67 @@
+package nl.soccar.physics.snapshot;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A Snapshot is the encoded state of an engine at the end of a tick. It is
+ * encoded once and shared, read-only, by all subscribers.
+ *
+ * @author PTS34A
+ */
+public final class Snapshot {
+
+    private final long tick;
+    private final long createdNs;
+    private final ByteBuffer data;
+
+    /**
+     * Initiates a new Snapshot using the given parameters.
+     *
+     * @param tick The tick the state belongs to.
+     * @param data The encoded state, ready to be read.
+     */
+    Snapshot(long tick, ByteBuffer data) {
+        this.tick = tick;
+        this.data = data.asReadOnlyBuffer();
+
+        createdNs = System.nanoTime();
+    }
+
+    /**
+     * Returns the tick the state belongs to.
+     *
+     * @return The tick number.
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Returns the moment this snapshot was encoded, as System.nanoTime().
+     *
+     * @return The moment of encoding in nanoseconds.
+     */
+    public long getCreatedNs() {
+        return createdNs;
+    }
+
+    /**
+     * Returns a read-only view of the encoded state. Every call returns a new
+     * view with its own position, so subscribers don't affect each other.
+     *
+     * @return The encoded state.
+     */
+    public ByteBuffer getData() {
+        return data.duplicate();
+    }
+
+    /**
+     * Returns the size of the encoded state.
+     *
+     * @return The size in bytes.
+     */
+    public int getSize() {
+        return data.remaining();
+    }
+
+}
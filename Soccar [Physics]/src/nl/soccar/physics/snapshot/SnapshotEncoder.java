@@ -0,0 +1,111 @@
+package nl.soccar.physics.snapshot;
+
+import nl.soccar.physics.GameEngine;
+import nl.soccar.physics.models.BallPhysics;
+import nl.soccar.physics.models.CarPhysics;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+
+/**
+ * The SnapshotEncoder encodes the dynamic state of an engine. Obstacles never
+ * move, so they are not part of a snapshot.
+ * <p>
+ * Layout: the tick (long), a flag whether there is a ball (byte), the ball
+ * (x, y, degree, linear velocity x and y and angular velocity as floats), the
+ * amount of cars (byte) and per car the same six floats followed by the steer
+ * angle and the boost amount (floats) and whether boost is active (byte).
+ *
+ * @author PTS34A
+ */
+public final class SnapshotEncoder {
+
+    private static final int BODY_SIZE = 6 * Float.BYTES;
+    private static final int CAR_SIZE = BODY_SIZE + 2 * Float.BYTES + Byte.BYTES;
+
+    private SnapshotEncoder() {
+    }
+
+    /**
+     * Determines the size of the snapshot of an engine.
+     *
+     * @param engine The engine.
+     * @return The size in bytes.
+     */
+    public static int sizeOf(GameEngine engine) {
+        return sizeOf(engine.getCars().size());
+    }
+
+    /**
+     * Determines the size of the snapshot of an engine with the given amount
+     * of cars.
+     *
+     * @param carCount The amount of cars.
+     * @return The size in bytes.
+     */
+    public static int sizeOf(int carCount) {
+        return Long.BYTES + Byte.BYTES + BODY_SIZE + Byte.BYTES + carCount * CAR_SIZE;
+    }
+
+    /**
+     * Encodes the state of an engine into a new snapshot.
+     *
+     * @param engine The engine.
+     * @param tick   The tick the state belongs to.
+     * @return The snapshot.
+     */
+    public static Snapshot encode(GameEngine engine, long tick) {
+        Collection<CarPhysics> cars = engine.getCars();
+        ByteBuffer buffer = ByteBuffer.allocate(sizeOf(cars.size()));
+        encode(engine, cars, tick, buffer);
+        buffer.flip();
+
+        return new Snapshot(tick, buffer);
+    }
+
+    /**
+     * Encodes the state of an engine into the given buffer, which must have
+     * room for at least sizeOf(engine) bytes.
+     *
+     * @param engine The engine.
+     * @param tick   The tick the state belongs to.
+     * @param buffer The buffer to write to.
+     */
+    public static void encode(GameEngine engine, long tick, ByteBuffer buffer) {
+        encode(engine, engine.getCars(), tick, buffer);
+    }
+
+    private static void encode(GameEngine engine, Collection<CarPhysics> cars, long tick, ByteBuffer buffer) {
+        buffer.putLong(tick);
+
+        BallPhysics ball = engine.getBall();
+        if (ball != null) {
+            buffer.put((byte) 1);
+            buffer.putFloat(ball.getX());
+            buffer.putFloat(ball.getY());
+            buffer.putFloat(ball.getDegree());
+            buffer.putFloat(ball.getLinearVelocityX());
+            buffer.putFloat(ball.getLinearVelocityY());
+            buffer.putFloat(ball.getAngularVelocity());
+        } else {
+            buffer.put((byte) 0);
+            for (int i = 0; i < BODY_SIZE / Float.BYTES; i++) {
+                buffer.putFloat(0);
+            }
+        }
+
+        buffer.put((byte) cars.size());
+        for (CarPhysics car : cars) {
+            buffer.putFloat(car.getX());
+            buffer.putFloat(car.getY());
+            buffer.putFloat(car.getDegree());
+            buffer.putFloat(car.getLinearVelocityX());
+            buffer.putFloat(car.getLinearVelocityY());
+            buffer.putFloat(car.getAngularVelocity());
+            buffer.putFloat(car.getSteerAngle());
+            buffer.putFloat(car.getBoostAmount());
+            buffer.put((byte) (car.isBoostActive() ? 1 : 0));
+        }
+    }
+
+}
@@ -0,0 +1,128 @@
+package nl.soccar.physics.snapshot;
+
+import nl.soccar.physics.GameEngine;
+import nl.soccar.physics.PhysicsConstants;
+import nl.soccar.physics.listener.TickListener;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The SnapshotPublisher encodes the state of an engine at most once per tick,
+ * and only in ticks in which at least one subscription is due, and hands the
+ * same read-only snapshot to every due subscription.
+ *
+ * @author PTS34A
+ */
+public final class SnapshotPublisher implements TickListener {
+
+    private static final ExecutorService DEFAULT_EXECUTOR = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+        Thread thread = new Thread(r, "snapshot-delivery");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final Executor executor;
+    private volatile long latestTick = -1;
+    private volatile Snapshot latest;
+
+    /**
+     * Initiates a new SnapshotPublisher that delivers on a shared pool of
+     * delivery threads.
+     */
+    public SnapshotPublisher() {
+        this(DEFAULT_EXECUTOR);
+    }
+
+    /**
+     * Initiates a new SnapshotPublisher that delivers using the given
+     * executor.
+     *
+     * @param executor The executor that delivers the snapshots.
+     */
+    public SnapshotPublisher(Executor executor) {
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    /**
+     * Subscribes to the snapshots of the engine at the given rate. The rate is
+     * rounded to a whole amount of ticks.
+     *
+     * @param subscriber The subscriber.
+     * @param rateHz     The amount of snapshots per second.
+     * @return The subscription.
+     */
+    public Subscription subscribe(SnapshotSubscriber subscriber, int rateHz) {
+        Objects.requireNonNull(subscriber);
+        if (rateHz < 1) {
+            throw new IllegalArgumentException("The rate must be at least 1 Hz.");
+        }
+
+        int interval = Math.max(1, Math.round((float) PhysicsConstants.ENGINE_FPS / rateHz));
+        Subscription subscription = new Subscription(this, subscriber, executor, interval);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    /**
+     * Removes a subscription.
+     *
+     * @param subscription The subscription.
+     */
+    void unsubscribe(Subscription subscription) {
+        subscriptions.remove(subscription);
+    }
+
+    @Override
+    public void onTick(GameEngine engine, long tick) {
+        Snapshot snapshot = null;
+
+        for (Subscription subscription : subscriptions) {
+            if (!subscription.isDue(tick)) {
+                continue;
+            }
+
+            if (snapshot == null) {
+                snapshot = SnapshotEncoder.encode(engine, tick);
+                latest = snapshot;
+                latestTick = tick;
+            }
+
+            subscription.offer(snapshot);
+        }
+    }
+
+    /**
+     * Returns the tick of the latest published snapshot.
+     *
+     * @return The tick number, or -1 if nothing has been published.
+     */
+    public long getLatestTick() {
+        return latestTick;
+    }
+
+    /**
+     * Returns the latest published snapshot.
+     *
+     * @return The latest snapshot, or null if nothing has been published.
+     */
+    public Snapshot getLatest() {
+        return latest;
+    }
+
+    /**
+     * Returns all current subscriptions, for example to read their lag.
+     *
+     * @return An unmodifiable view of the subscriptions.
+     */
+    public List<Subscription> getSubscriptions() {
+        return Collections.unmodifiableList(subscriptions);
+    }
+
+}
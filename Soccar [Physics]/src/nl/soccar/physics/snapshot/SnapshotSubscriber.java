@@ -0,0 +1,21 @@
+package nl.soccar.physics.snapshot;
+
+/**
+ * A SnapshotSubscriber receives the snapshots of an engine at its own rate,
+ * for example to send them to a player or a spectator.
+ *
+ * @author PTS34A
+ */
+@FunctionalInterface
+public interface SnapshotSubscriber {
+
+    /**
+     * This method is called with the latest snapshot, on a delivery thread.
+     * When it takes longer than the interval of the subscription, older
+     * snapshots are skipped in favor of the latest one.
+     *
+     * @param snapshot The latest snapshot.
+     */
+    void onSnapshot(Snapshot snapshot);
+
+}
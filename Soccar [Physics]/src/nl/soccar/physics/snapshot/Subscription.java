@@ -0,0 +1,206 @@
+package nl.soccar.physics.snapshot;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A Subscription delivers snapshots to one subscriber at a fixed interval of
+ * ticks. It holds at most one pending snapshot: when the subscriber is still
+ * busy with a previous snapshot, a newer snapshot replaces the pending one
+ * instead of queueing behind it. A subscriber that throws does not stop the
+ * delivery; the failure is logged and counted.
+ *
+ * @author PTS34A
+ */
+public final class Subscription {
+
+    private static final Logger LOGGER = Logger.getLogger(Subscription.class.getSimpleName());
+
+    private final SnapshotPublisher publisher;
+    private final SnapshotSubscriber subscriber;
+    private final Executor executor;
+    private final int interval;
+    private final AtomicReference<Snapshot> pending = new AtomicReference<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private long lastDueTick = -1;
+    private volatile long lastDeliveredTick = -1;
+    private volatile long lastDeliveryNs = 0;
+
+    /**
+     * Initiates a new Subscription using the given parameters.
+     *
+     * @param publisher  The publisher that produces the snapshots.
+     * @param subscriber The subscriber that receives the snapshots.
+     * @param executor   The executor that delivers the snapshots.
+     * @param interval   The amount of ticks between two snapshots.
+     */
+    Subscription(SnapshotPublisher publisher, SnapshotSubscriber subscriber, Executor executor, int interval) {
+        this.publisher = publisher;
+        this.subscriber = subscriber;
+        this.executor = executor;
+        this.interval = interval;
+    }
+
+    /**
+     * Determines whether this subscription wants the snapshot of a tick, and
+     * if so, marks it as taken. An idling engine advances several ticks per
+     * step, so the subscription is due once at least an interval has passed
+     * since the last due tick. Due ticks are aligned to multiples of the
+     * interval, so subscriptions with the same interval share snapshots.
+     *
+     * @param tick The tick number.
+     * @return Whether the subscription is due.
+     */
+    boolean isDue(long tick) {
+        // A tick before the last due tick means the engine jumped back, see GameEngine.restore.
+        if (lastDueTick >= 0 && tick >= lastDueTick && tick - lastDueTick < interval) {
+            return false;
+        }
+
+        lastDueTick = tick - Math.floorMod(tick, interval);
+        return true;
+    }
+
+    /**
+     * Offers a snapshot for delivery, replacing any snapshot that has not been
+     * delivered yet.
+     *
+     * @param snapshot The snapshot.
+     */
+    void offer(Snapshot snapshot) {
+        if (pending.getAndSet(snapshot) != null) {
+            dropped.incrementAndGet();
+        }
+
+        if (scheduled.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    /**
+     * Delivers pending snapshots until there are none left.
+     */
+    private void drain() {
+        boolean drained = false;
+        try {
+            while (true) {
+                Snapshot snapshot = pending.getAndSet(null);
+                if (snapshot == null) {
+                    scheduled.set(false);
+                    drained = true;
+
+                    // A snapshot may have been offered between the two statements above.
+                    if (pending.get() == null || !scheduled.compareAndSet(false, true)) {
+                        return;
+                    }
+                    drained = false;
+                    continue;
+                }
+
+                deliver(snapshot);
+            }
+        } finally {
+            if (!drained) {
+                scheduled.set(false); // An Error escaped; let the next offer schedule again
+            }
+        }
+    }
+
+    private void deliver(Snapshot snapshot) {
+        try {
+            subscriber.onSnapshot(snapshot);
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            LOGGER.log(Level.WARNING, "A snapshot subscriber failed.", e);
+            return;
+        }
+
+        delivered.incrementAndGet();
+        bytes.addAndGet(snapshot.getSize());
+        lastDeliveredTick = snapshot.getTick();
+        lastDeliveryNs = System.nanoTime() - snapshot.getCreatedNs();
+    }
+
+    /**
+     * Stops the delivery of snapshots to the subscriber.
+     */
+    public void cancel() {
+        publisher.unsubscribe(this);
+    }
+
+    /**
+     * Returns the amount of ticks between two snapshots.
+     *
+     * @return The interval in ticks.
+     */
+    public int getInterval() {
+        return interval;
+    }
+
+    /**
+     * Returns the amount of snapshots that have been delivered.
+     *
+     * @return The amount of delivered snapshots.
+     */
+    public long getDelivered() {
+        return delivered.get();
+    }
+
+    /**
+     * Returns the amount of snapshots that were replaced by a newer snapshot
+     * before the subscriber got to them.
+     *
+     * @return The amount of dropped snapshots.
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Returns the amount of snapshots of which the subscriber threw.
+     *
+     * @return The amount of failed deliveries.
+     */
+    public long getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * Returns the amount of bytes that have been delivered.
+     *
+     * @return The amount of delivered bytes.
+     */
+    public long getDeliveredBytes() {
+        return bytes.get();
+    }
+
+    /**
+     * Returns how many ticks the last delivered snapshot is behind the latest
+     * published snapshot.
+     *
+     * @return The lag in ticks, or -1 if nothing has been delivered yet.
+     */
+    public long getLagTicks() {
+        long last = lastDeliveredTick;
+        return last < 0 ? -1 : Math.max(0, publisher.getLatestTick() - last);
+    }
+
+    /**
+     * Returns how long the last delivered snapshot took from encoding until
+     * the subscriber was done with it.
+     *
+     * @return The delivery time in nanoseconds.
+     */
+    public long getLastDeliveryNs() {
+        return lastDeliveryNs;
+    }
+
+}
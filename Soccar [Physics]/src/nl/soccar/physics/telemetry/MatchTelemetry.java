@@ -0,0 +1,309 @@
+package nl.soccar.physics.telemetry;
+
+import nl.soccar.library.Car;
+import nl.soccar.library.Player;
+import nl.soccar.physics.PhysicsConstants;
+import nl.soccar.physics.models.BallPhysics;
+import nl.soccar.physics.models.CarPhysics;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * MatchTelemetry aggregates match analytics inside the engine tick: possession
+ * time, the distribution of the ball speed, touches and boost usage per
+ * player, and a heatmap of car positions. All aggregates have a fixed size, so memory
+ * does not grow with the length of a match. On every flush the aggregates are
+ * encoded as one compact record, handed to the writer and reset.
+ * <p>
+ * A record consists of a magic number, the first and last tick it covers, the
+ * ball speed histogram and, per car slot, the username of its player (empty
+ * for a free slot), the touches, possession ticks, boost ticks and the
+ * non-empty heatmap cells as index-count pairs. A slot is only handed to
+ * another car after the aggregates of its previous car have been flushed. When
+ * every slot is taken, a new car flushes early to free the slots of removed
+ * cars; a car that still finds no slot is not tracked, and counted as dropped.
+ *
+ * @author PTS34A
+ */
+public final class MatchTelemetry {
+
+    private static final Logger LOGGER = Logger.getLogger(MatchTelemetry.class.getSimpleName());
+    private static final int RECORD_MAGIC = 0x53434D54; // "SCMT"
+    private static final byte[] EMPTY_NAME = new byte[0];
+
+    private static final int COLUMNS = PhysicsConstants.TELEMETRY_GRID_COLUMNS;
+    private static final int ROWS = PhysicsConstants.TELEMETRY_GRID_ROWS;
+    private static final int SPEED_BUCKETS = PhysicsConstants.TELEMETRY_SPEED_BUCKETS;
+
+    private final TelemetryWriter writer;
+    private final float minX;
+    private final float minY;
+    private final float cellWidth;
+    private final float cellHeight;
+
+    private final CarPhysics[] slots = new CarPhysics[PhysicsConstants.TELEMETRY_MAX_CARS];
+    private final byte[][] names = new byte[slots.length][];
+    private final boolean[] removed = new boolean[slots.length];
+    private final int[] touches = new int[slots.length];
+    private final int[] possessionTicks = new int[slots.length];
+    private final int[] boostTicks = new int[slots.length];
+    private final int[] heatmap = new int[slots.length * COLUMNS * ROWS];
+    private final int[] ballSpeeds = new int[SPEED_BUCKETS];
+    private int lastToucher = -1;
+    private long firstTick = -1;
+    private long lastTick = -1;
+    private int droppedCars = 0;
+
+    /**
+     * Initiates a new MatchTelemetry using the given parameters. The bounds
+     * are used to divide the field into the cells of the heatmap.
+     *
+     * @param writer The writer that receives the records.
+     * @param minX   The smallest x-coordinate of the field.
+     * @param minY   The smallest y-coordinate of the field.
+     * @param width  The width of the field.
+     * @param height The height of the field.
+     */
+    public MatchTelemetry(TelemetryWriter writer, float minX, float minY, float width, float height) {
+        this.writer = Objects.requireNonNull(writer);
+        this.minX = minX;
+        this.minY = minY;
+
+        cellWidth = width / COLUMNS;
+        cellHeight = height / ROWS;
+    }
+
+    /**
+     * Starts tracking the car of a player.
+     *
+     * @param player The player the car belongs to.
+     * @param car    The car to track.
+     */
+    public synchronized void addCar(Player player, CarPhysics car) {
+        int slot = slotOf(car);
+        if (slot >= 0 && !removed[slot]) {
+            return;
+        }
+
+        if (slot < 0) {
+            slot = slotOf(null);
+            if (slot < 0 && hasRemovedSlots()) {
+                flush(); // Frees the slots of removed cars
+                slot = slotOf(null);
+            }
+        } else {
+            flush(); // The car returns before its previous aggregates were flushed
+        }
+
+        if (slot < 0) {
+            droppedCars++;
+            LOGGER.log(Level.WARNING, "No telemetry slot left for the car of {0}.", player.getUsername());
+            return;
+        }
+
+        slots[slot] = car;
+        names[slot] = player.getUsername().getBytes(StandardCharsets.UTF_8);
+        removed[slot] = false;
+        resetSlot(slot);
+    }
+
+    /**
+     * Stops tracking a car. Its aggregates are kept, together with the name
+     * of its player, until the next flush; only then is its slot freed.
+     *
+     * @param car The car to stop tracking.
+     */
+    public synchronized void removeCar(CarPhysics car) {
+        int slot = slotOf(car);
+        if (slot < 0) {
+            return;
+        }
+
+        removed[slot] = true;
+        if (lastToucher == slot) {
+            lastToucher = -1;
+        }
+    }
+
+    /**
+     * Registers a touch of the ball.
+     *
+     * @param car The car that touched the ball.
+     */
+    public synchronized void onBallTouched(Car car) {
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] != null && !removed[i] && slots[i].getCar() == car) {
+                touches[i]++;
+                lastToucher = i;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Updates the aggregates with the state of a tick.
+     *
+     * @param tick The number of the tick.
+     * @param ball The ball, or null if there is none.
+     */
+    public synchronized void update(long tick, BallPhysics ball) {
+        if (firstTick < 0) {
+            firstTick = tick;
+        }
+        lastTick = tick;
+
+        if (ball != null) {
+            float vx = ball.getLinearVelocityX();
+            float vy = ball.getLinearVelocityY();
+            int bucket = (int) (Math.sqrt(vx * vx + vy * vy) / PhysicsConstants.TELEMETRY_SPEED_BUCKET_SIZE);
+            ballSpeeds[Math.min(bucket, SPEED_BUCKETS - 1)]++;
+        }
+
+        if (lastToucher >= 0) {
+            possessionTicks[lastToucher]++;
+        }
+
+        for (int i = 0; i < slots.length; i++) {
+            CarPhysics car = slots[i];
+            if (car == null || removed[i]) {
+                continue;
+            }
+
+            if (car.isBoostActive()) {
+                boostTicks[i]++;
+            }
+
+            int column = clamp((int) ((car.getX() - minX) / cellWidth), COLUMNS);
+            int row = clamp((int) ((car.getY() - minY) / cellHeight), ROWS);
+            heatmap[(i * ROWS + row) * COLUMNS + column]++;
+        }
+    }
+
+    /**
+     * Returns the amount of cars that were not tracked because every slot was
+     * taken by a car that had not been removed.
+     *
+     * @return The amount of dropped cars.
+     */
+    public synchronized int getDroppedCarCount() {
+        return droppedCars;
+    }
+
+    /**
+     * Encodes the aggregates since the last flush as one record, hands it to
+     * the writer and resets the aggregates. Nothing is written when no tick
+     * has been aggregated. The slots of removed cars are freed.
+     */
+    public synchronized void flush() {
+        if (firstTick < 0) {
+            freeRemovedSlots();
+            return;
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(recordSize());
+        record.putInt(RECORD_MAGIC);
+        record.putLong(firstTick);
+        record.putLong(lastTick);
+
+        for (int count : ballSpeeds) {
+            record.putInt(count);
+        }
+
+        record.put((byte) slots.length);
+        for (int i = 0; i < slots.length; i++) {
+            byte[] name = slots[i] == null ? EMPTY_NAME : names[i];
+            record.putShort((short) name.length);
+            record.put(name);
+
+            record.putInt(touches[i]);
+            record.putInt(possessionTicks[i]);
+            record.putInt(boostTicks[i]);
+
+            int offset = i * COLUMNS * ROWS;
+            record.putShort((short) nonEmptyCells(offset));
+            for (int cell = 0; cell < COLUMNS * ROWS; cell++) {
+                if (heatmap[offset + cell] != 0) {
+                    record.putShort((short) cell);
+                    record.putInt(heatmap[offset + cell]);
+                }
+            }
+        }
+
+        record.flip();
+        writer.append(record);
+
+        Arrays.fill(touches, 0);
+        Arrays.fill(possessionTicks, 0);
+        Arrays.fill(boostTicks, 0);
+        Arrays.fill(heatmap, 0);
+        Arrays.fill(ballSpeeds, 0);
+        firstTick = -1;
+        lastTick = -1;
+        freeRemovedSlots();
+    }
+
+    private boolean hasRemovedSlots() {
+        for (boolean slotRemoved : removed) {
+            if (slotRemoved) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void freeRemovedSlots() {
+        for (int i = 0; i < slots.length; i++) {
+            if (removed[i]) {
+                slots[i] = null;
+                names[i] = null;
+                removed[i] = false;
+            }
+        }
+    }
+
+    private void resetSlot(int slot) {
+        touches[slot] = 0;
+        possessionTicks[slot] = 0;
+        boostTicks[slot] = 0;
+        Arrays.fill(heatmap, slot * COLUMNS * ROWS, (slot + 1) * COLUMNS * ROWS, 0);
+    }
+
+    private int recordSize() {
+        int size = Integer.BYTES + 2 * Long.BYTES + SPEED_BUCKETS * Integer.BYTES + Byte.BYTES;
+        for (int i = 0; i < slots.length; i++) {
+            size += Short.BYTES + (slots[i] == null ? 0 : names[i].length);
+            size += 3 * Integer.BYTES + Short.BYTES;
+            size += nonEmptyCells(i * COLUMNS * ROWS) * (Short.BYTES + Integer.BYTES);
+        }
+        return size;
+    }
+
+    private int nonEmptyCells(int offset) {
+        int count = 0;
+        for (int cell = 0; cell < COLUMNS * ROWS; cell++) {
+            if (heatmap[offset + cell] != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private int slotOf(CarPhysics car) {
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] == car) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int clamp(int value, int size) {
+        return Math.max(0, Math.min(size - 1, value));
+    }
+
+}
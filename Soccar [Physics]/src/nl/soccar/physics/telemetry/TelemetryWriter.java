@@ -0,0 +1,79 @@
+package nl.soccar.physics.telemetry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The TelemetryWriter appends telemetry records to a file on a background
+ * thread, so the engine thread never waits for the disk.
+ *
+ * @author PTS34A
+ */
+public final class TelemetryWriter implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(TelemetryWriter.class.getSimpleName());
+
+    private final FileChannel channel;
+    private final ExecutorService executor;
+
+    /**
+     * Initiates a new TelemetryWriter that appends to the given file, which is
+     * created if it does not exist.
+     *
+     * @param path The path of the file.
+     * @throws IOException When the file can't be opened.
+     */
+    public TelemetryWriter(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "telemetry-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Appends a record to the file. The buffer is written from its position up
+     * to its limit, and must not be modified afterwards.
+     *
+     * @param record The record to append.
+     */
+    public void append(ByteBuffer record) {
+        executor.execute(() -> {
+            try {
+                while (record.hasRemaining()) {
+                    channel.write(record);
+                }
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to write a telemetry record.", e);
+            }
+        });
+    }
+
+    /**
+     * Writes all pending records and closes the file.
+     *
+     * @throws IOException When the file can't be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        executor.shutdown();
+
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        channel.close();
+    }
+
+}
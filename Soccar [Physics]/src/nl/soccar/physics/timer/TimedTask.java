@@ -0,0 +1,18 @@
+package nl.soccar.physics.timer;
+
+/**
+ * A TimedTask is run by a TimingWheel when its timeout expires.
+ *
+ * @author PTS34A
+ */
+@FunctionalInterface
+public interface TimedTask {
+
+    /**
+     * Runs the task.
+     *
+     * @param tick The tick at which the timeout expired.
+     */
+    void run(long tick);
+
+}
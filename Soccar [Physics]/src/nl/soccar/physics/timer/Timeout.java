@@ -0,0 +1,59 @@
+package nl.soccar.physics.timer;
+
+/**
+ * A Timeout is a task scheduled on a TimingWheel. It can be cancelled until
+ * it expires; periodic timeouts stay pending until they are cancelled.
+ *
+ * @author PTS34A
+ */
+public final class Timeout {
+
+    final TimingWheel wheel;
+    final TimedTask task;
+    final long period;
+    long deadline;
+
+    // The slot this timeout is linked into, or -1 when it's not pending.
+    int slot = -1;
+    Timeout previous;
+    Timeout next;
+
+    Timeout(TimingWheel wheel, TimedTask task, long deadline, long period) {
+        this.wheel = wheel;
+        this.task = task;
+        this.deadline = deadline;
+        this.period = period;
+    }
+
+    /**
+     * Cancels this timeout, so its task won't run (again).
+     *
+     * @return Whether the timeout was pending.
+     */
+    public boolean cancel() {
+        return wheel.cancel(this);
+    }
+
+    /**
+     * Returns whether this timeout is waiting to expire.
+     *
+     * @return Whether this timeout is pending.
+     */
+    public boolean isPending() {
+        synchronized (wheel) {
+            return slot >= 0;
+        }
+    }
+
+    /**
+     * Returns the tick at which this timeout expires next.
+     *
+     * @return The deadline tick.
+     */
+    public long getDeadline() {
+        synchronized (wheel) {
+            return deadline;
+        }
+    }
+
+}
@@ -0,0 +1,250 @@
+package nl.soccar.physics.timer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The TimingWheel schedules timed events by tick number. It is a
+ * hierarchical timing wheel: four levels of 64 slots, where every slot of a
+ * level spans 64 times as many ticks as a slot of the level below. A timeout
+ * is linked into the slot of its deadline, so scheduling and cancelling are
+ * O(1). Every tick, the timeouts of one slot of the lowest level expire, and
+ * every 64 ticks the timeouts of one slot of a higher level are moved down
+ * a level. The work per tick does not depend on how many timeouts are
+ * pending.
+ * <p>
+ * Delays of up to 64^4 - 1 ticks (more than a day at the engine rate) are
+ * supported.
+ *
+ * @author PTS34A
+ */
+public final class TimingWheel {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    /**
+     * The longest supported delay, in ticks.
+     */
+    public static final long MAX_DELAY = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+    private static final int NOT_PENDING = -1;
+    private static final int RUNNING = -2;
+
+    private final Timeout[] slots = new Timeout[SLOTS * LEVELS];
+    private long tick;
+    private int size = 0;
+
+    /**
+     * Initiates a new TimingWheel at the given tick.
+     *
+     * @param tick The current tick.
+     */
+    public TimingWheel(long tick) {
+        this.tick = tick;
+    }
+
+    /**
+     * Schedules a task that runs once, after the given delay.
+     *
+     * @param delay The delay in ticks, at least one.
+     * @param task  The task.
+     * @return The timeout, which can be cancelled.
+     */
+    public synchronized Timeout schedule(long delay, TimedTask task) {
+        return schedule(delay, 0, task);
+    }
+
+    /**
+     * Schedules a task that runs after the given delay, and then every period
+     * until it is cancelled.
+     *
+     * @param delay  The delay in ticks, at least one.
+     * @param period The period in ticks, at least one.
+     * @param task   The task.
+     * @return The timeout, which can be cancelled.
+     */
+    public synchronized Timeout schedulePeriodic(long delay, long period, TimedTask task) {
+        if (period < 1 || period > MAX_DELAY) {
+            throw new IllegalArgumentException("The period must be between 1 and " + MAX_DELAY + " ticks.");
+        }
+
+        return schedule(delay, period, task);
+    }
+
+    private Timeout schedule(long delay, long period, TimedTask task) {
+        if (delay < 1 || delay > MAX_DELAY) {
+            throw new IllegalArgumentException("The delay must be between 1 and " + MAX_DELAY + " ticks.");
+        }
+
+        Timeout timeout = new Timeout(this, task, tick + delay, period);
+        link(timeout);
+        size++;
+        return timeout;
+    }
+
+    /**
+     * Cancels a timeout.
+     *
+     * @param timeout The timeout.
+     * @return Whether the timeout was pending.
+     */
+    synchronized boolean cancel(Timeout timeout) {
+        if (timeout.slot == NOT_PENDING) {
+            return false;
+        }
+
+        if (timeout.slot != RUNNING) {
+            unlink(timeout);
+        }
+
+        timeout.slot = NOT_PENDING;
+        size--;
+        return true;
+    }
+
+    /**
+     * Advances the wheel to the given tick, tick by tick, running the tasks of
+     * all timeouts that expire on the way.
+     *
+     * @param toTick The tick to advance to.
+     */
+    public synchronized void advance(long toTick) {
+        while (tick < toTick) {
+            tick++;
+
+            // Move the timeouts of higher levels down, highest level first.
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((tick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                    cascade(level);
+                }
+            }
+
+            expire();
+        }
+    }
+
+    private void cascade(int level) {
+        int index = level * SLOTS + (int) ((tick >>> (SLOT_BITS * level)) & SLOT_MASK);
+
+        Timeout timeout;
+        while ((timeout = slots[index]) != null) {
+            unlink(timeout);
+            link(timeout);
+        }
+    }
+
+    private void expire() {
+        int index = (int) (tick & SLOT_MASK);
+
+        Timeout timeout;
+        while ((timeout = slots[index]) != null) {
+            unlink(timeout);
+            timeout.slot = RUNNING;
+
+            try {
+                timeout.task.run(tick);
+            } finally {
+                // The task may have cancelled its own timeout.
+                if (timeout.slot == RUNNING) {
+                    if (timeout.period > 0) {
+                        timeout.deadline += timeout.period;
+                        link(timeout);
+                    } else {
+                        timeout.slot = NOT_PENDING;
+                        size--;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves the wheel to the given tick without running any tasks. Pending
+     * timeouts keep their remaining delay. Used when the engine jumps to
+     * another tick, such as when a checkpoint is restored.
+     *
+     * @param newTick The new tick.
+     */
+    public synchronized void rebase(long newTick) {
+        List<Timeout> pending = new ArrayList<>(size);
+        for (int i = 0; i < slots.length; i++) {
+            Timeout timeout;
+            while ((timeout = slots[i]) != null) {
+                unlink(timeout);
+                pending.add(timeout);
+            }
+        }
+
+        for (Timeout timeout : pending) {
+            timeout.deadline = newTick + Math.max(1, timeout.deadline - tick);
+        }
+
+        tick = newTick;
+        pending.forEach(this::link);
+    }
+
+    /**
+     * Links a timeout into the slot of its deadline, on the lowest level that
+     * spans the remaining delay.
+     *
+     * @param timeout The timeout.
+     */
+    private void link(Timeout timeout) {
+        long deadline = timeout.deadline;
+        long delay = deadline - tick; // Zero while cascading the timeouts of the current tick
+
+        int level = 0;
+        while (level < LEVELS - 1 && delay >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+
+        int index = level * SLOTS + (int) ((deadline >>> (SLOT_BITS * level)) & SLOT_MASK);
+
+        Timeout head = slots[index];
+        timeout.previous = null;
+        timeout.next = head;
+        if (head != null) {
+            head.previous = timeout;
+        }
+
+        slots[index] = timeout;
+        timeout.slot = index;
+    }
+
+    private void unlink(Timeout timeout) {
+        if (timeout.previous != null) {
+            timeout.previous.next = timeout.next;
+        } else {
+            slots[timeout.slot] = timeout.next;
+        }
+
+        if (timeout.next != null) {
+            timeout.next.previous = timeout.previous;
+        }
+
+        timeout.previous = null;
+        timeout.next = null;
+    }
+
+    /**
+     * Returns the current tick of the wheel.
+     *
+     * @return The current tick.
+     */
+    public synchronized long getTick() {
+        return tick;
+    }
+
+    /**
+     * Returns the amount of pending timeouts.
+     *
+     * @return The amount of pending timeouts.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+}
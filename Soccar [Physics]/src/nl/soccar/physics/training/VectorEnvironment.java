@@ -0,0 +1,389 @@
+package nl.soccar.physics.training;
+
+import nl.soccar.library.Car;
+import nl.soccar.library.enumeration.EventType;
+import nl.soccar.library.enumeration.GameStatus;
+import nl.soccar.library.enumeration.HandbrakeAction;
+import nl.soccar.library.enumeration.SteerAction;
+import nl.soccar.library.enumeration.ThrottleAction;
+import nl.soccar.physics.EngineWorker;
+import nl.soccar.physics.GameEngine;
+import nl.soccar.physics.PhysicsConstants;
+import nl.soccar.physics.benchmark.EngineFactory;
+import nl.soccar.physics.models.BallPhysics;
+import nl.soccar.physics.models.CarPhysics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The VectorEnvironment steps a fixed amount of headless game engines in
+ * lockstep, for training bots. Actions go in as one int array and
+ * observations come out in one float array, so no objects are created or
+ * read per car.
+ * <p>
+ * The actions of a car are three ordinals: steer, throttle and handbrake, in
+ * the order of SteerAction.values(), ThrottleAction.values() and
+ * HandbrakeAction.values(). The actions of environment e, car c start at
+ * (e * carsPerEnvironment + c) * ACTION_STRIDE.
+ * <p>
+ * The observation of an environment starts with the ball (BALL_FIELDS),
+ * followed by every car (CAR_FIELDS each) and ends with ENVIRONMENT_FIELDS.
+ * An environment is done when a goal is scored, when its game is no longer
+ * running or when it reached the maximum amount of ticks. A done environment
+ * is reset right away; its observation is the first one of the new episode,
+ * with the event and done fields of the episode that ended.
+ * <p>
+ * Engines on the same engine worker may share Box2D pools, which only one
+ * engine uses at a time, so every worker's engines are stepped by one task;
+ * the tasks run in parallel.
+ *
+ * @author PTS34A
+ */
+public final class VectorEnvironment implements AutoCloseable {
+
+    public static final int ACTION_STRIDE = 3;
+
+    public static final int BALL_X = 0;
+    public static final int BALL_Y = 1;
+    public static final int BALL_VELOCITY_X = 2;
+    public static final int BALL_VELOCITY_Y = 3;
+    public static final int BALL_ANGULAR_VELOCITY = 4;
+    public static final int BALL_FIELDS = 5;
+
+    public static final int CAR_X = 0;
+    public static final int CAR_Y = 1;
+    public static final int CAR_DEGREE = 2;
+    public static final int CAR_VELOCITY_X = 3;
+    public static final int CAR_VELOCITY_Y = 4;
+    public static final int CAR_ANGULAR_VELOCITY = 5;
+    public static final int CAR_BOOST = 6;
+    public static final int CAR_FIELDS = 7;
+
+    public static final int EVENT = 0; // 1 for a blue goal, -1 for a red goal, 0 otherwise
+    public static final int DONE = 1; // 1 when the episode ended
+    public static final int ENVIRONMENT_FIELDS = 2;
+
+    private static final SteerAction[] STEER_ACTIONS = SteerAction.values();
+    private static final ThrottleAction[] THROTTLE_ACTIONS = ThrottleAction.values();
+    private static final HandbrakeAction[] HANDBRAKE_ACTIONS = HandbrakeAction.values();
+
+    private final int environmentCount;
+    private final int carsPerEnvironment;
+    private final int observationSize;
+    private final int maxEpisodeTicks;
+
+    private final GameEngine[] engines;
+    private final CarPhysics[][] cars;
+    private final byte[][] initialStates;
+    private final int[] events;
+    private final long[] episodeTicks;
+    private final long[] episodes;
+
+    private final List<Callable<Void>> tasks = new ArrayList<>();
+    private final ExecutorService executor;
+
+    private int[] actions;
+    private float[] observations;
+
+    /**
+     * Initiates a new VectorEnvironment with the default maximum episode
+     * length.
+     *
+     * @param factory            The factory that creates the engines.
+     * @param environmentCount   The amount of environments.
+     * @param carsPerEnvironment The amount of cars in every environment.
+     */
+    public VectorEnvironment(EngineFactory factory, int environmentCount, int carsPerEnvironment) {
+        this(factory, environmentCount, carsPerEnvironment, PhysicsConstants.TRAINING_MAX_EPISODE_TICKS);
+    }
+
+    /**
+     * Initiates a new VectorEnvironment using the given parameters.
+     *
+     * @param factory            The factory that creates the engines.
+     * @param environmentCount   The amount of environments.
+     * @param carsPerEnvironment The amount of cars in every environment.
+     * @param maxEpisodeTicks    The amount of ticks after which an episode ends.
+     */
+    public VectorEnvironment(EngineFactory factory, int environmentCount, int carsPerEnvironment, int maxEpisodeTicks) {
+        Objects.requireNonNull(factory);
+        if (environmentCount < 1 || carsPerEnvironment < 1) {
+            throw new IllegalArgumentException("At least one environment with one car is required.");
+        }
+        if (maxEpisodeTicks < 1) {
+            throw new IllegalArgumentException("An episode must last at least one tick.");
+        }
+
+        this.environmentCount = environmentCount;
+        this.carsPerEnvironment = carsPerEnvironment;
+        this.maxEpisodeTicks = maxEpisodeTicks;
+        observationSize = BALL_FIELDS + carsPerEnvironment * CAR_FIELDS + ENVIRONMENT_FIELDS;
+
+        engines = new GameEngine[environmentCount];
+        cars = new CarPhysics[environmentCount][];
+        initialStates = new byte[environmentCount][];
+        events = new int[environmentCount];
+        episodeTicks = new long[environmentCount];
+        episodes = new long[environmentCount];
+
+        Map<EngineWorker, List<Integer>> groups = new LinkedHashMap<>();
+        for (int e = 0; e < environmentCount; e++) {
+            GameEngine engine = factory.create(carsPerEnvironment);
+            if (engine.getCars().size() != carsPerEnvironment) {
+                throw new IllegalStateException("The factory created an engine with " + engine.getCars().size() + " cars instead of " + carsPerEnvironment + ".");
+            }
+
+            int environment = e;
+            engine.addListener((eng, session, ball, type) -> {
+                if (events[environment] == 0) {
+                    events[environment] = type == EventType.GOAL_BLUE ? 1 : -1;
+                }
+            });
+            engine.startHeadless();
+
+            engines[e] = engine;
+            cars[e] = engine.getCars().toArray(new CarPhysics[0]);
+            initialStates[e] = engine.checkpoint();
+
+            groups.computeIfAbsent(engine.getWorker(), w -> new ArrayList<>()).add(e);
+        }
+
+        for (List<Integer> group : groups.values()) {
+            int[] environments = group.stream().mapToInt(Integer::intValue).toArray();
+            tasks.add(() -> {
+                for (int environment : environments) {
+                    stepEnvironment(environment);
+                }
+                return null;
+            });
+        }
+
+        int threads = Math.min(tasks.size(), Runtime.getRuntime().availableProcessors());
+        executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "vector-environment");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Writes the observations of all environments, without stepping them.
+     * Used to get the first observations.
+     *
+     * @param observations The array to write the observations to.
+     */
+    public void observe(float[] observations) {
+        checkLength(observations.length, getObservationLength(), "observation");
+
+        for (int e = 0; e < environmentCount; e++) {
+            observe(e, observations);
+        }
+    }
+
+    /**
+     * Applies the given actions to all cars, steps every environment once and
+     * writes the resulting observations. Finished environments are reset.
+     *
+     * @param actions      The actions of all cars, see the class documentation.
+     * @param observations The array to write the observations to.
+     * @throws InterruptedException When the calling thread is interrupted while waiting for the environments.
+     */
+    public void step(int[] actions, float[] observations) throws InterruptedException {
+        checkLength(actions.length, getActionLength(), "action");
+        checkLength(observations.length, getObservationLength(), "observation");
+
+        for (int i = 0; i < actions.length; i += ACTION_STRIDE) {
+            if (actions[i] < 0 || actions[i] >= STEER_ACTIONS.length
+                    || actions[i + 1] < 0 || actions[i + 1] >= THROTTLE_ACTIONS.length
+                    || actions[i + 2] < 0 || actions[i + 2] >= HANDBRAKE_ACTIONS.length) {
+                throw new IllegalArgumentException("Invalid action for car " + i / ACTION_STRIDE + ".");
+            }
+        }
+
+        this.actions = actions;
+        this.observations = observations;
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            this.actions = null;
+            this.observations = null;
+        }
+    }
+
+    /**
+     * Applies the actions to, steps, observes and if needed resets a single
+     * environment.
+     *
+     * @param environment The index of the environment.
+     */
+    private void stepEnvironment(int environment) {
+        GameEngine engine = engines[environment];
+        CarPhysics[] environmentCars = cars[environment];
+
+        int action = environment * carsPerEnvironment * ACTION_STRIDE;
+        for (CarPhysics carPhysics : environmentCars) {
+            Car car = carPhysics.getCar();
+            car.setSteerAction(STEER_ACTIONS[actions[action]]);
+            car.setThrottleAction(THROTTLE_ACTIONS[actions[action + 1]]);
+            car.setHandbrakeAction(HANDBRAKE_ACTIONS[actions[action + 2]]);
+            action += ACTION_STRIDE;
+        }
+
+        events[environment] = 0;
+        engine.step();
+        episodeTicks[environment]++;
+
+        int event = events[environment];
+        boolean done = event != 0
+                || engine.getGame().getStatus() != GameStatus.RUNNING
+                || episodeTicks[environment] >= maxEpisodeTicks;
+        if (done) {
+            reset(environment);
+        }
+
+        int offset = observe(environment, observations);
+        observations[offset + EVENT] = event;
+        observations[offset + DONE] = done ? 1 : 0;
+    }
+
+    /**
+     * Resets an environment to the state it had when it was created.
+     *
+     * @param environment The index of the environment.
+     */
+    private void reset(int environment) {
+        GameEngine engine = engines[environment];
+        engine.restore(initialStates[environment]);
+        if (engine.getGame().getStatus() == GameStatus.STOPPED) {
+            engine.startHeadless();
+        }
+
+        episodeTicks[environment] = 0;
+        episodes[environment]++;
+    }
+
+    /**
+     * Writes the ball and car observations of an environment, and clears its
+     * environment fields.
+     *
+     * @param environment  The index of the environment.
+     * @param observations The array to write the observation to.
+     * @return The offset of the environment fields.
+     */
+    private int observe(int environment, float[] observations) {
+        int offset = environment * observationSize;
+
+        BallPhysics ball = engines[environment].getBall();
+        observations[offset + BALL_X] = ball.getX();
+        observations[offset + BALL_Y] = ball.getY();
+        observations[offset + BALL_VELOCITY_X] = ball.getLinearVelocityX();
+        observations[offset + BALL_VELOCITY_Y] = ball.getLinearVelocityY();
+        observations[offset + BALL_ANGULAR_VELOCITY] = ball.getAngularVelocity();
+        offset += BALL_FIELDS;
+
+        for (CarPhysics car : cars[environment]) {
+            observations[offset + CAR_X] = car.getX();
+            observations[offset + CAR_Y] = car.getY();
+            observations[offset + CAR_DEGREE] = car.getDegree();
+            observations[offset + CAR_VELOCITY_X] = car.getLinearVelocityX();
+            observations[offset + CAR_VELOCITY_Y] = car.getLinearVelocityY();
+            observations[offset + CAR_ANGULAR_VELOCITY] = car.getAngularVelocity();
+            observations[offset + CAR_BOOST] = car.getBoostAmount();
+            offset += CAR_FIELDS;
+        }
+
+        observations[offset + EVENT] = 0;
+        observations[offset + DONE] = 0;
+        return offset;
+    }
+
+    private static void checkLength(int length, int expected, String name) {
+        if (length != expected) {
+            throw new IllegalArgumentException("The " + name + " array has length " + length + " instead of " + expected + ".");
+        }
+    }
+
+    /**
+     * Stops all engines and the threads that step them.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        for (GameEngine engine : engines) {
+            engine.stop();
+        }
+    }
+
+    /**
+     * Returns the length of the action array.
+     *
+     * @return The length of the action array.
+     */
+    public int getActionLength() {
+        return environmentCount * carsPerEnvironment * ACTION_STRIDE;
+    }
+
+    /**
+     * Returns the length of the observation array.
+     *
+     * @return The length of the observation array.
+     */
+    public int getObservationLength() {
+        return environmentCount * observationSize;
+    }
+
+    /**
+     * Returns the size of the observation of a single environment.
+     *
+     * @return The size of the observation of a single environment.
+     */
+    public int getObservationSize() {
+        return observationSize;
+    }
+
+    /**
+     * Returns the amount of environments.
+     *
+     * @return The amount of environments.
+     */
+    public int getEnvironmentCount() {
+        return environmentCount;
+    }
+
+    /**
+     * Returns the amount of cars in every environment.
+     *
+     * @return The amount of cars in every environment.
+     */
+    public int getCarsPerEnvironment() {
+        return carsPerEnvironment;
+    }
+
+    /**
+     * Returns the amount of finished episodes of an environment.
+     *
+     * @param environment The index of the environment.
+     * @return The amount of finished episodes.
+     */
+    public long getEpisodes(int environment) {
+        return episodes[environment];
+    }
+
+}
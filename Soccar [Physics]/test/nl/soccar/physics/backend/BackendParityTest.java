@@ -0,0 +1,254 @@
+package nl.soccar.physics.backend;
+
+import nl.soccar.physics.PhysicsConstants;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Builds the same scene in the jbox2d backend and the arena backend, and
+ * checks that both behave alike: the cars and the ball follow the same paths,
+ * contacts are reported the same way, ray casts hit the same walls and the
+ * state of a backend can be saved and restored.
+ *
+ * @author PTS34A
+ */
+public class BackendParityTest {
+
+    private static final float DEVIATION_TOLERANCE = 0.5F;
+
+    private static final float FIELD_HALF_WIDTH = 80;
+    private static final float FIELD_HALF_HEIGHT = 45;
+    private static final float WALL_HALF_THICKNESS = 5;
+
+    private static final float CAR_WIDTH = 5;
+    private static final float CAR_HEIGHT = 10;
+    private static final float WHEEL_WIDTH = 1;
+    private static final float WHEEL_HEIGHT = 2;
+    private static final float BALL_RADIUS = 3;
+    private static final float CAR_START_X = 15;
+
+    // The materials of the physics models
+    private static final Material CAR = new Material(0.2F, 0.2F, 0.2F, 0, 0);
+    private static final Material WHEEL = new Material(1, 0.2F, 0, 1, 1);
+    private static final Material BALL = new Material(0.01F, 1, 0.8F, 1, 1);
+    private static final Material WALL = new Material(0, 0, 0, 0, 0);
+
+    private static final int TICKS = PhysicsConstants.ENGINE_FPS * 3;
+    private static final int CONTROL_INTERVAL = PhysicsConstants.ENGINE_FPS / 2;
+
+    /**
+     * The ids of the bodies of a scene, which are the same in both backends
+     * because the scenes are built in the same order.
+     */
+    private static final class Scene {
+
+        private final PhysicsBackend backend;
+        private final int ball;
+        private final int[] cars = new int[2];
+        private final List<int[]> contacts = new ArrayList<>();
+
+        private Scene(PhysicsBackend backend) {
+            this.backend = backend;
+
+            backend.addStaticBox(0, FIELD_HALF_HEIGHT + WALL_HALF_THICKNESS, 0, FIELD_HALF_WIDTH, WALL_HALF_THICKNESS, WALL);
+            backend.addStaticBox(0, -FIELD_HALF_HEIGHT - WALL_HALF_THICKNESS, 0, FIELD_HALF_WIDTH, WALL_HALF_THICKNESS, WALL);
+            backend.addStaticBox(FIELD_HALF_WIDTH + WALL_HALF_THICKNESS, 0, 0, WALL_HALF_THICKNESS, FIELD_HALF_HEIGHT, WALL);
+            backend.addStaticBox(-FIELD_HALF_WIDTH - WALL_HALF_THICKNESS, 0, 0, WALL_HALF_THICKNESS, FIELD_HALF_HEIGHT, WALL);
+
+            ball = backend.addBall(0, 0, BALL_RADIUS, BALL);
+            backend.setUserData(ball, "ball");
+
+            // The first car faces the ball, the second one drives around in a lane of its own.
+            cars[0] = addCar(-CAR_START_X, 0, (float) -Math.PI / 2);
+            cars[1] = addCar(CAR_START_X, FIELD_HALF_HEIGHT / 2, (float) Math.PI / 2);
+
+            backend.setContactHandler(new ContactHandler() {
+                @Override
+                public void beginContact(int bodyA, int bodyB) {
+                    contacts.add(new int[]{Math.min(bodyA, bodyB), Math.max(bodyA, bodyB)});
+                }
+
+                @Override
+                public void postSolve(int bodyA, int bodyB, float impulse, float x, float y) {
+                    assertTrue(impulse >= 0);
+                }
+            });
+        }
+
+        private int addCar(float x, float y, float angle) {
+            int car = backend.addCar(x, y, angle, CAR_WIDTH / 2, CAR_HEIGHT / 2, CAR);
+            for (int i = 0; i < 4; i++) {
+                float localX = (i % 2 == 0 ? -CAR_WIDTH : CAR_WIDTH) / 2.3F;
+                float localY = (i < 2 ? CAR_HEIGHT : -CAR_HEIGHT) / 4;
+                backend.addWheel(car, localX, localY, WHEEL_WIDTH / 2, WHEEL_HEIGHT / 2, WHEEL, i < 2, i < 2);
+            }
+            return car;
+        }
+
+        /**
+         * Sets the controls of the cars for the given tick: the first car
+         * drives straight at the ball, the second one cycles through
+         * steering both ways, sliding and reversing.
+         */
+        private void drive(long tick) {
+            float maxSteerAngle = (float) Math.toRadians(PhysicsConstants.WHEEL_MAX_STEER_ANGLE);
+            backend.setCarControls(cars[0], 0, PhysicsConstants.CAR_MAX_SPEED, PhysicsConstants.CAR_NORMAL_POWER, PhysicsConstants.CAR_NORMAL_SLIDE);
+
+            int phase = (int) (tick / CONTROL_INTERVAL % 4);
+            float steerAngle = phase == 1 ? maxSteerAngle : phase == 3 ? -maxSteerAngle : 0;
+            float desiredSpeed = phase == 2 ? -PhysicsConstants.CAR_MAX_REVERSE_SPEED : PhysicsConstants.CAR_MAX_SPEED;
+            int slide = phase == 3 ? PhysicsConstants.CAR_HANDBRAKE_SLIDE : PhysicsConstants.CAR_NORMAL_SLIDE;
+            backend.setCarControls(cars[1], steerAngle, desiredSpeed, PhysicsConstants.CAR_NORMAL_POWER, slide);
+        }
+
+        private void step(long tick) {
+            drive(tick);
+            backend.step();
+        }
+
+    }
+
+    private static float distance(PhysicsBackend first, PhysicsBackend second, int body) {
+        float dx = first.getX(body) - second.getX(body);
+        float dy = first.getY(body) - second.getY(body);
+        return (float) Math.sqrt(dx * dx + dy * dy);
+    }
+
+    @Test
+    public void testBothBackendsFollowTheSamePaths() {
+        Scene box2d = new Scene(new Box2DBackend());
+        Scene arena = new Scene(new ArenaBackend());
+
+        float maxDeviation = 0;
+        for (long tick = 0; tick < TICKS; tick++) {
+            box2d.step(tick);
+            arena.step(tick);
+
+            maxDeviation = Math.max(maxDeviation, distance(box2d.backend, arena.backend, box2d.ball));
+            for (int car : box2d.cars) {
+                maxDeviation = Math.max(maxDeviation, distance(box2d.backend, arena.backend, car));
+            }
+        }
+
+        // Make sure the cars actually moved, and the ball was hit.
+        assertTrue(box2d.backend.getX(box2d.cars[0]) > -CAR_START_X + CAR_HEIGHT);
+        assertTrue(box2d.backend.getX(box2d.ball) != 0);
+        assertTrue(maxDeviation + " > " + DEVIATION_TOLERANCE, maxDeviation <= DEVIATION_TOLERANCE);
+    }
+
+    @Test
+    public void testBothBackendsReportTheBallContact() {
+        for (PhysicsBackend backend : new PhysicsBackend[]{new Box2DBackend(), new ArenaBackend()}) {
+            Scene scene = new Scene(backend);
+            for (long tick = 0; tick < TICKS; tick++) {
+                scene.step(tick);
+            }
+
+            boolean touched = false;
+            for (int[] contact : scene.contacts) {
+                touched |= contact[0] == scene.ball && contact[1] == scene.cars[0];
+            }
+
+            assertTrue(backend.getClass().getSimpleName(), touched);
+            assertEquals("ball", backend.getUserData(scene.ball));
+            assertFalse(backend.isStatic(scene.ball));
+            assertTrue(backend.isStatic(0));
+        }
+    }
+
+    @Test
+    public void testBothBackendsCastRaysAlike() {
+        PhysicsBackend box2d = new Scene(new Box2DBackend()).backend;
+        PhysicsBackend arena = new Scene(new ArenaBackend()).backend;
+
+        float[][] rays = {
+                {0, 0, 0, 100}, // Straight up, into the top wall
+                {0, 0, -100, 0}, // Straight left
+                {10, 10, 100, 60}, // Diagonally, into the right or top wall
+                {0, 0, 10, 10}, // Too short to hit anything
+        };
+
+        float[] box2dHit = new float[4];
+        float[] arenaHit = new float[4];
+        for (float[] ray : rays) {
+            boolean box2dFound = box2d.rayCastStatic(ray[0], ray[1], ray[2], ray[3], box2dHit);
+            boolean arenaFound = arena.rayCastStatic(ray[0], ray[1], ray[2], ray[3], arenaHit);
+
+            assertEquals(Arrays.toString(ray), box2dFound, arenaFound);
+            if (box2dFound) {
+                assertArrayEquals(Arrays.toString(ray), box2dHit, arenaHit, 0.001F);
+            }
+        }
+
+        assertTrue(box2d.rayCastStatic(0, 0, 0, 100, box2dHit));
+        assertEquals(FIELD_HALF_HEIGHT, box2dHit[1], 0.001F);
+        assertEquals(-1, box2dHit[3], 0.001F);
+    }
+
+    @Test
+    public void testStaticGeometryIsOneBody() {
+        float[] walls = {
+                0, FIELD_HALF_HEIGHT + WALL_HALF_THICKNESS, 0, FIELD_HALF_WIDTH, WALL_HALF_THICKNESS,
+                FIELD_HALF_WIDTH + WALL_HALF_THICKNESS, 0, 0, WALL_HALF_THICKNESS, FIELD_HALF_HEIGHT,
+                -FIELD_HALF_WIDTH - WALL_HALF_THICKNESS, 0, (float) Math.PI / 4, WALL_HALF_THICKNESS, FIELD_HALF_HEIGHT,
+        };
+
+        Box2DBackend box2d = new Box2DBackend();
+        ArenaBackend arena = new ArenaBackend();
+        int geometry = box2d.addStaticGeometry(walls, WALL);
+        arena.addStaticGeometry(walls, WALL);
+
+        assertEquals(1, box2d.getBodyCount());
+        assertTrue(box2d.isStatic(geometry));
+
+        float[] box2dHit = new float[4];
+        float[] arenaHit = new float[4];
+        for (float[] ray : new float[][]{{0, 0, 0, 100}, {0, 0, 100, 0}, {0, 0, -100, 0}}) {
+            assertTrue(Arrays.toString(ray), box2d.rayCastStatic(ray[0], ray[1], ray[2], ray[3], box2dHit));
+            assertTrue(Arrays.toString(ray), arena.rayCastStatic(ray[0], ray[1], ray[2], ray[3], arenaHit));
+            assertArrayEquals(Arrays.toString(ray), box2dHit, arenaHit, 0.001F);
+        }
+    }
+
+    @Test
+    public void testRestoredStateContinuesIdentically() {
+        for (BackendType type : BackendType.values()) {
+            Scene original = new Scene(BackendLoader.create(type));
+            Scene restored = new Scene(BackendLoader.create(type));
+
+            long tick = 0;
+            for (; tick < TICKS / 2; tick++) {
+                original.step(tick);
+            }
+
+            ByteBuffer state = ByteBuffer.allocate(4096);
+            for (int body = 0; body < original.backend.getBodyCount(); body++) {
+                original.backend.writeState(body, state);
+            }
+
+            state.flip();
+            for (int body = 0; body < restored.backend.getBodyCount(); body++) {
+                restored.backend.readState(body, state);
+            }
+            assertFalse(state.hasRemaining());
+
+            for (; tick < TICKS; tick++) {
+                original.step(tick);
+                restored.step(tick);
+
+                for (int body = 0; body < original.backend.getBodyCount(); body++) {
+                    assertEquals(type + " x at " + tick, original.backend.getX(body), restored.backend.getX(body), 0);
+                    assertEquals(type + " y at " + tick, original.backend.getY(body), restored.backend.getY(body), 0);
+                    assertEquals(type + " angle at " + tick, original.backend.getAngle(body), restored.backend.getAngle(body), 0);
+                }
+            }
+        }
+    }
+
+}
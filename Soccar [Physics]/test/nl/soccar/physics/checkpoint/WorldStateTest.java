@@ -0,0 +1,290 @@
+package nl.soccar.physics.checkpoint;
+
+import nl.soccar.physics.PhysicsConstants;
+import nl.soccar.physics.StateChecksum;
+import nl.soccar.physics.WorldObject;
+import nl.soccar.physics.backend.BackendLoader;
+import nl.soccar.physics.backend.BackendType;
+import nl.soccar.physics.backend.Material;
+import nl.soccar.physics.backend.PhysicsBackend;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+import static org.junit.Assert.*;
+
+/**
+ * Saves the state of a world in the middle of a collision and restores it
+ * into two other worlds, the way GameEngine checkpoints and restores, and
+ * checks that both restored worlds continue with the same checksums.
+ *
+ * @author PTS34A
+ */
+public class WorldStateTest {
+
+    private static final float FIELD_HALF_WIDTH = 80;
+    private static final float FIELD_HALF_HEIGHT = 45;
+    private static final float WALL_HALF_THICKNESS = 5;
+
+    private static final float CAR_WIDTH = 5;
+    private static final float CAR_HEIGHT = 10;
+    private static final float WHEEL_WIDTH = 1;
+    private static final float WHEEL_HEIGHT = 2;
+    private static final float BALL_RADIUS = 3;
+    private static final float BALL_START_X = FIELD_HALF_WIDTH - 10;
+    private static final float CAR_START_X = BALL_START_X - 15;
+
+    // The materials of the physics models
+    private static final Material CAR = new Material(0.2F, 0.2F, 0.2F, 0, 0);
+    private static final Material WHEEL = new Material(1, 0.2F, 0, 1, 1);
+    private static final Material BALL = new Material(0.01F, 1, 0.8F, 1, 1);
+    private static final Material WALL = new Material(0, 0, 0, 0, 0);
+
+    private static final int CHECKPOINT_TICK = 225; // The car pins the ball against the wall
+    private static final int TICKS = PhysicsConstants.ENGINE_FPS * 5;
+
+    /**
+     * A world of a ball, a car and walls. Its objects add themselves to the
+     * backend of the world when they are reset, like the physics models do.
+     */
+    private static final class World {
+
+        private final BackendType type;
+        private final List<WorldObject> objects = new ArrayList<>();
+        private final Piece car;
+        private PhysicsBackend backend;
+
+        private World(BackendType type) {
+            this.type = type;
+
+            objects.add(new Wall(0, FIELD_HALF_HEIGHT + WALL_HALF_THICKNESS, FIELD_HALF_WIDTH, WALL_HALF_THICKNESS));
+            objects.add(new Wall(0, -FIELD_HALF_HEIGHT - WALL_HALF_THICKNESS, FIELD_HALF_WIDTH, WALL_HALF_THICKNESS));
+            objects.add(new Wall(FIELD_HALF_WIDTH + WALL_HALF_THICKNESS, 0, WALL_HALF_THICKNESS, FIELD_HALF_HEIGHT));
+            objects.add(new Wall(-FIELD_HALF_WIDTH - WALL_HALF_THICKNESS, 0, WALL_HALF_THICKNESS, FIELD_HALF_HEIGHT));
+            objects.add(new Piece(backend -> backend.addBall(BALL_START_X, 0, BALL_RADIUS, BALL)));
+            car = new Piece(backend -> {
+                int body = backend.addCar(CAR_START_X, 0, (float) -Math.PI / 2, CAR_WIDTH / 2, CAR_HEIGHT / 2, CAR);
+                for (int i = 0; i < 4; i++) {
+                    float localX = (i % 2 == 0 ? -CAR_WIDTH : CAR_WIDTH) / 2.3F;
+                    float localY = (i < 2 ? CAR_HEIGHT : -CAR_HEIGHT) / 4;
+                    backend.addWheel(body, localX, localY, WHEEL_WIDTH / 2, WHEEL_HEIGHT / 2, WHEEL, i < 2, i < 2);
+                }
+                return body;
+            });
+            objects.add(car);
+
+            rebuild();
+        }
+
+        /**
+         * Builds the world in a new backend, with every object back at its
+         * original position.
+         */
+        private void rebuild() {
+            backend = BackendLoader.create(type);
+            objects.forEach(WorldObject::reset);
+        }
+
+        private void step(long tick) {
+            // Drive straight, then turn while pushing the ball.
+            float steerAngle = tick < PhysicsConstants.ENGINE_FPS * 2 ? 0 : (float) Math.toRadians(PhysicsConstants.WHEEL_MAX_STEER_ANGLE);
+            backend.setCarControls(car.body, steerAngle, PhysicsConstants.CAR_MAX_SPEED, PhysicsConstants.CAR_NORMAL_POWER, PhysicsConstants.CAR_NORMAL_SLIDE);
+            backend.step();
+        }
+
+        private byte[] write() {
+            ByteBuffer out = ByteBuffer.allocate(4096);
+            WorldState.write(objects, out);
+            out.flip();
+
+            byte[] state = new byte[out.remaining()];
+            out.get(state);
+            return state;
+        }
+
+        private void restore(byte[] state) {
+            rebuild();
+            ByteBuffer in = ByteBuffer.wrap(state);
+            WorldState.read(objects, in);
+            assertFalse(in.hasRemaining());
+        }
+
+        /**
+         * A dynamic body of the world.
+         */
+        private final class Piece implements WorldObject, Checkpointable {
+
+            private final ToIntFunction<PhysicsBackend> factory;
+            private int body;
+
+            private Piece(ToIntFunction<PhysicsBackend> factory) {
+                this.factory = factory;
+            }
+
+            @Override
+            public void step() {
+            }
+
+            @Override
+            public void setPosition(float x, float y, float degree, float linearVelocityX, float linearVelocityY, float angularVelocity) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void reset() {
+                body = factory.applyAsInt(backend);
+            }
+
+            @Override
+            public float getX() {
+                return backend.getX(body);
+            }
+
+            @Override
+            public float getY() {
+                return backend.getY(body);
+            }
+
+            @Override
+            public float getDegree() {
+                return (float) Math.toDegrees(backend.getAngle(body));
+            }
+
+            @Override
+            public boolean isResetting() {
+                return false;
+            }
+
+            @Override
+            public void writeState(ByteBuffer out) {
+                backend.writeState(body, out);
+            }
+
+            @Override
+            public void readState(ByteBuffer in) {
+                backend.readState(body, in);
+            }
+
+        }
+
+        /**
+         * A static wall, which has no state.
+         */
+        private final class Wall implements WorldObject {
+
+            private final float x;
+            private final float y;
+            private final float halfWidth;
+            private final float halfHeight;
+
+            private Wall(float x, float y, float halfWidth, float halfHeight) {
+                this.x = x;
+                this.y = y;
+                this.halfWidth = halfWidth;
+                this.halfHeight = halfHeight;
+            }
+
+            @Override
+            public void step() {
+            }
+
+            @Override
+            public void setPosition(float x, float y, float degree, float linearVelocityX, float linearVelocityY, float angularVelocity) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void reset() {
+                backend.addStaticBox(x, y, 0, halfWidth, halfHeight, WALL);
+            }
+
+            @Override
+            public float getX() {
+                return x;
+            }
+
+            @Override
+            public float getY() {
+                return y;
+            }
+
+            @Override
+            public float getDegree() {
+                return 0;
+            }
+
+            @Override
+            public boolean isResetting() {
+                return false;
+            }
+
+        }
+
+    }
+
+    @Test
+    public void testChecksumsMatchAfterRestore() {
+        for (BackendType type : BackendType.values()) {
+            World original = new World(type);
+            World fresh = new World(type);
+            World restored = new World(type);
+
+            long tick = 0;
+            for (; tick < CHECKPOINT_TICK; tick++) {
+                original.step(tick);
+            }
+            if (type == BackendType.BOX2D) {
+                // Only jbox2d warm starts its contacts with the impulses of the previous step.
+                assertTrue("No contacts to lose", original.backend.getContactCount() > 0);
+            }
+
+            // The restored world has a past of its own, which the restore must erase.
+            for (long t = 0; t < CHECKPOINT_TICK / 2; t++) {
+                restored.step(t);
+            }
+
+            byte[] state = original.write();
+            fresh.restore(state);
+            restored.restore(state);
+            assertEquals(type + " at the checkpoint", StateChecksum.of(tick, original.objects), StateChecksum.of(tick, restored.objects));
+
+            for (; tick < TICKS; tick++) {
+                fresh.step(tick);
+                restored.step(tick);
+                assertEquals(type + " at " + tick, StateChecksum.of(tick, fresh.objects), StateChecksum.of(tick, restored.objects));
+            }
+        }
+    }
+
+    @Test
+    public void testWriterKeepsItsWarmStarts() {
+        World original = new World(BackendType.BOX2D);
+        World restored = new World(BackendType.BOX2D);
+
+        long tick = 0;
+        for (; tick < CHECKPOINT_TICK; tick++) {
+            original.step(tick);
+        }
+
+        // Writing leaves the contacts of the writer alone, and the restored world doesn't have them.
+        restored.restore(original.write());
+        original.step(tick);
+        restored.step(tick);
+
+        assertNotEquals(StateChecksum.of(tick, original.objects), StateChecksum.of(tick, restored.objects));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRestoreIntoAnotherWorldFails() {
+        World original = new World(BackendType.ARENA);
+        byte[] state = original.write();
+
+        World other = new World(BackendType.ARENA);
+        other.objects.remove(other.car);
+        WorldState.read(other.objects, ByteBuffer.wrap(state));
+    }
+
+}
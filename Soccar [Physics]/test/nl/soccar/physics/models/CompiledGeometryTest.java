@@ -0,0 +1,150 @@
+package nl.soccar.physics.models;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author PTS34A
+ */
+public class CompiledGeometryTest {
+
+    private static final float DELTA = 0.001F;
+
+    @Before
+    public void setUp() {
+        CompiledGeometry.clearCache();
+    }
+
+    /**
+     * Builds a layout of wall pieces of 1 by 1, next to each other along the
+     * x-axis.
+     */
+    private static float[] row(int pieces, float y) {
+        float[] layout = new float[pieces * 5];
+        for (int i = 0; i < pieces; i++) {
+            layout[i * 5] = i + 0.5F;
+            layout[i * 5 + 1] = y;
+            layout[i * 5 + 3] = 1;
+            layout[i * 5 + 4] = 1;
+        }
+        return layout;
+    }
+
+    private static float[] concat(float[] first, float[] second) {
+        float[] layout = new float[first.length + second.length];
+        System.arraycopy(first, 0, layout, 0, first.length);
+        System.arraycopy(second, 0, layout, first.length, second.length);
+        return layout;
+    }
+
+    @Test
+    public void testTouchingPiecesMergeIntoOneFixture() {
+        for (int pieces : new int[]{1, 10, 100, 1000}) {
+            CompiledGeometry geometry = CompiledGeometry.of(row(pieces, 0));
+
+            assertEquals(pieces, geometry.getObstacleCount());
+            assertEquals(1, geometry.getBoxCount());
+        }
+    }
+
+    @Test
+    public void testMergedFixtureCoversAllPieces() {
+        float[] box = CompiledGeometry.of(row(10, 2)).getBoxes();
+
+        assertEquals(5, box[0], DELTA);
+        assertEquals(2, box[1], DELTA);
+        assertEquals(0, box[2], DELTA);
+        assertEquals(5, box[3], DELTA);
+        assertEquals(0.5F, box[4], DELTA);
+    }
+
+    @Test
+    public void testFixtureCountScalesWithWallsNotPieces() {
+        // An arena of four walls, built from ever smaller pieces.
+        for (int pieces : new int[]{10, 100, 1000}) {
+            float[] layout = concat(row(pieces, -0.5F), row(pieces, pieces + 0.5F));
+
+            float[] sides = new float[pieces * 2 * 5];
+            for (int i = 0; i < pieces; i++) {
+                for (int side = 0; side < 2; side++) {
+                    int offset = (side * pieces + i) * 5;
+                    sides[offset] = side == 0 ? -0.5F : pieces + 0.5F;
+                    sides[offset + 1] = i + 0.5F;
+                    sides[offset + 3] = 1;
+                    sides[offset + 4] = 1;
+                }
+            }
+
+            CompiledGeometry geometry = CompiledGeometry.of(concat(layout, sides));
+            assertEquals(pieces * 4, geometry.getObstacleCount());
+            assertEquals(4, geometry.getBoxCount());
+        }
+    }
+
+    @Test
+    public void testRotatedPiecesKeepTheirOwnFixture() {
+        float[] layout = {0, 0, 45, 1, 1, 1, 0, 45, 1, 1, 2, 0, 0, 1, 1, 3, 0, 0, 1, 1};
+
+        assertEquals(3, CompiledGeometry.of(layout).getBoxCount());
+    }
+
+    @Test
+    public void testQuarterTurnPiecesMerge() {
+        // A piece of 2 by 1 turned a quarter is 1 by 2, which lines up with an upright piece of 1 by 2.
+        float[] layout = {0.5F, 1, 90, 2, 1, 1.5F, 1, 0, 1, 2};
+
+        assertEquals(1, CompiledGeometry.of(layout).getBoxCount());
+    }
+
+    @Test
+    public void testSeparatePiecesDoNotMerge() {
+        float[] layout = {0.5F, 0.5F, 0, 1, 1, 2.5F, 0.5F, 0, 1, 1, 0.5F, 2.5F, 0, 1, 1};
+
+        assertEquals(3, CompiledGeometry.of(layout).getBoxCount());
+    }
+
+    @Test
+    public void testSameLayoutIsCompiledOnce() {
+        CompiledGeometry first = CompiledGeometry.of(row(20, 0));
+        CompiledGeometry second = CompiledGeometry.of(row(20, 0));
+
+        assertSame(first, second);
+        assertEquals(1, CompiledGeometry.getCacheSize());
+    }
+
+    @Test
+    public void testDifferentLayoutsAreCachedSeparately() {
+        CompiledGeometry first = CompiledGeometry.of(row(20, 0));
+        CompiledGeometry second = CompiledGeometry.of(row(20, 1));
+
+        assertNotSame(first, second);
+        assertEquals(2, CompiledGeometry.getCacheSize());
+    }
+
+    @Test
+    public void testCacheDoesNotShareTheCallersLayout() {
+        float[] layout = row(5, 0);
+        CompiledGeometry first = CompiledGeometry.of(layout);
+
+        layout[1] = 10; // Changing the array afterwards must not corrupt the cache
+        assertNotSame(first, CompiledGeometry.of(layout));
+        assertSame(first, CompiledGeometry.of(row(5, 0)));
+    }
+
+    @Test
+    public void testClearCache() {
+        CompiledGeometry first = CompiledGeometry.of(row(20, 0));
+        CompiledGeometry.clearCache();
+
+        assertEquals(0, CompiledGeometry.getCacheSize());
+        assertNotSame(first, CompiledGeometry.of(row(20, 0)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIncompleteLayout() {
+        CompiledGeometry.of(new float[]{0, 0, 0, 1});
+    }
+
+}